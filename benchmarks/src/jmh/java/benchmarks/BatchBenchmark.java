@@ -0,0 +1,93 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import implementation.BinarySearchTree;
+import implementation.KeyValuePair;
+import implementation.TreeIsFullException;
+
+/**
+ * Compares the batch operations of BinarySearchTree (one ordered walk per 
+ * batch) against issuing the same keys one at a time. Batches only hold keys
+ * already in the tree, so addAll updates values and the tree never grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({"10", "100", "1000", "10000", "100000"})
+	public int batchSize;
+
+	BinarySearchTree<Integer, Integer> tree;
+	List<Integer> keys;
+	List<KeyValuePair<Integer, Integer>> pairs;
+
+	@Setup(Level.Trial)
+	public void fill() throws TreeIsFullException {
+		Random random = new Random(42);
+		int[] treeKeys = KeyDistribution.RANDOM.insertionKeys(size, random);
+		tree = new BinarySearchTree<Integer, Integer>(
+				SortedStore.COMPARATOR, size + 1, true);
+		for (int key : treeKeys) {
+			tree.add(key, key);
+		}
+		keys = new ArrayList<Integer>(batchSize);
+		pairs = new ArrayList<KeyValuePair<Integer, Integer>>(batchSize);
+		for (int i = 0; i < batchSize; i++) {
+			Integer key = treeKeys[random.nextInt(size)];
+			keys.add(key);
+			pairs.add(new KeyValuePair<Integer, Integer>(key, i));
+		}
+	}
+
+	@Benchmark
+	public Object findAll() {
+		return tree.findAll(keys);
+	}
+
+	@Benchmark
+	public Object findEach() {
+		List<KeyValuePair<Integer, Integer>> answer = 
+				new ArrayList<KeyValuePair<Integer, Integer>>(keys.size());
+		for (Integer key : keys) {
+			answer.add(tree.find(key));
+		}
+		return answer;
+	}
+
+	@Benchmark
+	public Object addAll() throws TreeIsFullException {
+		return tree.addAll(pairs);
+	}
+
+	@Benchmark
+	public Object addEach() throws TreeIsFullException {
+		for (KeyValuePair<Integer, Integer> pair : pairs) {
+			tree.add(pair.getKey(), pair.getValue());
+		}
+		return tree;
+	}
+}
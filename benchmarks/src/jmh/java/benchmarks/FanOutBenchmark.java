@@ -0,0 +1,85 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import implementation.BPlusTree;
+import implementation.BinarySearchTree;
+import implementation.TreeIsFullException;
+
+/**
+ * Measures lookups per second of BPlusTree at several orders against the
+ * self-balancing BinarySearchTree holding the same keys, to pick the node 
+ * layout that costs the fewest cache misses at each size. findBinary does not
+ * depend on order; it is repeated for each order only as the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanOutBenchmark {
+
+	@Param({"8", "16", "32", "64", "128", "256"})
+	public int order;
+
+	@Param({"100000", "1000000", "10000000"})
+	public int size;
+
+	@Param({"RANDOM", "ZIPFIAN"})
+	public KeyDistribution distribution;
+
+	BPlusTree<Integer, Integer> btree;
+	BinarySearchTree<Integer, Integer> binary;
+	Integer[] lookups;
+	int next;
+
+	@Setup(Level.Trial)
+	public void fill() throws TreeIsFullException {
+		Random random = new Random(42);
+		int[] keys = KeyDistribution.RANDOM.insertionKeys(size, random);
+		btree = new BPlusTree<Integer, Integer>(
+				SortedStore.COMPARATOR, size, order);
+		binary = new BinarySearchTree<Integer, Integer>(
+				SortedStore.COMPARATOR, size, true);
+		for (int key : keys) {
+			btree.add(key, key);
+			binary.add(key, key);
+		}
+		int[] chosen = distribution.lookupKeys(keys, 1 << 16, random);
+		lookups = new Integer[chosen.length];
+		for (int i = 0; i < chosen.length; i++) {
+			lookups[i] = chosen[i];
+		}
+	}
+
+	private Integer nextKey() {
+		Integer key = lookups[next];
+		next = (next + 1) & (lookups.length - 1);
+		return key;
+	}
+
+	@Benchmark
+	public Object findBPlusTree() {
+		return btree.get(nextKey());
+	}
+
+	@Benchmark
+	public Object findBinary() {
+		return binary.get(nextKey());
+	}
+}
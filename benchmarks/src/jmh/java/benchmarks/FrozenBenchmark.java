@@ -0,0 +1,95 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import implementation.BinarySearchTree;
+import implementation.FrozenBinarySearchTree;
+import implementation.TreeIsFullException;
+
+/**
+ * Compares lookups on a live self-balancing BinarySearchTree against lookups 
+ * on the FrozenBinarySearchTree compiled from it by freeze. Both search the 
+ * same keys with the same comparator, so the difference is the layout: linked
+ * heap nodes versus an Eytzinger array of key references, or of the keys 
+ * mapped to inline longs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrozenBenchmark {
+
+	private static final ToLongFunction<Integer> KEY_ORDER = 
+			new ToLongFunction<Integer>() {
+		public long applyAsLong(Integer key) {
+			return key;
+		}
+	};
+
+	@Param({"1000", "100000", "1000000"})
+	public int size;
+
+	@Param({"RANDOM", "ZIPFIAN"})
+	public KeyDistribution distribution;
+
+	BinarySearchTree<Integer, Integer> live;
+	FrozenBinarySearchTree<Integer, Integer> frozen, frozenKeyOrder;
+	Integer[] lookups;
+	int next;
+
+	@Setup(Level.Trial)
+	public void fill() throws TreeIsFullException {
+		Random random = new Random(42);
+		live = new BinarySearchTree<Integer, Integer>(SortedStore.COMPARATOR, 
+				size, true);
+		int[] treeKeys = KeyDistribution.RANDOM.insertionKeys(size, random);
+		for (int key : treeKeys) {
+			live.add(key, key);
+		}
+		frozen = live.freeze();
+		frozenKeyOrder = live.freeze(KEY_ORDER);
+		int[] keys = distribution.lookupKeys(treeKeys, 1 << 16, random);
+		lookups = new Integer[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			lookups[i] = keys[i];
+		}
+	}
+
+	private Integer nextKey() {
+		Integer key = lookups[next];
+		next = (next + 1) & (lookups.length - 1);
+		return key;
+	}
+
+	@Benchmark
+	public Object findLive() {
+		return live.get(nextKey());
+	}
+
+	@Benchmark
+	public Object findFrozen() {
+		return frozen.get(nextKey());
+	}
+
+	@Benchmark
+	public Object findFrozenKeyOrder() {
+		return frozenKeyOrder.get(nextKey());
+	}
+}
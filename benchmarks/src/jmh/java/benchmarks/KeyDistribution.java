@@ -0,0 +1,99 @@
+package benchmarks;
+
+import java.util.Random;
+
+/**
+ * The key distributions the benchmarks are run against.
+ */
+public enum KeyDistribution {
+	/** Distinct keys in random order; lookups are uniform over the keys. */
+	RANDOM,
+	/** Distinct keys in ascending order; lookups are uniform over the keys. */
+	SORTED,
+	/**
+	 * Distinct keys in random order; lookups follow a Zipf distribution, so a
+	 * few hot keys receive most of the lookups.
+	 */
+	ZIPFIAN;
+
+	/** Skew of the Zipf distribution used for ZIPFIAN lookups. */
+	public static final double ZIPF_EXPONENT = 0.99;
+
+	/**
+	 * Returns the keys to be inserted into a tree of a given size, in the 
+	 * order in which they are inserted.
+	 *
+	 * @param size   The number of keys.
+	 * @param random The source of randomness.
+	 *
+	 * @return size distinct keys (every even number below 2 * size, so odd 
+	 * 		   numbers are free for keys that are not in the tree).
+	 */
+	public int[] insertionKeys(int size, Random random) {
+		int[] keys = new int[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = 2 * i;
+		}
+		if (this != SORTED) {
+			shuffle(keys, random);
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns lookup keys drawn from the keys of a tree of a given size.
+	 *
+	 * @param keys   The keys of the tree.
+	 * @param count  The number of lookups.
+	 * @param random The source of randomness.
+	 *
+	 * @return count keys, each of them in the tree.
+	 */
+	public int[] lookupKeys(int[] keys, int count, Random random) {
+		int[] answer = new int[count];
+		if (this != ZIPFIAN) {
+			for (int i = 0; i < count; i++) {
+				answer[i] = keys[random.nextInt(keys.length)];
+			}
+			return answer;
+		}
+		// Rank r is drawn with probability proportional to 1 / r^s by binary
+		// searching the cumulative distribution. Ranks map onto the shuffled
+		// keys, so hot keys are spread across the tree.
+		double[] cumulative = new double[keys.length];
+		double total = 0;
+		for (int rank = 0; rank < keys.length; rank++) {
+			total += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+			cumulative[rank] = total;
+		}
+		for (int i = 0; i < count; i++) {
+			double target = random.nextDouble() * total;
+			int low = 0, high = keys.length - 1;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (cumulative[middle] < target) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			answer[i] = keys[low];
+		}
+		return answer;
+	}
+
+	/**
+	 * Shuffles an array in place (Fisher-Yates).
+	 *
+	 * @param keys   The array to be shuffled.
+	 * @param random The source of randomness.
+	 */
+	static void shuffle(int[] keys, Random random) {
+		for (int i = keys.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = keys[i];
+			keys[i] = keys[j];
+			keys[j] = swap;
+		}
+	}
+}
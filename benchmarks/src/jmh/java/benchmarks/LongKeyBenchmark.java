@@ -0,0 +1,105 @@
+package benchmarks;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import implementation.BinarySearchTree;
+import implementation.LongBinarySearchTree;
+import implementation.TreeIsEmptyException;
+import implementation.TreeIsFullException;
+
+/**
+ * Compares LongBinarySearchTree against BinarySearchTree<Long, V> holding the
+ * same long keys, both self-balancing. The generic tree boxes every key and
+ * calls its Comparator on every level; the primitive tree does neither.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongKeyBenchmark {
+
+	private static final Comparator<Long> COMPARATOR = new Comparator<Long>() {
+		public int compare(Long long1, Long long2) {
+			return long1.compareTo(long2);
+		}
+	};
+
+	@Param({"1000", "100000", "1000000"})
+	public int size;
+
+	@Param({"RANDOM", "ZIPFIAN"})
+	public KeyDistribution distribution;
+
+	LongBinarySearchTree<Long> primitive;
+	BinarySearchTree<Long, Long> generic;
+	long[] lookups;
+	int next;
+
+	@Setup(Level.Trial)
+	public void fill() throws TreeIsFullException {
+		Random random = new Random(42);
+		primitive = new LongBinarySearchTree<Long>(size + 1, true);
+		generic = new BinarySearchTree<Long, Long>(COMPARATOR, size + 1, true);
+		int[] treeKeys = KeyDistribution.RANDOM.insertionKeys(size, random);
+		for (int key : treeKeys) {
+			primitive.add(key, (long) key);
+			generic.add((long) key, (long) key);
+		}
+		int[] keys = distribution.lookupKeys(treeKeys, 1 << 16, random);
+		lookups = new long[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			lookups[i] = keys[i];
+		}
+	}
+
+	private long nextKey() {
+		long key = lookups[next];
+		next = (next + 1) & (lookups.length - 1);
+		return key;
+	}
+
+	@Benchmark
+	public Object findPrimitive() {
+		return primitive.get(nextKey());
+	}
+
+	@Benchmark
+	public Object findGeneric() {
+		return generic.get(nextKey());
+	}
+
+	@Benchmark
+	public Object addThenDeletePrimitive() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		// Odd keys are never in the tree.
+		long key = nextKey() + 1;
+		primitive.add(key, key);
+		return primitive.delete(key);
+	}
+
+	@Benchmark
+	public Object addThenDeleteGeneric() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		// Odd keys are never in the tree.
+		long key = nextKey() + 1;
+		generic.add(key, key);
+		return generic.delete(key);
+	}
+}
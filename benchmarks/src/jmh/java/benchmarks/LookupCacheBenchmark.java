@@ -0,0 +1,72 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import implementation.BinarySearchTree;
+import implementation.TreeIsFullException;
+
+/**
+ * Measures the average latency of get on a self-balancing BinarySearchTree 
+ * with and without a lookup cache in front of it. Under ZIPFIAN lookups a 
+ * few thousand hot keys take most of the lookups and are answered from the 
+ * cache; under RANDOM lookups the cache mostly misses, which shows its cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupCacheBenchmark {
+
+	@Param({"100000", "1000000"})
+	public int size;
+
+	@Param({"ZIPFIAN", "RANDOM"})
+	public KeyDistribution distribution;
+
+	@Param({"0", "4096", "65536"})
+	public int cacheSize;
+
+	BinarySearchTree<Integer, Integer> tree;
+	Integer[] lookups;
+	int next;
+
+	@Setup(Level.Trial)
+	public void fill() throws TreeIsFullException {
+		Random random = new Random(42);
+		tree = new BinarySearchTree<Integer, Integer>(
+				SortedStore.COMPARATOR, size, true);
+		int[] treeKeys = KeyDistribution.RANDOM.insertionKeys(size, random);
+		for (int key : treeKeys) {
+			tree.add(key, key);
+		}
+		tree.setLookupCacheSize(cacheSize);
+		int[] keys = distribution.lookupKeys(treeKeys, 1 << 16, random);
+		lookups = new Integer[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			lookups[i] = keys[i];
+		}
+	}
+
+	@Benchmark
+	public Object get() {
+		Integer key = lookups[next];
+		next = (next + 1) & (lookups.length - 1);
+		return tree.get(key);
+	}
+}
@@ -0,0 +1,130 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import implementation.BinarySearchTree;
+import implementation.Callback;
+import implementation.KeyValuePair;
+import implementation.Reducer;
+import implementation.TreeIsFullException;
+
+/**
+ * Measures how a full pass summing every key of a self-balancing 
+ * BinarySearchTree scales with the number of threads. Each parallel variant 
+ * runs in a fork/join pool of the given parallelism; sequential is the 
+ * single-threaded processInorder baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelBenchmark {
+
+	private static final Reducer<Integer, Integer, Long> SUM = 
+			new Reducer<Integer, Integer, Long>() {
+		@Override
+		public Long accumulate(Long partial, Integer key, Integer value) {
+			return partial + key;
+		}
+
+		@Override
+		public Long combine(Long left, Long right) {
+			return left + right;
+		}
+	};
+
+	private static final ToLongFunction<KeyValuePair<Integer, Integer>> KEY = 
+			new ToLongFunction<KeyValuePair<Integer, Integer>>() {
+		@Override
+		public long applyAsLong(KeyValuePair<Integer, Integer> pair) {
+			return pair.getKey();
+		}
+	};
+
+	@Param({"1", "2", "4", "8"})
+	public int parallelism;
+
+	@Param({"1000000", "10000000"})
+	public int size;
+
+	BinarySearchTree<Integer, Integer> tree;
+	ForkJoinPool pool;
+
+	@Setup(Level.Trial)
+	public void fill() throws TreeIsFullException {
+		int[] keys = KeyDistribution.RANDOM.insertionKeys(size, new Random(42));
+		tree = new BinarySearchTree<Integer, Integer>(
+				SortedStore.COMPARATOR, size, true);
+		for (int key : keys) {
+			tree.add(key, key);
+		}
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	@TearDown(Level.Trial)
+	public void close() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public long sequential() {
+		final long[] sum = new long[1];
+		tree.processInorder(new Callback<Integer, Integer>() {
+			@Override
+			public void process(Integer key, Integer value) {
+				sum[0] += key;
+			}
+		});
+		return sum[0];
+	}
+
+	@Benchmark
+	public long parallelForEach() {
+		final LongAdder sum = new LongAdder();
+		tree.parallelForEach(new Callback<Integer, Integer>() {
+			@Override
+			public void process(Integer key, Integer value) {
+				sum.add(key);
+			}
+		}, pool);
+		return sum.sum();
+	}
+
+	@Benchmark
+	public long parallelReduce() {
+		return tree.parallelReduce(0L, SUM, pool);
+	}
+
+	@Benchmark
+	public long parallelStream() throws InterruptedException, ExecutionException {
+		// A parallel stream started from inside a pool runs on that pool.
+		return pool.submit(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return tree.parallelStream().mapToLong(KEY).sum();
+			}
+		}).get();
+	}
+}
@@ -0,0 +1,331 @@
+package benchmarks;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import implementation.ArrayBinarySearchTree;
+import implementation.BPlusTree;
+import implementation.BinarySearchTree;
+import implementation.Callback;
+import implementation.ConcurrentBinarySearchTree;
+import implementation.TreeIsEmptyException;
+import implementation.TreeIsFullException;
+
+/**
+ * The operations the benchmarks measure, implemented over each tree being
+ * compared so every implementation runs exactly the same benchmark code.
+ */
+public interface SortedStore {
+
+	/** Comparator shared by every implementation. */
+	Comparator<Integer> COMPARATOR = new Comparator<Integer>() {
+		@Override
+		public int compare(Integer int1, Integer int2) {
+			return int1.compareTo(int2);
+		}
+	};
+
+	void add(Integer key, Integer value);
+
+	Integer find(Integer key);
+
+	void delete(Integer key);
+
+	int subTreeSize(Integer lowerLimit, Integer upperLimit);
+
+	long sumInorder();
+
+	/**
+	 * The implementations that can be benchmarked.
+	 */
+	enum Kind {
+		/** BinarySearchTree constructed as self-balancing (AVL). */
+		BALANCED,
+		/** Plain BinarySearchTree. Degenerates on sorted keys. */
+		PLAIN,
+		/** ArrayBinarySearchTree constructed as self-balancing (AVL). */
+		ARRAY,
+		/** BPlusTree with the default order. */
+		BTREE,
+		/** ConcurrentBinarySearchTree. */
+		CONCURRENT,
+		/** java.util.TreeMap (red-black tree) as the reference. */
+		TREEMAP;
+
+		/**
+		 * Creates an empty store of this kind.
+		 *
+		 * @param maxEntries The maximum number of entries of the store.
+		 *
+		 * @return An empty store.
+		 */
+		public SortedStore create(int maxEntries) {
+			switch (this) {
+			case BALANCED:
+				return new TreeStore(new BinarySearchTree<Integer, Integer>(
+						COMPARATOR, maxEntries, true));
+			case PLAIN:
+				return new TreeStore(new BinarySearchTree<Integer, Integer>(
+						COMPARATOR, maxEntries, false));
+			case ARRAY:
+				return new ArrayStore(new ArrayBinarySearchTree<Integer, Integer>(
+						COMPARATOR, maxEntries, true));
+			case BTREE:
+				return new BPlusTreeStore(new BPlusTree<Integer, Integer>(
+						COMPARATOR, maxEntries));
+			case CONCURRENT:
+				return new ConcurrentStore(
+						new ConcurrentBinarySearchTree<Integer, Integer>(
+								COMPARATOR, maxEntries));
+			default:
+				return new TreeMapStore(new TreeMap<Integer, Integer>(COMPARATOR));
+			}
+		}
+	}
+
+	/**
+	 * Store backed by a BinarySearchTree.
+	 */
+	final class TreeStore implements SortedStore {
+		final BinarySearchTree<Integer, Integer> tree;
+
+		TreeStore(BinarySearchTree<Integer, Integer> tree) {
+			this.tree = tree;
+		}
+
+		@Override
+		public void add(Integer key, Integer value) {
+			try {
+				tree.add(key, value);
+			} catch (TreeIsFullException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public Integer find(Integer key) {
+			return tree.get(key);
+		}
+
+		@Override
+		public void delete(Integer key) {
+			try {
+				tree.delete(key);
+			} catch (TreeIsEmptyException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public int subTreeSize(Integer lowerLimit, Integer upperLimit) {
+			return tree.subTree(lowerLimit, upperLimit).size();
+		}
+
+		@Override
+		public long sumInorder() {
+			final long[] sum = new long[1];
+			tree.processInorder(new Callback<Integer, Integer>() {
+				@Override
+				public void process(Integer key, Integer value) {
+					sum[0] += key;
+				}
+			});
+			return sum[0];
+		}
+	}
+
+	/**
+	 * Store backed by an ArrayBinarySearchTree.
+	 */
+	final class ArrayStore implements SortedStore {
+		final ArrayBinarySearchTree<Integer, Integer> tree;
+
+		ArrayStore(ArrayBinarySearchTree<Integer, Integer> tree) {
+			this.tree = tree;
+		}
+
+		@Override
+		public void add(Integer key, Integer value) {
+			try {
+				tree.add(key, value);
+			} catch (TreeIsFullException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public Integer find(Integer key) {
+			return tree.get(key);
+		}
+
+		@Override
+		public void delete(Integer key) {
+			try {
+				tree.delete(key);
+			} catch (TreeIsEmptyException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public int subTreeSize(Integer lowerLimit, Integer upperLimit) {
+			return tree.subTree(lowerLimit, upperLimit).size();
+		}
+
+		@Override
+		public long sumInorder() {
+			final long[] sum = new long[1];
+			tree.processInorder(new Callback<Integer, Integer>() {
+				@Override
+				public void process(Integer key, Integer value) {
+					sum[0] += key;
+				}
+			});
+			return sum[0];
+		}
+	}
+
+	/**
+	 * Store backed by a BPlusTree.
+	 */
+	final class BPlusTreeStore implements SortedStore {
+		final BPlusTree<Integer, Integer> tree;
+
+		BPlusTreeStore(BPlusTree<Integer, Integer> tree) {
+			this.tree = tree;
+		}
+
+		@Override
+		public void add(Integer key, Integer value) {
+			try {
+				tree.add(key, value);
+			} catch (TreeIsFullException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public Integer find(Integer key) {
+			return tree.get(key);
+		}
+
+		@Override
+		public void delete(Integer key) {
+			try {
+				tree.delete(key);
+			} catch (TreeIsEmptyException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public int subTreeSize(Integer lowerLimit, Integer upperLimit) {
+			return tree.subTree(lowerLimit, upperLimit).size();
+		}
+
+		@Override
+		public long sumInorder() {
+			final long[] sum = new long[1];
+			tree.processInorder(new Callback<Integer, Integer>() {
+				@Override
+				public void process(Integer key, Integer value) {
+					sum[0] += key;
+				}
+			});
+			return sum[0];
+		}
+	}
+
+	/**
+	 * Store backed by a ConcurrentBinarySearchTree.
+	 */
+	final class ConcurrentStore implements SortedStore {
+		final ConcurrentBinarySearchTree<Integer, Integer> tree;
+
+		ConcurrentStore(ConcurrentBinarySearchTree<Integer, Integer> tree) {
+			this.tree = tree;
+		}
+
+		@Override
+		public void add(Integer key, Integer value) {
+			try {
+				tree.add(key, value);
+			} catch (TreeIsFullException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public Integer find(Integer key) {
+			return tree.get(key);
+		}
+
+		@Override
+		public void delete(Integer key) {
+			try {
+				tree.delete(key);
+			} catch (TreeIsEmptyException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public int subTreeSize(Integer lowerLimit, Integer upperLimit) {
+			return tree.subTree(lowerLimit, upperLimit).size();
+		}
+
+		@Override
+		public long sumInorder() {
+			final long[] sum = new long[1];
+			tree.processInorder(new Callback<Integer, Integer>() {
+				@Override
+				public void process(Integer key, Integer value) {
+					sum[0] += key;
+				}
+			});
+			return sum[0];
+		}
+	}
+
+	/**
+	 * Store backed by a java.util.TreeMap.
+	 */
+	final class TreeMapStore implements SortedStore {
+		final TreeMap<Integer, Integer> map;
+
+		TreeMapStore(TreeMap<Integer, Integer> map) {
+			this.map = map;
+		}
+
+		@Override
+		public void add(Integer key, Integer value) {
+			map.put(key, value);
+		}
+
+		@Override
+		public Integer find(Integer key) {
+			return map.get(key);
+		}
+
+		@Override
+		public void delete(Integer key) {
+			map.remove(key);
+		}
+
+		@Override
+		public int subTreeSize(Integer lowerLimit, Integer upperLimit) {
+			return new TreeMap<Integer, Integer>(
+					map.subMap(lowerLimit, true, upperLimit, true)).size();
+		}
+
+		@Override
+		public long sumInorder() {
+			long sum = 0;
+			for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+				sum += entry.getKey();
+			}
+			return sum;
+		}
+	}
+}
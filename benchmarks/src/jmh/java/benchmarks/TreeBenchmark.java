@@ -0,0 +1,123 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the core tree operations for every implementation, tree size and
+ * key distribution. The tree is filled once per trial in the distribution's
+ * insertion order, so the PLAIN tree is degenerate for SORTED keys; it is
+ * left out of the default parameters because filling it takes quadratic 
+ * time, but can be selected explicitly for small sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeBenchmark {
+
+	/** Number of precomputed lookup keys; a power of two. */
+	private static final int LOOKUPS = 1 << 16;
+
+	@Param({"BALANCED", "ARRAY", "BTREE", "CONCURRENT", "TREEMAP"})
+	public SortedStore.Kind tree;
+
+	@Param({"1000", "100000", "1000000", "10000000"})
+	public int size;
+
+	@Param({"RANDOM", "SORTED", "ZIPFIAN"})
+	public KeyDistribution distribution;
+
+	SortedStore store;
+	Integer[] lookupKeys;
+	Integer[] absentKeys;
+
+	@Setup(Level.Trial)
+	public void fill() {
+		Random random = new Random(42);
+		int[] keys = distribution.insertionKeys(size, random);
+		store = tree.create(size + 1);
+		for (int key : keys) {
+			store.add(key, key);
+		}
+		int[] lookups = distribution.lookupKeys(keys, LOOKUPS, random);
+		lookupKeys = new Integer[LOOKUPS];
+		absentKeys = new Integer[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			lookupKeys[i] = lookups[i];
+			// Odd keys are never in the tree.
+			absentKeys[i] = lookups[i] + 1;
+		}
+	}
+
+	/**
+	 * Per-thread position in the lookup keys so threads do not share a 
+	 * counter.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		int next;
+
+		@Setup(Level.Iteration)
+		public void start() {
+			next = (int) (Thread.currentThread().getId() * 7919);
+		}
+
+		int next() {
+			return next++ & (LOOKUPS - 1);
+		}
+	}
+
+	@Benchmark
+	public Integer find(Cursor cursor) {
+		return store.find(lookupKeys[cursor.next()]);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Integer findFourThreads(Cursor cursor) {
+		return store.find(lookupKeys[cursor.next()]);
+	}
+
+	/**
+	 * Adds a key that is not in the tree and deletes it again, so the tree
+	 * keeps its size across invocations.
+	 */
+	@Benchmark
+	public void addThenDelete(Cursor cursor) {
+		Integer key = absentKeys[cursor.next()];
+		store.add(key, key);
+		store.delete(key);
+	}
+
+	/** Copies roughly 1% of the tree (at least 10 keys) into a new tree. */
+	@Benchmark
+	public int subTree(Cursor cursor) {
+		Integer lowerLimit = lookupKeys[cursor.next()];
+		return store.subTreeSize(lowerLimit, 
+				lowerLimit + 2 * Math.max(10, size / 100));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public long processInorder() {
+		return store.sumInorder();
+	}
+}
@@ -0,0 +1,137 @@
+package implementation;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.TreeSet;
+
+/**
+ * Records how the nodes of a tree are used so that the least recently or 
+ * least frequently used one can be evicted. Nodes are tracked by identity 
+ * (tree nodes do not override equals), so the keys of the tree need not 
+ * implement hashCode.
+ * 
+ * In recency mode the nodes sit in a LinkedHashMap in access order: an access
+ * moves a node to the end and the victim is the first node, all in O(1). In 
+ * frequency mode each node has a use count and a tick of its last use, and 
+ * the nodes are ordered by count and then tick in a TreeSet, so an access is
+ * O(log n) and the victim is the least used node, the least recently used of
+ * those on a tie.
+ *
+ * @param <N> The type of the tracked nodes.
+ */
+class AccessTracker<N> {
+	
+	/**
+	 * The use of one node in frequency mode.
+	 */
+	private static class Use<N> {
+		private final N node;
+		private long count, tick;
+		
+		private Use(N node) {
+			this.node = node;
+		}
+	}
+	
+	private final boolean frequency;
+	private final LinkedHashMap<N, Boolean> recency;
+	private final HashMap<N, Use<N>> uses;
+	private final TreeSet<Use<N>> byUse;
+	private long clock;
+	
+	/**
+	 * Constructor for an empty tracker.
+	 * 
+	 * @param frequency True to evict the least frequently used node. False to
+	 * 					evict the least recently used one.
+	 */
+	AccessTracker(boolean frequency) {
+		this.frequency = frequency;
+		if (frequency) {
+			recency = null;
+			uses = new HashMap<N, Use<N>>();
+			byUse = new TreeSet<Use<N>>(new Comparator<Use<N>>() {
+				@Override
+				public int compare(Use<N> use1, Use<N> use2) {
+					int comparison = Long.compare(use1.count, use2.count);
+					return comparison != 0 ? comparison : 
+							Long.compare(use1.tick, use2.tick);
+				}
+			});
+		} else {
+			recency = new LinkedHashMap<N, Boolean>(16, 0.75f, true);
+			uses = null;
+			byUse = null;
+		}
+	}
+	
+	/**
+	 * Starts tracking a node as just used once.
+	 * 
+	 * @param node The node added to the tree.
+	 */
+	void added(N node) {
+		if (frequency) {
+			Use<N> use = new Use<N>(node);
+			use.count = 1;
+			use.tick = ++clock;
+			uses.put(node, use);
+			byUse.add(use);
+		} else {
+			recency.put(node, Boolean.TRUE);
+		}
+	}
+	
+	/**
+	 * Records a use of a tracked node.
+	 * 
+	 * @param node The node that was looked up or updated.
+	 */
+	void accessed(N node) {
+		if (frequency) {
+			Use<N> use = uses.get(node);
+			byUse.remove(use);
+			use.count++;
+			use.tick = ++clock;
+			byUse.add(use);
+		} else {
+			recency.get(node);
+		}
+	}
+	
+	/**
+	 * Stops tracking a node.
+	 * 
+	 * @param node The node removed from the tree.
+	 */
+	void removed(N node) {
+		if (frequency) {
+			byUse.remove(uses.remove(node));
+		} else {
+			recency.remove(node);
+		}
+	}
+	
+	/**
+	 * Returns the node to be evicted next. The tracker must not be empty.
+	 * 
+	 * @return The least recently or least frequently used node.
+	 */
+	N victim() {
+		return frequency ? byUse.first().node : 
+				recency.keySet().iterator().next();
+	}
+	
+	/**
+	 * Stops tracking every node.
+	 */
+	void clear() {
+		if (frequency) {
+			uses.clear();
+			byUse.clear();
+		} else {
+			recency.clear();
+		}
+	}
+}
@@ -0,0 +1,726 @@
+package implementation;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * Binary Search Tree whose nodes live in parallel arrays instead of separate
+ * objects. A node is an int index into those arrays: its key and value sit in
+ * two Object arrays and its links and height in int arrays. A tree of n 
+ * entries is therefore a handful of large arrays rather than n node objects,
+ * which saves the object header and outer-instance reference of each node 
+ * and leaves the garbage collector far fewer objects to trace. 
+ * Slots freed by delete are kept on a free list and reused by later adds.
+ *
+ * The tree offers the same operations as BinarySearchTree, is non-selfbalancing
+ * by default, can be constructed as a self-balancing (AVL) tree and never 
+ * recurses over the height of the tree.
+ *
+ * @param <K> The data type of the key of each node of the tree.
+ * @param <V> The data type of the data stored within each node of the tree.
+ */
+public class ArrayBinarySearchTree<K, V> {
+	
+	/**
+	 * The index standing for a missing node (the null reference of the node
+	 * arrays).
+	 */
+	private static final int NIL = -1;
+	
+	/**
+	 * The number of slots allocated by the first add.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+	
+	/**
+	 * The bytes taken by one slot: two compressed references and four ints.
+	 */
+	private static final int BYTES_PER_SLOT = 2 * 4 + 4 * 4;
+
+	private Object[] keys, values;
+	private int[] left, right, parent, height;
+	private int root = NIL, freeHead = NIL, used;
+	private int treeSize, maxEntries;
+	private Comparator<K> comparator;
+	private boolean selfBalancing;
+	
+	/**
+	 * Constructor for the tree that assigns the comparator object and ensures
+	 * valid instance variables. 
+	 * 
+	 * @param comparator The comparator that will compare key's of each node.
+	 * @param maxEntries The maximum number of nodes that will be allowed in the
+	 * 					 tree.
+	 * 
+	 * @throws IllegalArgumentException If the comparator object is null or 
+	 * 									maxEntries < 1.
+	 */
+	public ArrayBinarySearchTree(Comparator<K> comparator, int maxEntries) 
+			throws IllegalArgumentException {
+		this(comparator, maxEntries, false);
+	}
+	
+	/**
+	 * Constructor for the tree that assigns the comparator object, ensures
+	 * valid instance variables and chooses whether the tree rebalances itself
+	 * (AVL) after every add and delete.
+	 * 
+	 * @param comparator    The comparator that will compare key's of each node.
+	 * @param maxEntries    The maximum number of nodes that will be allowed in
+	 * 						the tree.
+	 * @param selfBalancing True if the tree should keep its height logarithmic
+	 * 						by rebalancing (AVL). False for a plain BST.
+	 * 
+	 * @throws IllegalArgumentException If the comparator object is null or 
+	 * 									maxEntries < 1.
+	 */
+	public ArrayBinarySearchTree(Comparator<K> comparator, int maxEntries, 
+			boolean selfBalancing) throws IllegalArgumentException {
+		if (comparator == null || maxEntries < 1) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		this.comparator = comparator;
+		this.maxEntries = maxEntries;
+		this.selfBalancing = selfBalancing;
+		allocate(Math.min(maxEntries, INITIAL_CAPACITY));
+	}
+	
+	/**
+	 * Grows (or first creates) the node arrays to hold a number of slots.
+	 * 
+	 * @param capacity The number of slots the arrays must hold.
+	 */
+	private void allocate(int capacity) {
+		if (keys == null) {
+			keys = new Object[capacity];
+			values = new Object[capacity];
+			left = new int[capacity];
+			right = new int[capacity];
+			parent = new int[capacity];
+			height = new int[capacity];
+		} else {
+			keys = Arrays.copyOf(keys, capacity);
+			values = Arrays.copyOf(values, capacity);
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+			parent = Arrays.copyOf(parent, capacity);
+			height = Arrays.copyOf(height, capacity);
+		}
+	}
+	
+	/**
+	 * Takes a slot for a new node, reusing a slot freed by delete when there 
+	 * is one and growing the arrays otherwise.
+	 * 
+	 * @param key        The key of the new node.
+	 * @param value      The value of the new node.
+	 * @param parentNode The parent of the new node.
+	 * 
+	 * @return The index of the new node.
+	 */
+	private int newNode(K key, V value, int parentNode) {
+		int node;
+		if (freeHead != NIL) {
+			node = freeHead;
+			freeHead = right[node];
+		} else {
+			if (used == keys.length) {
+				allocate((int) Math.min(maxEntries, 2L * keys.length));
+			}
+			node = used++;
+		}
+		keys[node] = key;
+		values[node] = value;
+		left[node] = NIL;
+		right[node] = NIL;
+		parent[node] = parentNode;
+		height[node] = 1;
+		return node;
+	}
+	
+	/**
+	 * Returns a node's slot to the free list and drops its key and value so 
+	 * they can be garbage collected.
+	 * 
+	 * @param node The index of the node that left the tree.
+	 */
+	private void freeNode(int node) {
+		keys[node] = null;
+		values[node] = null;
+		right[node] = freeHead;
+		freeHead = node;
+	}
+	
+	/**
+	 * Returns the key of a node.
+	 * 
+	 * @param node The index of the node.
+	 * 
+	 * @return The node's key.
+	 */
+	@SuppressWarnings("unchecked")
+	private K key(int node) {
+		return (K) keys[node];
+	}
+	
+	/**
+	 * Returns the value of a node.
+	 * 
+	 * @param node The index of the node.
+	 * 
+	 * @return The node's value.
+	 */
+	@SuppressWarnings("unchecked")
+	private V value(int node) {
+		return (V) values[node];
+	}
+	
+	/**
+	 * Adds a node into the tree in the correct position, or replaces the value
+	 * of the node that already has the key.
+	 * 
+	 * @param key   The key of the node to be stored.
+	 * @param value The value of the node to be stored.
+	 * 
+	 * @return The updated tree.
+	 * 
+	 * @throws TreeIsFullException If the tree is full and the key is not 
+	 * 							   already in the tree.
+	 */
+	public ArrayBinarySearchTree<K, V> add(K key, V value) 
+			throws TreeIsFullException {
+		if (isEmpty()) {
+			root = newNode(key, value, NIL);
+			treeSize++;
+			return this;
+		}
+		int current = root, parentNode = NIL, result = 0;
+		while (current != NIL) {
+			result = comparator.compare(key, key(current));
+			if (result == 0) {
+				values[current] = value;
+				return this;
+			}
+			parentNode = current;
+			current = result < 0 ? left[current] : right[current];
+		}
+		if (isFull()) {
+			throw new TreeIsFullException("Tree is already full");
+		}
+		int node = newNode(key, value, parentNode);
+		if (result < 0) {
+			left[parentNode] = node;
+		} else {
+			right[parentNode] = node;
+		}
+		treeSize++;
+		rebalanceUpwards(parentNode);
+		return this;
+	}
+	
+	/**
+	 * Returns the height of a node, treating a missing child as height 0.
+	 * 
+	 * @param node The index of the node whose height is requested.
+	 * 
+	 * @return The number of levels in the subtree rooted at node.
+	 */
+	private int height(int node) {
+		return node == NIL ? 0 : height[node];
+	}
+	
+	/**
+	 * Recomputes the cached height of a node from those of its children.
+	 * 
+	 * @param node The index of the node to be updated.
+	 */
+	private void update(int node) {
+		height[node] = 1 + Math.max(height(left[node]), height(right[node]));
+	}
+	
+	/**
+	 * Rebalances a node and every one of its ancestors up to the root.
+	 * 
+	 * @param node The deepest node whose subtree changed. Can be NIL.
+	 */
+	private void rebalanceUpwards(int node) {
+		while (node != NIL) {
+			node = parent[rebalance(node)];
+		}
+	}
+	
+	/**
+	 * Updates a node and, if the tree is self-balancing, rotates it so that 
+	 * the heights of its children differ by at most one.
+	 * 
+	 * @param node The index of the node to be rebalanced.
+	 * 
+	 * @return The node now occupying node's position in the tree.
+	 */
+	private int rebalance(int node) {
+		update(node);
+		if (!selfBalancing) {
+			return node;
+		}
+		int balance = height(left[node]) - height(right[node]);
+		if (balance > 1) {
+			if (height(left[left[node]]) < height(right[left[node]])) {
+				rotateLeft(left[node]);
+			}
+			return rotateRight(node);
+		} else if (balance < -1) {
+			if (height(right[right[node]]) < height(left[right[node]])) {
+				rotateRight(right[node]);
+			}
+			return rotateLeft(node);
+		}
+		return node;
+	}
+	
+	/**
+	 * Rotates a node to the right, lifting its left child into its position.
+	 * 
+	 * @param node The index of the node to be rotated.
+	 * 
+	 * @return The node's former left child, the new root of the subtree.
+	 */
+	private int rotateRight(int node) {
+		int pivot = left[node];
+		left[node] = right[pivot];
+		if (right[pivot] != NIL) {
+			parent[right[pivot]] = node;
+		}
+		replaceChild(parent[node], node, pivot);
+		right[pivot] = node;
+		parent[node] = pivot;
+		update(node);
+		update(pivot);
+		return pivot;
+	}
+	
+	/**
+	 * Rotates a node to the left, lifting its right child into its position.
+	 * 
+	 * @param node The index of the node to be rotated.
+	 * 
+	 * @return The node's former right child, the new root of the subtree.
+	 */
+	private int rotateLeft(int node) {
+		int pivot = right[node];
+		right[node] = left[pivot];
+		if (left[pivot] != NIL) {
+			parent[left[pivot]] = node;
+		}
+		replaceChild(parent[node], node, pivot);
+		left[pivot] = node;
+		parent[node] = pivot;
+		update(node);
+		update(pivot);
+		return pivot;
+	}
+	
+	/**
+	 * Replaces a child of a node (or the root of the tree when the parent is 
+	 * NIL) with another node and fixes the new child's parent link.
+	 * 
+	 * @param parentNode The parent whose child is replaced. NIL for the root.
+	 * @param oldChild   The child currently attached to the parent.
+	 * @param newChild   The node taking oldChild's place. Can be NIL.
+	 */
+	private void replaceChild(int parentNode, int oldChild, int newChild) {
+		if (parentNode == NIL) {
+			root = newChild;
+		} else if (left[parentNode] == oldChild) {
+			left[parentNode] = newChild;
+		} else {
+			right[parentNode] = newChild;
+		}
+		if (newChild != NIL) {
+			parent[newChild] = parentNode;
+		}
+	}
+	
+	/**
+	 * Iteratively locates the node holding a key.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return The index of the node with the key or NIL if no node has it.
+	 */
+	private int findNode(K key) {
+		int current = root;
+		while (current != NIL) {
+			int result = comparator.compare(key, key(current));
+			if (result == 0) {
+				return current;
+			}
+			current = result < 0 ? left[current] : right[current];
+		}
+		return NIL;
+	}
+	
+	/**
+	 * Locates a node within the tree based upon the parameters key and returns
+	 * the KeyValuePair.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return The node as a KeyValuePair or null if no node has the key.
+	 */
+	public KeyValuePair<K, V> find(K key) {
+		int node = findNode(key);
+		return node == NIL ? null : toKeyValuePair(node);
+	}
+	
+	/**
+	 * Returns the value assigned to a key.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return The value of the node or null if no node has the key.
+	 */
+	public V get(K key) {
+		int node = findNode(key);
+		return node == NIL ? null : value(node);
+	}
+	
+	/**
+	 * Determines whether a node within the tree has the key.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return True if a node has the key. False otherwise.
+	 */
+	public boolean containsKey(K key) {
+		return findNode(key) != NIL;
+	}
+	
+	/**
+	 * Deletes a node within the tree and handles all node location cases. The
+	 * node's slot is reused by a later add.
+	 * 
+	 * @param key The key of the node you'd like to delete.
+	 * 
+	 * @return The updated tree if the node was deleted and null if the key 
+	 * 		   parameter is not assigned to a node within the tree.
+	 * 
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public ArrayBinarySearchTree<K, V> delete(K key) throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		int node = findNode(key);
+		if (node == NIL) {
+			return null;
+		}
+		int rebalanceFrom;
+		if (left[node] == NIL || right[node] == NIL) {
+			int child = left[node] != NIL ? left[node] : right[node];
+			rebalanceFrom = parent[node];
+			replaceChild(parent[node], node, child);
+		} else {
+			int successor = getMinimumNode(right[node]);
+			if (parent[successor] == node) {
+				rebalanceFrom = successor;
+			} else {
+				rebalanceFrom = parent[successor];
+				replaceChild(parent[successor], successor, right[successor]);
+				right[successor] = right[node];
+				parent[right[successor]] = successor;
+			}
+			replaceChild(parent[node], node, successor);
+			left[successor] = left[node];
+			parent[left[successor]] = successor;
+		}
+		freeNode(node);
+		treeSize--;
+		rebalanceUpwards(rebalanceFrom);
+		return this;
+	}
+	
+	/**
+	 * Returns the minimum node below a node.
+	 * 
+	 * @param node The index of the node you'd like to begin traversal at.
+	 * 
+	 * @return The index of the node with the smallest key below node.
+	 */
+	private int getMinimumNode(int node) {
+		while (left[node] != NIL) {
+			node = left[node];
+		}
+		return node;
+	}
+	
+	/**
+	 * Returns the maximum node below a node.
+	 * 
+	 * @param node The index of the node you'd like to begin traversal at.
+	 * 
+	 * @return The index of the node with the largest key below node.
+	 */
+	private int getMaximumNode(int node) {
+		while (right[node] != NIL) {
+			node = right[node];
+		}
+		return node;
+	}
+	
+	/**
+	 * Returns the node that follows a node in an inorder traversal.
+	 * 
+	 * @param node The index of the node whose successor is requested.
+	 * 
+	 * @return The index of the node with the next larger key or NIL if there
+	 * 		   is none.
+	 */
+	private int successor(int node) {
+		if (right[node] != NIL) {
+			return getMinimumNode(right[node]);
+		}
+		int parentNode = parent[node];
+		while (parentNode != NIL && node == right[parentNode]) {
+			node = parentNode;
+			parentNode = parent[parentNode];
+		}
+		return parentNode;
+	}
+	
+	/**
+	 * Converts a node to a KeyValuePair.
+	 * 
+	 * @param node The index of the node to be converted.
+	 * 
+	 * @return A new KeyValuePair holding the node's key and value.
+	 */
+	private KeyValuePair<K, V> toKeyValuePair(int node) {
+		return new KeyValuePair<K, V>(key(node), value(node));
+	}
+	
+	/**
+	 * Locates and returns the minimum node within the tree with respect to 
+	 * the nodes' keys.
+	 * 
+	 * @return Minimum KeyValuePair.
+	 * 
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public KeyValuePair<K, V> getMinimumKeyValue() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		return toKeyValuePair(getMinimumNode(root));
+	}
+	
+	/**
+	 * Locates and returns the maximum node within the tree with respect to 
+	 * the nodes' keys.
+	 * 
+	 * @return Maximum KeyValuePair.
+	 * 
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public KeyValuePair<K, V> getMaximumKeyValue() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		return toKeyValuePair(getMaximumNode(root));
+	}
+	
+	/**
+	 * Conducts an inorder traversal of the tree and processes each node upon 
+	 * arrival.
+	 * 
+	 * @param callback The processing to be done to each node while traversing.
+	 */
+	public void processInorder(Callback<K, V> callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("callback is null.");
+		}
+		if (isEmpty()) {
+			return;
+		}
+		for (int node = getMinimumNode(root); node != NIL; 
+				node = successor(node)) {
+			callback.process(key(node), value(node));
+		}
+	}
+	
+	/**
+	 * Creates and returns a perfectly balanced subtree containing the nodes 
+	 * whose keys fall within the specified lower and upper limits. The 
+	 * subtree's arrays are sized to exactly the nodes it holds.
+	 *
+	 * @param lowerLimit The lower limit of the keys for the subtree (inclusive).
+	 * @param upperLimit The upper limit of the keys for the subtree (inclusive).
+	 * 
+	 * @return A new ArrayBinarySearchTree instance representing the subtree.
+	 * 
+	 * @throws IllegalArgumentException If the lowerLimit or upperLimit is null,
+	 *  								or if the lowerLimit is greater than the
+	 *  								upperLimit.
+	 */
+	public ArrayBinarySearchTree<K, V> subTree(K lowerLimit, K upperLimit) {
+		if (lowerLimit == null || upperLimit == null || 
+				comparator.compare(lowerLimit, upperLimit) > 0) {
+			throw new IllegalArgumentException("Illegal Argument");
+		}
+		int first = NIL;
+		for (int current = root; current != NIL; ) {
+			if (comparator.compare(key(current), lowerLimit) >= 0) {
+				first = current;
+				current = left[current];
+			} else {
+				current = right[current];
+			}
+		}
+		int count = 0;
+		for (int node = first; node != NIL && 
+				comparator.compare(key(node), upperLimit) <= 0; 
+				node = successor(node)) {
+			count++;
+		}
+		ArrayBinarySearchTree<K, V> answer = 
+				new ArrayBinarySearchTree<K, V>(comparator, maxEntries, selfBalancing);
+		answer.allocate(Math.max(count, 1));
+		int node = first;
+		for (int i = 0; i < count; i++, node = successor(node)) {
+			answer.keys[i] = keys[node];
+			answer.values[i] = values[node];
+		}
+		answer.used = count;
+		answer.root = answer.buildBalanced(0, count, NIL);
+		answer.treeSize = count;
+		return answer;
+	}
+	
+	/**
+	 * Links the slots of a sorted run of keys into a perfectly balanced 
+	 * subtree. Slot i already holds the i-th smallest key, so the links are 
+	 * the only thing written. The recursion is only logarithmically deep.
+	 * 
+	 * @param low        The first slot to be used (inclusive).
+	 * @param high       The last slot to be used (exclusive).
+	 * @param parentNode The parent of the subtree being built.
+	 * 
+	 * @return The root of the subtree or NIL if the slot range is empty.
+	 */
+	private int buildBalanced(int low, int high, int parentNode) {
+		if (low >= high) {
+			return NIL;
+		}
+		int middle = (low + high) >>> 1;
+		parent[middle] = parentNode;
+		left[middle] = buildBalanced(low, middle, middle);
+		right[middle] = buildBalanced(middle + 1, high, middle);
+		update(middle);
+		return middle;
+	}
+	
+	/**
+	 * Creates and returns a TreeSet containing all the leaves (nodes with no 
+	 * children) of the tree.
+	 * 
+	 * @return A TreeSet with all the leaves of the tree.
+	 */
+	public TreeSet<V> getLeavesValues() {
+		TreeSet<V> answer = new TreeSet<V>();
+		if (isEmpty()) {
+			return answer;
+		}
+		for (int node = getMinimumNode(root); node != NIL; 
+				node = successor(node)) {
+			if (left[node] == NIL && right[node] == NIL) {
+				answer.add(value(node));
+			}
+		}
+		return answer;
+	}
+	
+	/**
+	 * Estimates the heap taken per entry by the node arrays, assuming a 64-bit
+	 * JVM with compressed references. Allocated but unused slots are charged
+	 * to the entries, so the figure is at its lowest when the tree is full or
+	 * freshly built by subTree. Compare with 
+	 * BinarySearchTree.NODE_BYTES_PER_ENTRY for the one-object-per-node layout.
+	 * 
+	 * @return The bytes of node storage per entry. The bytes of one slot if 
+	 * 		   the tree is empty.
+	 */
+	public double bytesPerEntry() {
+		return (double) BYTES_PER_SLOT * keys.length / Math.max(treeSize, 1);
+	}
+	
+	/**
+	 * Overriding the toString method for the tree.
+	 */
+	@Override
+	public String toString() {
+		if (isEmpty()) {
+			return "EMPTY TREE";
+		}
+		StringBuilder answer = new StringBuilder();
+		for (int node = getMinimumNode(root); node != NIL; 
+				node = successor(node)) {
+			answer.append('{').append(keys[node]).append(':')
+					.append(values[node]).append('}');
+		}
+		return answer.toString();
+	}
+	
+	/**
+	 * Determines whether the tree is empty or not.
+	 * 
+	 * @return True if the tree has no nodes. False otherwise.
+	 */
+	public boolean isEmpty() {
+		return root == NIL;
+	}
+	
+	/**
+	 * Returns the number of nodes within the tree.
+	 * 
+	 * @return Number of nodes in the tree.
+	 */
+	public int size() {
+		return treeSize;
+	}
+	
+	/**
+	 * Returns the current number of nodes within the tree.
+	 * 
+	 * @return Current number of nodes within the tree.
+	 */
+	public int getTreeSize() {
+		return treeSize;
+	}
+	
+	/**
+	 * Returns the height of the tree.
+	 * 
+	 * @return Height of the tree. 0 if the tree is empty.
+	 */
+	public int getHeight() {
+		return height(root);
+	}
+	
+	/**
+	 * Determines whether the tree is self-balancing or not.
+	 * 
+	 * @return True if the tree rebalances itself after each add and delete.
+	 */
+	public boolean isSelfBalancing() {
+		return selfBalancing;
+	}
+	
+	/**
+	 * Determines whether the tree is full or not.
+	 * 
+	 * @return True if treeSize equals maxEntries. False otherwise.
+	 */
+	public boolean isFull() {
+		return treeSize == maxEntries;
+	}
+}
@@ -0,0 +1,925 @@
+package implementation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+/**
+ * B+-tree offering the same operations as BinarySearchTree. Each node holds
+ * up to order keys in an array, so a lookup touches one node per level of a
+ * tree that is log base order/2 of n levels deep, and the keys it compares
+ * against within a node sit next to each other in memory. All entries live in
+ * the leaves, which are linked in key order, so ordered traversals and range
+ * copies walk the leaves without going back up the tree.
+ *
+ * The tree is always balanced: adds split full nodes and deletes borrow from
+ * or merge with a sibling, keeping every node except the root at least half
+ * full. Every operation is iterative.
+ *
+ * @param <K> The data type of the key of each entry of the tree.
+ * @param <V> The data type of the data stored within each entry of the tree.
+ */
+public class BPlusTree<K, V> implements Iterable<KeyValuePair<K, V>> {
+
+	/**
+	 * The order used when none is given: the most children of an inner node
+	 * and the most entries of a leaf.
+	 */
+	public static final int DEFAULT_ORDER = 64;
+
+	/**
+	 * A node of the tree. Keys are held as Objects so that nodes can be kept
+	 * in arrays; count is the number of keys in use.
+	 */
+	private static abstract class Node {
+		Object[] keys;
+		int count;
+	}
+
+	/**
+	 * A leaf, holding entries in key order and linked to its neighbours.
+	 */
+	private static final class Leaf extends Node {
+		Object[] values;
+		Leaf next, prev;
+
+		private Leaf(int order) {
+			// One spare slot holds an entry while a full leaf is being split.
+			keys = new Object[order + 1];
+			values = new Object[order + 1];
+		}
+	}
+
+	/**
+	 * An inner node. Child i holds the keys that are at least keys[i - 1] and
+	 * less than keys[i].
+	 */
+	private static final class Inner extends Node {
+		Node[] children;
+
+		private Inner(int order) {
+			// One spare slot holds a child while a full node is being split.
+			keys = new Object[order];
+			children = new Node[order + 1];
+		}
+	}
+
+	private Node root;
+	private int depth, treeSize, maxEntries, modCount;
+	private final int order, minLeafCount, minChildren;
+	private Comparator<K> comparator;
+	private Inner[] pathNodes = new Inner[0];
+	private int[] pathSlots = new int[0];
+
+	/**
+	 * Constructor for the tree with the default order that assigns the
+	 * comparator object and ensures valid instance variables.
+	 *
+	 * @param comparator The comparator that will compare key's of each entry.
+	 * @param maxEntries The maximum number of entries that will be allowed in
+	 * 					 the tree.
+	 *
+	 * @throws IllegalArgumentException If the comparator object is null or
+	 * 									maxEntries < 1.
+	 */
+	public BPlusTree(Comparator<K> comparator, int maxEntries)
+			throws IllegalArgumentException {
+		this(comparator, maxEntries, DEFAULT_ORDER);
+	}
+
+	/**
+	 * Constructor for the tree that assigns the comparator object, ensures
+	 * valid instance variables and sets the fan-out of the nodes.
+	 *
+	 * @param comparator The comparator that will compare key's of each entry.
+	 * @param maxEntries The maximum number of entries that will be allowed in
+	 * 					 the tree.
+	 * @param order      The most children of an inner node and the most
+	 * 					 entries of a leaf.
+	 *
+	 * @throws IllegalArgumentException If the comparator object is null,
+	 * 									maxEntries < 1 or order < 3.
+	 */
+	public BPlusTree(Comparator<K> comparator, int maxEntries, int order)
+			throws IllegalArgumentException {
+		if (comparator == null || maxEntries < 1 || order < 3) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		this.comparator = comparator;
+		this.maxEntries = maxEntries;
+		this.order = order;
+		this.minLeafCount = order / 2;
+		this.minChildren = (order + 1) / 2;
+	}
+
+	/**
+	 * Returns the key at an index of a node.
+	 *
+	 * @param node  The node holding the key.
+	 * @param index The index of the key.
+	 *
+	 * @return The key.
+	 */
+	@SuppressWarnings("unchecked")
+	private K key(Node node, int index) {
+		return (K) node.keys[index];
+	}
+
+	/**
+	 * Returns the value at an index of a leaf.
+	 *
+	 * @param leaf  The leaf holding the value.
+	 * @param index The index of the value.
+	 *
+	 * @return The value.
+	 */
+	@SuppressWarnings("unchecked")
+	private V value(Leaf leaf, int index) {
+		return (V) leaf.values[index];
+	}
+
+	/**
+	 * Binary searches the keys of a node.
+	 *
+	 * @param node The node to be searched.
+	 * @param key  The key to be searched for.
+	 *
+	 * @return The index of the key if the node holds it, otherwise
+	 * 		   (-(insertion point) - 1) as in Arrays.binarySearch.
+	 */
+	private int search(Node node, K key) {
+		int low = 0, high = node.count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int result = comparator.compare(key(node, middle), key);
+			if (result < 0) {
+				low = middle + 1;
+			} else if (result > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * Returns the index of the child of an inner node whose keys range covers
+	 * a key.
+	 *
+	 * @param inner The inner node.
+	 * @param key   The key to be routed.
+	 *
+	 * @return The index of the child to descend into.
+	 */
+	private int childIndex(Inner inner, K key) {
+		int index = search(inner, key);
+		return index >= 0 ? index + 1 : -index - 1;
+	}
+
+	/**
+	 * Descends from the root to the leaf whose range covers a key, recording
+	 * the inner nodes passed and the child taken at each so that splits and
+	 * merges can be carried back up.
+	 *
+	 * @param key The key to be routed.
+	 *
+	 * @return The leaf whose range covers the key.
+	 */
+	private Leaf descend(K key) {
+		if (pathNodes.length < depth) {
+			pathNodes = new Inner[depth];
+			pathSlots = new int[depth];
+		}
+		Node node = root;
+		for (int level = 0; level < depth; level++) {
+			Inner inner = (Inner) node;
+			int slot = childIndex(inner, key);
+			pathNodes[level] = inner;
+			pathSlots[level] = slot;
+			node = inner.children[slot];
+		}
+		return (Leaf) node;
+	}
+
+	/**
+	 * Descends from the root to the leaf whose range covers a key without
+	 * recording the path.
+	 *
+	 * @param key The key to be routed.
+	 *
+	 * @return The leaf whose range covers the key.
+	 */
+	private Leaf findLeaf(K key) {
+		Node node = root;
+		for (int level = 0; level < depth; level++) {
+			Inner inner = (Inner) node;
+			node = inner.children[childIndex(inner, key)];
+		}
+		return (Leaf) node;
+	}
+
+	/**
+	 * Adds an entry into the tree in the correct position, or replaces the
+	 * value of the entry that already has the key.
+	 *
+	 * @param key   The key of the entry to be stored.
+	 * @param value The value of the entry to be stored.
+	 *
+	 * @return The updated tree.
+	 *
+	 * @throws TreeIsFullException If the tree is full and the key is not
+	 * 							   already in the tree.
+	 */
+	public BPlusTree<K, V> add(K key, V value) throws TreeIsFullException {
+		if (isEmpty()) {
+			root = new Leaf(order);
+		}
+		Leaf leaf = descend(key);
+		int index = search(leaf, key);
+		if (index >= 0) {
+			leaf.values[index] = value;
+			return this;
+		} else if (isFull()) {
+			throw new TreeIsFullException("Tree is already full");
+		}
+		index = -index - 1;
+		System.arraycopy(leaf.keys, index, leaf.keys, index + 1,
+				leaf.count - index);
+		System.arraycopy(leaf.values, index, leaf.values, index + 1,
+				leaf.count - index);
+		leaf.keys[index] = key;
+		leaf.values[index] = value;
+		leaf.count++;
+		treeSize++;
+		modCount++;
+		if (leaf.count > order) {
+			splitLeaf(leaf);
+		}
+		return this;
+	}
+
+	/**
+	 * Splits an overfull leaf in two and carries the new leaf up into its
+	 * parent, splitting every ancestor that overflows in turn and growing a
+	 * new root if the old one splits. Expects the path recorded by descend.
+	 *
+	 * @param leaf The leaf holding one entry more than order.
+	 */
+	private void splitLeaf(Leaf leaf) {
+		Leaf right = new Leaf(order);
+		int keep = (leaf.count + 1) / 2;
+		right.count = leaf.count - keep;
+		System.arraycopy(leaf.keys, keep, right.keys, 0, right.count);
+		System.arraycopy(leaf.values, keep, right.values, 0, right.count);
+		clear(leaf.keys, keep, leaf.count);
+		clear(leaf.values, keep, leaf.count);
+		leaf.count = keep;
+		right.next = leaf.next;
+		right.prev = leaf;
+		if (leaf.next != null) {
+			leaf.next.prev = right;
+		}
+		leaf.next = right;
+		Object separator = right.keys[0];
+		Node newChild = right;
+		for (int level = depth - 1; level >= 0; level--) {
+			Inner parent = pathNodes[level];
+			int slot = pathSlots[level];
+			System.arraycopy(parent.keys, slot, parent.keys, slot + 1,
+					parent.count - slot);
+			System.arraycopy(parent.children, slot + 1, parent.children, slot + 2,
+					parent.count - slot);
+			parent.keys[slot] = separator;
+			parent.children[slot + 1] = newChild;
+			parent.count++;
+			if (parent.count < order) {
+				return;
+			}
+			Inner sibling = new Inner(order);
+			int keepChildren = (parent.count + 2) / 2;
+			separator = parent.keys[keepChildren - 1];
+			sibling.count = parent.count - keepChildren;
+			System.arraycopy(parent.keys, keepChildren, sibling.keys, 0,
+					sibling.count);
+			System.arraycopy(parent.children, keepChildren, sibling.children, 0,
+					sibling.count + 1);
+			clear(parent.keys, keepChildren - 1, parent.count);
+			clear(parent.children, keepChildren, parent.count + 1);
+			parent.count = keepChildren - 1;
+			newChild = sibling;
+		}
+		Inner newRoot = new Inner(order);
+		newRoot.keys[0] = separator;
+		newRoot.children[0] = root;
+		newRoot.children[1] = newChild;
+		newRoot.count = 1;
+		root = newRoot;
+		depth++;
+	}
+
+	/**
+	 * Nulls a range of an array so that removed keys, values and nodes can
+	 * be garbage collected.
+	 *
+	 * @param array The array to be cleared.
+	 * @param from  The first index to be cleared (inclusive).
+	 * @param to    The last index to be cleared (exclusive).
+	 */
+	private static void clear(Object[] array, int from, int to) {
+		for (int i = from; i < to; i++) {
+			array[i] = null;
+		}
+	}
+
+	/**
+	 * Deletes the entry with a key, rebalancing the nodes on its path so that
+	 * every node except the root stays at least half full.
+	 *
+	 * @param key The key of the entry you'd like to delete.
+	 *
+	 * @return The updated tree if the entry was deleted and null if the key
+	 * 		   parameter is not assigned to an entry within the tree.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public BPlusTree<K, V> delete(K key) throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		Leaf leaf = descend(key);
+		int index = search(leaf, key);
+		if (index < 0) {
+			return null;
+		}
+		System.arraycopy(leaf.keys, index + 1, leaf.keys, index,
+				leaf.count - index - 1);
+		System.arraycopy(leaf.values, index + 1, leaf.values, index,
+				leaf.count - index - 1);
+		leaf.count--;
+		leaf.keys[leaf.count] = null;
+		leaf.values[leaf.count] = null;
+		treeSize--;
+		modCount++;
+		Node node = leaf;
+		for (int level = depth - 1; level >= 0 && isUnderfull(node); level--) {
+			if (!rebalanceChild(pathNodes[level], pathSlots[level])) {
+				break;
+			}
+			node = pathNodes[level];
+		}
+		if (depth > 0 && root.count == 0) {
+			root = ((Inner) root).children[0];
+			depth--;
+		} else if (depth == 0 && root.count == 0) {
+			root = null;
+		}
+		return this;
+	}
+
+	/**
+	 * Determines whether a node other than the root holds fewer keys than
+	 * allowed.
+	 *
+	 * @param node The node to be checked.
+	 *
+	 * @return True if the node must borrow from or merge with a sibling.
+	 */
+	private boolean isUnderfull(Node node) {
+		if (node instanceof Leaf) {
+			return node.count < minLeafCount;
+		}
+		return node.count + 1 < minChildren;
+	}
+
+	/**
+	 * Determines whether a node can give a key to a sibling and still be at
+	 * least half full.
+	 *
+	 * @param node The node to be checked.
+	 *
+	 * @return True if the node can lend a key.
+	 */
+	private boolean canLend(Node node) {
+		if (node instanceof Leaf) {
+			return node.count > minLeafCount;
+		}
+		return node.count + 1 > minChildren;
+	}
+
+	/**
+	 * Refills an underfull child of an inner node, borrowing a key from a
+	 * neighbouring sibling if it can spare one and merging with it otherwise.
+	 *
+	 * @param parent The parent of the underfull child.
+	 * @param slot   The index of the underfull child within the parent.
+	 *
+	 * @return True if the child was merged, so the parent lost a key and may
+	 * 		   now be underfull itself. False if a key was borrowed.
+	 */
+	private boolean rebalanceChild(Inner parent, int slot) {
+		Node child = parent.children[slot];
+		if (slot > 0 && canLend(parent.children[slot - 1])) {
+			borrowFromLeft(parent, slot - 1, parent.children[slot - 1], child);
+			return false;
+		} else if (slot < parent.count && canLend(parent.children[slot + 1])) {
+			borrowFromRight(parent, slot, child, parent.children[slot + 1]);
+			return false;
+		}
+		int separator = slot > 0 ? slot - 1 : slot;
+		merge(parent, separator, parent.children[separator],
+				parent.children[separator + 1]);
+		return true;
+	}
+
+	/**
+	 * Moves the last key of a node to the front of its right-hand sibling.
+	 *
+	 * @param parent    The parent of both nodes.
+	 * @param separator The index of the parent key between the two nodes.
+	 * @param left      The node giving a key.
+	 * @param right     The node receiving it.
+	 */
+	private void borrowFromLeft(Inner parent, int separator, Node left,
+			Node right) {
+		System.arraycopy(right.keys, 0, right.keys, 1, right.count);
+		if (right instanceof Leaf) {
+			Leaf from = (Leaf) left, to = (Leaf) right;
+			System.arraycopy(to.values, 0, to.values, 1, to.count);
+			to.keys[0] = from.keys[from.count - 1];
+			to.values[0] = from.values[from.count - 1];
+			from.values[from.count - 1] = null;
+			parent.keys[separator] = to.keys[0];
+		} else {
+			Inner from = (Inner) left, to = (Inner) right;
+			System.arraycopy(to.children, 0, to.children, 1, to.count + 1);
+			to.keys[0] = parent.keys[separator];
+			to.children[0] = from.children[from.count];
+			from.children[from.count] = null;
+			parent.keys[separator] = from.keys[from.count - 1];
+		}
+		left.keys[left.count - 1] = null;
+		left.count--;
+		right.count++;
+	}
+
+	/**
+	 * Moves the first key of a node to the end of its left-hand sibling.
+	 *
+	 * @param parent    The parent of both nodes.
+	 * @param separator The index of the parent key between the two nodes.
+	 * @param left      The node receiving a key.
+	 * @param right     The node giving it.
+	 */
+	private void borrowFromRight(Inner parent, int separator, Node left,
+			Node right) {
+		if (left instanceof Leaf) {
+			Leaf to = (Leaf) left, from = (Leaf) right;
+			to.keys[to.count] = from.keys[0];
+			to.values[to.count] = from.values[0];
+			System.arraycopy(from.values, 1, from.values, 0, from.count - 1);
+			from.values[from.count - 1] = null;
+			System.arraycopy(from.keys, 1, from.keys, 0, from.count - 1);
+			parent.keys[separator] = from.keys[0];
+		} else {
+			Inner to = (Inner) left, from = (Inner) right;
+			to.keys[to.count] = parent.keys[separator];
+			to.children[to.count + 1] = from.children[0];
+			parent.keys[separator] = from.keys[0];
+			System.arraycopy(from.keys, 1, from.keys, 0, from.count - 1);
+			System.arraycopy(from.children, 1, from.children, 0, from.count);
+			from.children[from.count] = null;
+		}
+		right.keys[right.count - 1] = null;
+		right.count--;
+		left.count++;
+	}
+
+	/**
+	 * Merges a node into its left-hand sibling and removes it and the key
+	 * separating them from their parent.
+	 *
+	 * @param parent    The parent of both nodes.
+	 * @param separator The index of the parent key between the two nodes.
+	 * @param left      The node that absorbs the other.
+	 * @param right     The node being absorbed.
+	 */
+	private void merge(Inner parent, int separator, Node left, Node right) {
+		if (left instanceof Leaf) {
+			Leaf to = (Leaf) left, from = (Leaf) right;
+			System.arraycopy(from.keys, 0, to.keys, to.count, from.count);
+			System.arraycopy(from.values, 0, to.values, to.count, from.count);
+			to.count += from.count;
+			to.next = from.next;
+			if (from.next != null) {
+				from.next.prev = to;
+			}
+		} else {
+			Inner to = (Inner) left, from = (Inner) right;
+			to.keys[to.count] = parent.keys[separator];
+			System.arraycopy(from.keys, 0, to.keys, to.count + 1, from.count);
+			System.arraycopy(from.children, 0, to.children, to.count + 1,
+					from.count + 1);
+			to.count += from.count + 1;
+		}
+		System.arraycopy(parent.keys, separator + 1, parent.keys, separator,
+				parent.count - separator - 1);
+		System.arraycopy(parent.children, separator + 2, parent.children,
+				separator + 1, parent.count - separator - 1);
+		parent.count--;
+		parent.keys[parent.count] = null;
+		parent.children[parent.count + 1] = null;
+	}
+
+	/**
+	 * Locates an entry within the tree based upon the parameters key and
+	 * returns the KeyValuePair.
+	 *
+	 * @param key The key of the entry you'd like to find.
+	 *
+	 * @return The entry as a KeyValuePair or null if no entry has the key.
+	 */
+	public KeyValuePair<K, V> find(K key) {
+		if (isEmpty()) {
+			return null;
+		}
+		Leaf leaf = findLeaf(key);
+		int index = search(leaf, key);
+		return index < 0 ? null :
+				new KeyValuePair<K, V>(key(leaf, index), value(leaf, index));
+	}
+
+	/**
+	 * Returns the value assigned to a key.
+	 *
+	 * @param key The key of the entry you'd like to find.
+	 *
+	 * @return The value of the entry or null if no entry has the key.
+	 */
+	public V get(K key) {
+		if (isEmpty()) {
+			return null;
+		}
+		Leaf leaf = findLeaf(key);
+		int index = search(leaf, key);
+		return index < 0 ? null : value(leaf, index);
+	}
+
+	/**
+	 * Determines whether an entry within the tree has the key.
+	 *
+	 * @param key The key of the entry you'd like to find.
+	 *
+	 * @return True if an entry has the key. False otherwise.
+	 */
+	public boolean containsKey(K key) {
+		return !isEmpty() && search(findLeaf(key), key) >= 0;
+	}
+
+	/**
+	 * Returns the leftmost leaf of the tree.
+	 *
+	 * @return The leaf holding the smallest keys.
+	 */
+	private Leaf firstLeaf() {
+		Node node = root;
+		for (int level = 0; level < depth; level++) {
+			node = ((Inner) node).children[0];
+		}
+		return (Leaf) node;
+	}
+
+	/**
+	 * Returns the rightmost leaf of the tree.
+	 *
+	 * @return The leaf holding the largest keys.
+	 */
+	private Leaf lastLeaf() {
+		Node node = root;
+		for (int level = 0; level < depth; level++) {
+			node = ((Inner) node).children[node.count];
+		}
+		return (Leaf) node;
+	}
+
+	/**
+	 * Returns the minimum key within the tree.
+	 *
+	 * @return Minimum key.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public K minKey() throws TreeIsEmptyException {
+		return getMinimumKeyValue().getKey();
+	}
+
+	/**
+	 * Returns the maximum key within the tree.
+	 *
+	 * @return Maximum key.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public K maxKey() throws TreeIsEmptyException {
+		return getMaximumKeyValue().getKey();
+	}
+
+	/**
+	 * Locates and returns the minimum entry within the tree with respect to
+	 * the entries' keys.
+	 *
+	 * @return Minimum KeyValuePair.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public KeyValuePair<K, V> getMinimumKeyValue() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		Leaf leaf = firstLeaf();
+		return new KeyValuePair<K, V>(key(leaf, 0), value(leaf, 0));
+	}
+
+	/**
+	 * Locates and returns the maximum entry within the tree with respect to
+	 * the entries' keys.
+	 *
+	 * @return Maximum KeyValuePair.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public KeyValuePair<K, V> getMaximumKeyValue() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		Leaf leaf = lastLeaf();
+		return new KeyValuePair<K, V>(key(leaf, leaf.count - 1),
+				value(leaf, leaf.count - 1));
+	}
+
+	/**
+	 * Conducts an inorder traversal of the tree by walking the linked leaves
+	 * and processes each entry upon arrival.
+	 *
+	 * @param callback The processing to be done to each entry while traversing.
+	 */
+	public void processInorder(Callback<K, V> callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("callback is null.");
+		}
+		if (isEmpty()) {
+			return;
+		}
+		for (Leaf leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+			for (int i = 0; i < leaf.count; i++) {
+				callback.process(key(leaf, i), value(leaf, i));
+			}
+		}
+	}
+
+	/**
+	 * Returns an iterator over the entries in ascending key order. The
+	 * iterator walks the linked leaves and fails fast if the tree is
+	 * structurally modified while it is in use.
+	 *
+	 * @return An iterator of KeyValuePairs in ascending key order.
+	 */
+	@Override
+	public Iterator<KeyValuePair<K, V>> iterator() {
+		return new LeafIterator();
+	}
+
+	/**
+	 * Iterator walking the linked leaves from the smallest key.
+	 */
+	private class LeafIterator implements Iterator<KeyValuePair<K, V>> {
+		private Leaf leaf;
+		private int index;
+		private final int expectedModCount;
+
+		private LeafIterator() {
+			this.leaf = isEmpty() ? null : firstLeaf();
+			this.expectedModCount = modCount;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return leaf != null;
+		}
+
+		@Override
+		public KeyValuePair<K, V> next() {
+			if (leaf == null) {
+				throw new NoSuchElementException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			KeyValuePair<K, V> answer =
+					new KeyValuePair<K, V>(key(leaf, index), value(leaf, index));
+			if (++index == leaf.count) {
+				leaf = leaf.next;
+				index = 0;
+			}
+			return answer;
+		}
+	}
+
+	/**
+	 * Creates and returns a subtree containing the entries whose keys fall
+	 * within the specified lower and upper limits. The entries are copied by
+	 * walking the linked leaves from the lower limit, and the subtree is built
+	 * bottom-up with evenly filled nodes.
+	 *
+	 * @param lowerLimit The lower limit of the keys for the subtree (inclusive).
+	 * @param upperLimit The upper limit of the keys for the subtree (inclusive).
+	 *
+	 * @return A new BPlusTree instance with the same order representing the
+	 * 		   subtree.
+	 *
+	 * @throws IllegalArgumentException If the lowerLimit or upperLimit is null,
+	 *  								or if the lowerLimit is greater than the
+	 *  								upperLimit.
+	 */
+	public BPlusTree<K, V> subTree(K lowerLimit, K upperLimit) {
+		if (lowerLimit == null || upperLimit == null ||
+				comparator.compare(lowerLimit, upperLimit) > 0) {
+			throw new IllegalArgumentException("Illegal Argument");
+		}
+		BPlusTree<K, V> answer =
+				new BPlusTree<K, V>(comparator, maxEntries, order);
+		if (isEmpty()) {
+			return answer;
+		}
+		ArrayList<Object> keys = new ArrayList<Object>();
+		ArrayList<Object> values = new ArrayList<Object>();
+		Leaf leaf = findLeaf(lowerLimit);
+		int index = search(leaf, lowerLimit);
+		index = index >= 0 ? index : -index - 1;
+		collect:
+		for (; leaf != null; leaf = leaf.next, index = 0) {
+			for (; index < leaf.count; index++) {
+				if (comparator.compare(key(leaf, index), upperLimit) > 0) {
+					break collect;
+				}
+				keys.add(leaf.keys[index]);
+				values.add(leaf.values[index]);
+			}
+		}
+		answer.build(keys.toArray(), values.toArray(), keys.size());
+		return answer;
+	}
+
+	/**
+	 * Replaces the contents of an empty tree with sorted entries, filling the
+	 * leaves evenly and then each level of inner nodes above them.
+	 *
+	 * @param keys   The keys in ascending order.
+	 * @param values The values matching the keys.
+	 * @param count  The number of entries to be used.
+	 */
+	private void build(Object[] keys, Object[] values, int count) {
+		if (count == 0) {
+			return;
+		}
+		int nodes = (count + order - 1) / order;
+		Node[] level = new Node[nodes];
+		Object[] lowest = new Object[nodes];
+		Leaf previous = null;
+		for (int i = 0, from = 0; i < nodes; i++) {
+			int to = (int) ((long) count * (i + 1) / nodes);
+			Leaf leaf = new Leaf(order);
+			leaf.count = to - from;
+			System.arraycopy(keys, from, leaf.keys, 0, leaf.count);
+			System.arraycopy(values, from, leaf.values, 0, leaf.count);
+			leaf.prev = previous;
+			if (previous != null) {
+				previous.next = leaf;
+			}
+			previous = leaf;
+			level[i] = leaf;
+			lowest[i] = keys[from];
+			from = to;
+		}
+		int levels = 0;
+		while (nodes > 1) {
+			int parents = (nodes + order - 1) / order;
+			Node[] above = new Node[parents];
+			Object[] aboveLowest = new Object[parents];
+			for (int i = 0, from = 0; i < parents; i++) {
+				int to = (int) ((long) nodes * (i + 1) / parents);
+				Inner inner = new Inner(order);
+				inner.count = to - from - 1;
+				System.arraycopy(level, from, inner.children, 0, to - from);
+				System.arraycopy(lowest, from + 1, inner.keys, 0, inner.count);
+				above[i] = inner;
+				aboveLowest[i] = lowest[from];
+				from = to;
+			}
+			level = above;
+			lowest = aboveLowest;
+			nodes = parents;
+			levels++;
+		}
+		root = level[0];
+		depth = levels;
+		treeSize = count;
+		modCount++;
+	}
+
+	/**
+	 * Creates and returns a TreeSet containing the values held by the leaves
+	 * of the tree. A B+-tree keeps every entry in its leaves, so these are the
+	 * values of all the entries.
+	 *
+	 * @return A TreeSet with the values held by the leaves of the tree.
+	 */
+	public TreeSet<V> getLeavesValues() {
+		TreeSet<V> answer = new TreeSet<V>();
+		if (isEmpty()) {
+			return answer;
+		}
+		for (Leaf leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+			for (int i = 0; i < leaf.count; i++) {
+				answer.add(value(leaf, i));
+			}
+		}
+		return answer;
+	}
+
+	/**
+	 * Overriding the toString method for the tree.
+	 */
+	@Override
+	public String toString() {
+		if (isEmpty()) {
+			return "EMPTY TREE";
+		}
+		StringBuilder answer = new StringBuilder();
+		for (Leaf leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+			for (int i = 0; i < leaf.count; i++) {
+				answer.append('{').append(leaf.keys[i]).append(':')
+						.append(leaf.values[i]).append('}');
+			}
+		}
+		return answer.toString();
+	}
+
+	/**
+	 * Determines whether the tree is empty or not.
+	 *
+	 * @return True if the tree has no entries. False otherwise.
+	 */
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	/**
+	 * Returns the number of entries within the tree.
+	 *
+	 * @return Number of entries in the tree.
+	 */
+	public int size() {
+		return treeSize;
+	}
+
+	/**
+	 * Returns the current number of entries within the tree.
+	 *
+	 * @return Current number of entries within the tree.
+	 */
+	public int getTreeSize() {
+		return treeSize;
+	}
+
+	/**
+	 * Returns the height of the tree, counting the level of leaves.
+	 *
+	 * @return Height of the tree. 0 if the tree is empty.
+	 */
+	public int getHeight() {
+		return isEmpty() ? 0 : depth + 1;
+	}
+
+	/**
+	 * Returns the order of the tree.
+	 *
+	 * @return The most children of an inner node and the most entries of a
+	 * 		   leaf.
+	 */
+	public int getOrder() {
+		return order;
+	}
+
+	/**
+	 * Determines whether the tree is full or not.
+	 *
+	 * @return True if treeSize equals maxEntries. False otherwise.
+	 */
+	public boolean isFull() {
+		return treeSize == maxEntries;
+	}
+}
@@ -1,38 +1,150 @@
 package implementation;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Implementation for a non-selfbalancing Binary Search Tree.
+ * Implementation for a Binary Search Tree. The tree is non-selfbalancing by
+ * default and can optionally be constructed as a self-balancing (AVL) tree so
+ * its height stays logarithmic even when keys are inserted in sorted order.
+ * Every operation is iterative, so even a degenerate tree never grows the 
+ * call stack.
  * 
  * @author King Bass
  *
  * @param <K> The data type of the key of each node of the tree.
  * @param <V> The data type of the data stored within each node of the tree.
  */
-public class BinarySearchTree<K, V> {
+public class BinarySearchTree<K, V> implements Iterable<KeyValuePair<K, V>> {
 	
 	/**
-	 * A node within the Binary Search Tree. Each node has a left child and a 
-	 * right child. (Children can be null).
+	 * A node within the Binary Search Tree. Each node has a left child, a 
+	 * right child and a parent. (Children and the parent can be null).
 	 * @author King Bass
 	 *
 	 */
 	private class Node {
 		private K key;
 		private V value;
-		private Node left, right;
+		private Node left, right, parent;
+		private int height, size, leaves;
 
 		private Node(K key, V value) {
 			this.key = key;
 			this.value = value;
+			this.height = 1;
+			this.size = 1;
+			this.leaves = 1;
 		}
 	}
 
+	/**
+	 * The heap taken by one Node on a 64-bit JVM with compressed references:
+	 * a 12 byte header, six references (key, value, left, right, parent and 
+	 * the enclosing tree) and three ints, exactly 48 bytes. See 
+	 * ArrayBinarySearchTree.bytesPerEntry() for the array-backed layout.
+	 */
+	public static final int NODE_BYTES_PER_ENTRY = 48;
+	
+	/**
+	 * The subtree size below which a parallel traversal stops splitting and 
+	 * walks the subtree on one thread.
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 11;
+	
+	/**
+	 * The first 4 bytes of the binary output of writeTo.
+	 */
+	private static final int STREAM_MAGIC = 0x42535453;
+	
+	/**
+	 * The deadline of a node that never expires.
+	 */
+	private static final long NO_DEADLINE = Long.MAX_VALUE;
+	
+	/**
+	 * The largest number of slots of the lookup cache.
+	 */
+	private static final int MAX_LOOKUP_CACHE_SIZE = 1 << 30;
+	
+	/**
+	 * The default clock of time-to-lives.
+	 */
+	private static final LongSupplier SYSTEM_CLOCK = new LongSupplier() {
+		@Override
+		public long getAsLong() {
+			return System.nanoTime();
+		}
+	};
+
 	private Node root;
-	private int treeSize, maxEntries;
+	private int treeSize, maxEntries, modCount;
 	private Comparator<K> comparator;
+	private boolean selfBalancing;
+	private TreeMetricsListener metrics;
+	private CountingComparator counter;
+	private int rotations;
+	private boolean lookupHooks;
+	private EvictionPolicy evictionPolicy = EvictionPolicy.NONE;
+	private AccessTracker<Node> tracker;
+	private Callback<K, V> evictionListener;
+	private long hits, misses, evictions;
+	private DeadlineIndex<Node> deadlines;
+	private LongSupplier clock = SYSTEM_CLOCK;
+	private Callback<K, V> expiryListener;
+	private Object[] lookupCache;
+	private long lookupCacheHits, lookupCacheMisses;
+	
+	/**
+	 * What add does when the BST is full and the key is new.
+	 */
+	public enum EvictionPolicy {
+		/**
+		 * Nothing is evicted and add throws TreeIsFullException.
+		 */
+		NONE,
+		/**
+		 * The node with the smallest key is evicted.
+		 */
+		MIN_KEY,
+		/**
+		 * The node with the largest key is evicted.
+		 */
+		MAX_KEY,
+		/**
+		 * The least recently used node is evicted. A node is used when it is
+		 * added, updated or returned by find, get or containsKey.
+		 */
+		LRU,
+		/**
+		 * The least frequently used node is evicted, the least recently used
+		 * of those on a tie. Uses are counted as for LRU.
+		 */
+		LFU
+	}
 	
 	/**
 	 * Constructor for the BST that assigns the comparator object and ensures
@@ -47,405 +159,3785 @@ public class BinarySearchTree<K, V> {
 	 */
 	public BinarySearchTree(Comparator<K> comparator, int maxEntries) 
 			throws IllegalArgumentException {
+		this(comparator, maxEntries, false);
+	}
+	
+	/**
+	 * Constructor for the BST that assigns the comparator object, ensures
+	 * valid instance variables and chooses whether the tree rebalances itself
+	 * (AVL) after every add and delete.
+	 * 
+	 * @param comparator    The comparator that will compare key's of each node.
+	 * @param maxEntries    The maximum number of nodes that will be allowed in
+	 * 						the BST.
+	 * @param selfBalancing True if the BST should keep its height logarithmic
+	 * 						by rebalancing (AVL). False for a plain BST.
+	 * 
+	 * @throws IllegalArgumentException If the comparator object is null or 
+	 * 									maxEntries < 1.
+	 */
+	public BinarySearchTree(Comparator<K> comparator, int maxEntries, 
+			boolean selfBalancing) throws IllegalArgumentException {
 		if (comparator == null || maxEntries < 1) {
 			throw new IllegalArgumentException("Illegal Arguments");
 		} else {
 			this.comparator = comparator;
 			this.maxEntries = maxEntries;
+			this.selfBalancing = selfBalancing;
 		}
 	}
 	
 	/**
-	 * Adds a node into the BST in the correct position.
+	 * Creates a self-balancing BST from pairs that are already sorted by key
+	 * in linear time. The pairs become a perfectly balanced tree directly 
+	 * instead of being added one at a time. If a key appears more than once,
+	 * the last pair with that key wins, as it would with repeated add calls.
 	 * 
-	 * @param key   The key of the node to be stored.
-	 * @param value The value of the node to be stored.
+	 * @param comparator  The comparator that will compare key's of each node.
+	 * @param maxEntries  The maximum number of nodes that will be allowed in 
+	 * 					  the BST.
+	 * @param sortedPairs The pairs in ascending key order.
 	 * 
-	 * @return The updated BST.
+	 * @return A new BinarySearchTree holding the pairs.
 	 * 
-	 * @throws TreeIsFullException If the treeIsFull and another node cannot be 
-	 * 							   added.
+	 * @throws TreeIsFullException      If the pairs hold more than maxEntries
+	 * 									distinct keys. No tree is created.
+	 * @throws IllegalArgumentException If an argument is invalid or the pairs
+	 * 									are not sorted.
 	 */
-	public BinarySearchTree<K, V> add(K key, V value) throws TreeIsFullException {
-		if (isEmpty()) {
-			root = new Node(key, value);
-			treeSize++;
-			return this;
-		} else if (isFull()) {
-			throw new TreeIsFullException("Tree is already full");
-		} else {
-			return this.addAux(key, value, root);
+	public static <K, V> BinarySearchTree<K, V> bulkLoad(
+			Comparator<K> comparator, int maxEntries, 
+			KeyValuePair<K, V>[] sortedPairs) throws TreeIsFullException {
+		if (sortedPairs == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
 		}
+		return bulkLoad(comparator, maxEntries, Arrays.asList(sortedPairs));
 	}
 	
 	/**
-	 * The recursive algorithm behind inserting the node into the correct place
-	 * by reassigning parents children. Method accounts for all insertion 
-	 * location cases.
+	 * Creates a self-balancing BST from pairs that are already sorted by key
+	 * in linear time. If a key appears more than once, the last pair with 
+	 * that key wins.
+	 * 
+	 * @param comparator  The comparator that will compare key's of each node.
+	 * @param maxEntries  The maximum number of nodes that will be allowed in 
+	 * 					  the BST.
+	 * @param sortedPairs The pairs in ascending key order.
+	 * 
+	 * @return A new BinarySearchTree holding the pairs.
 	 * 
-	 * @param key	  The key of the node to be stored.
-	 * @param value	  The value of the node to be stored.
-	 * @param rootAux The node that will be processed and compared.
-	 * @return
+	 * @throws TreeIsFullException      If the pairs hold more than maxEntries
+	 * 									distinct keys. No tree is created.
+	 * @throws IllegalArgumentException If an argument is invalid or the pairs
+	 * 									are not sorted.
 	 */
-	private BinarySearchTree<K, V> addAux(K key, V value, Node rootAux) {
-		
-		int comparison = comparator.compare(key,rootAux.key);
-		
-		if (comparison == 0) {
-			rootAux.value = value;
-			return this;
-		} else if (comparison < 0) {
-			if (rootAux.left == null) {
-				rootAux.left = new Node(key, value);
-				treeSize++;
-				return this;
-			} else {
-				return addAux(key, value, rootAux.left);
-			}
-		} else {
-			if (rootAux.right == null) {
-				rootAux.right = new Node(key, value);
-				treeSize++;
-				return this;
-			} else {
-				return addAux(key, value, rootAux.right);
-			}
+	public static <K, V> BinarySearchTree<K, V> bulkLoad(
+			Comparator<K> comparator, int maxEntries, 
+			List<KeyValuePair<K, V>> sortedPairs) throws TreeIsFullException {
+		if (sortedPairs == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
 		}
+		return bulkLoadAux(comparator, maxEntries, sortedPairs.iterator());
 	}
 	
 	/**
-	 * Overriding the toString method for the bst.
+	 * Creates a self-balancing BST from a stream of pairs that are already 
+	 * sorted by key in linear time. The stream is consumed in encounter 
+	 * order. If a key appears more than once, the last pair with that key 
+	 * wins.
+	 * 
+	 * @param comparator  The comparator that will compare key's of each node.
+	 * @param maxEntries  The maximum number of nodes that will be allowed in 
+	 * 					  the BST.
+	 * @param sortedPairs The pairs in ascending key order.
+	 * 
+	 * @return A new BinarySearchTree holding the pairs.
+	 * 
+	 * @throws TreeIsFullException      If the pairs hold more than maxEntries
+	 * 									distinct keys. No tree is created.
+	 * @throws IllegalArgumentException If an argument is invalid or the pairs
+	 * 									are not sorted.
 	 */
-	@Override
-	public String toString() {
-		return toStringAux(root);
+	public static <K, V> BinarySearchTree<K, V> bulkLoad(
+			Comparator<K> comparator, int maxEntries, 
+			Stream<KeyValuePair<K, V>> sortedPairs) throws TreeIsFullException {
+		if (sortedPairs == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		return bulkLoadAux(comparator, maxEntries, sortedPairs.iterator());
 	}
 	
 	/**
-	 * Recursive processing of the BST to return the correct String. Utilizes 
-	 * an inorder traversal to guarentee keys are displayed in ascending order.
+	 * Creates a self-balancing BST from pairs in any order. The pairs are 
+	 * sorted first (in parallel when there are many of them) with a stable
+	 * sort, so if a key appears more than once the pair that came last still
+	 * wins. Costs O(n log n) for the sort and O(n) for building the tree.
+	 * 
+	 * @param comparator The comparator that will compare key's of each node.
+	 * @param maxEntries The maximum number of nodes that will be allowed in 
+	 * 					 the BST.
+	 * @param pairs      The pairs in any order.
 	 * 
-	 * @param rootAux The node to be processed.
+	 * @return A new BinarySearchTree holding the pairs.
 	 * 
-	 * @return The BST as a String.
+	 * @throws TreeIsFullException      If the pairs hold more than maxEntries
+	 * 									distinct keys. No tree is created.
+	 * @throws IllegalArgumentException If an argument is invalid.
 	 */
-	private String toStringAux(Node rootAux) {
-		if (isEmpty()) {
-			return "EMPTY TREE";
-		} else if (rootAux == null) {
-			return "";
-		} else {
-			return toStringAux(rootAux.left) + "{" + rootAux.key + ":" + 
-					rootAux.value + "}" + toStringAux(rootAux.right);
+	public static <K, V> BinarySearchTree<K, V> bulkLoadUnsorted(
+			Comparator<K> comparator, int maxEntries, 
+			Collection<KeyValuePair<K, V>> pairs) throws TreeIsFullException {
+		if (comparator == null || pairs == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
 		}
+		return bulkLoad(comparator, maxEntries, sortByKey(comparator, pairs));
 	}
 	
 	/**
-	 * Determines whether the tree is empty or not.
+	 * Copies pairs into an array and sorts it by key with a stable, parallel
+	 * sort, so pairs with equal keys keep their relative order.
 	 * 
-	 * @return True if BST root is null. False otherwise.
+	 * @param comparator The comparator that will compare the keys.
+	 * @param pairs      The pairs to be sorted.
+	 * 
+	 * @return A new array holding the pairs in ascending key order.
 	 */
-	public boolean isEmpty() {
-		return root == null;
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static <K, V> KeyValuePair<K, V>[] sortByKey(
+			final Comparator<K> comparator, 
+			Collection<KeyValuePair<K, V>> pairs) {
+		KeyValuePair<K, V>[] sorted = pairs.toArray(new KeyValuePair[0]);
+		Arrays.parallelSort(sorted, new Comparator<KeyValuePair<K, V>>() {
+			@Override
+			public int compare(KeyValuePair<K, V> pair1, 
+					KeyValuePair<K, V> pair2) {
+				return comparator.compare(pair1.getKey(), pair2.getKey());
+			}
+		});
+		return sorted;
 	}
 	
 	/**
-	 * Returns the number of nodes within the BST.
+	 * Collects sorted pairs, checking their order and dropping all but the 
+	 * last pair of each key, and builds a balanced BST from them only if they
+	 * fit within maxEntries.
 	 * 
-	 * @return Number of nodes in BST.
+	 * @param comparator  The comparator that will compare key's of each node.
+	 * @param maxEntries  The maximum number of nodes allowed in the BST.
+	 * @param sortedPairs The pairs in ascending key order.
+	 * 
+	 * @return A new BinarySearchTree holding the pairs.
+	 * 
+	 * @throws TreeIsFullException      If the pairs hold more than maxEntries
+	 * 									distinct keys.
+	 * @throws IllegalArgumentException If the pairs are not sorted.
 	 */
-	public int size() {
-		return treeSize;
+	private static <K, V> BinarySearchTree<K, V> bulkLoadAux(
+			Comparator<K> comparator, int maxEntries, 
+			Iterator<KeyValuePair<K, V>> sortedPairs) throws TreeIsFullException {
+		BinarySearchTree<K, V> answer = 
+				new BinarySearchTree<K, V>(comparator, maxEntries, true);
+		ArrayList<K> keys = new ArrayList<K>();
+		ArrayList<V> values = new ArrayList<V>();
+		while (sortedPairs.hasNext()) {
+			KeyValuePair<K, V> pair = sortedPairs.next();
+			int last = keys.size() - 1;
+			int comparison = last < 0 ? 1 : 
+					comparator.compare(pair.getKey(), keys.get(last));
+			if (comparison < 0) {
+				throw new IllegalArgumentException("Pairs are not sorted");
+			} else if (comparison == 0) {
+				values.set(last, pair.getValue());
+			} else if (keys.size() == maxEntries) {
+				throw new TreeIsFullException("Tree is already full");
+			} else {
+				keys.add(pair.getKey());
+				values.add(pair.getValue());
+			}
+		}
+		answer.root = answer.buildBalanced(keys, values, 0, keys.size(), null);
+		answer.treeSize = keys.size();
+		return answer;
 	}
-
+	
 	/**
-	 * Determines whether the BST is full or not.
+	 * Adds a node into the BST in the correct position. Adding a key that is 
+	 * already in the BST replaces its value and drops any time-to-live it had.
 	 * 
-	 * @return True if treeSize equals maxEntries. False otherwise.
+	 * @param key   The key of the node to be stored.
+	 * @param value The value of the node to be stored.
+	 * 
+	 * @return The updated BST.
+	 * 
+	 * @throws TreeIsFullException If the treeIsFull, the key is not already in
+	 * 							   the BST and the eviction policy is NONE.
 	 */
-	public boolean isFull() {
-		return treeSize == maxEntries;
+	public BinarySearchTree<K, V> add(K key, V value) throws TreeIsFullException {
+		addNode(key, value, NO_DEADLINE);
+		return this;
 	}
-
+	
 	/**
-	 * Locates and returns the minimum node within the BST with respect to the 
-	 * nodes' keys.
+	 * Adds a node into the BST that expires after a time-to-live. Once 
+	 * expired, the node is removed by the first find, get or containsKey of 
+	 * its key, by sweepExpired, or by an add that finds the BST full; until 
+	 * then it still counts towards size and shows up in traversals. Adding 
+	 * the key again replaces the time-to-live.
 	 * 
-	 * @return Minimum KeyValuePair.
+	 * @param key        The key of the node to be stored.
+	 * @param value      The value of the node to be stored.
+	 * @param timeToLive How long the node lives, from now on the clock of the
+	 * 					 BST.
+	 * @param unit       The unit of timeToLive.
 	 * 
-	 * @throws TreeIsEmptyException If the Tree is empty.
+	 * @return The updated BST.
+	 * 
+	 * @throws TreeIsFullException      If the treeIsFull, no node has expired,
+	 * 									the key is not already in the BST and 
+	 * 									the eviction policy is NONE.
+	 * @throws IllegalArgumentException If unit is null or timeToLive < 0.
 	 */
-	public KeyValuePair<K, V> getMinimumKeyValue() throws TreeIsEmptyException {
-			if (isEmpty()) {
-				throw new TreeIsEmptyException("Tree is empty");
-			}
-			return minKeyValueAux(root);
+	public BinarySearchTree<K, V> add(K key, V value, long timeToLive, 
+			TimeUnit unit) throws TreeIsFullException {
+		if (unit == null || timeToLive < 0) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		long now = clock.getAsLong();
+		long deadline = now + unit.toNanos(timeToLive);
+		addNode(key, value, deadline < now ? NO_DEADLINE : deadline);
+		return this;
 	}
 	
 	/**
-	 * Recursive processing of the BST to fulfill requirements of the 
-	 * getMinimumKeyValue method.
+	 * Adds a node, reporting the add to the metrics listener if one is 
+	 * installed.
 	 * 
-	 * @param rootAux The node to be processed.
+	 * @param key      The key of the node to be stored.
+	 * @param value    The value of the node to be stored.
+	 * @param deadline The time at which the node expires, or NO_DEADLINE.
 	 * 
-	 * @return The Minimum KeyValuePair with respect to the nodes' keys.
+	 * @throws TreeIsFullException If the treeIsFull, no node has expired, the
+	 * 							   key is not already in the BST and the 
+	 * 							   eviction policy is NONE.
 	 */
-	private KeyValuePair<K, V> minKeyValueAux(Node rootAux) {
-		if (rootAux.left == null) {
-			KeyValuePair<K, V> answer = 
-					new KeyValuePair<K, V>(rootAux.key, rootAux.value);
-			return answer;
-		} else {
-			return minKeyValueAux(rootAux.left);
+	private void addNode(K key, V value, long deadline) 
+			throws TreeIsFullException {
+		if (metrics == null) {
+			addChecked(key, value, deadline);
+			return;
+		}
+		long start = startOperation();
+		try {
+			addChecked(key, value, deadline);
+		} finally {
+			finishOperation(TreeMetricsListener.Operation.ADD, start);
 		}
 	}
-
+	
 	/**
-	 * Locates and returns the maximum node within the BST with respect to the 
-	 * nodes' keys.
+	 * Adds a node, making room for it first if the BST is full, by removing an
+	 * expired node or else evicting one under the eviction policy; the body 
+	 * of add without its instrumentation.
 	 * 
-	 * @return Maximum KeyValuePair.
+	 * @param key      The key of the node to be stored.
+	 * @param value    The value of the node to be stored.
+	 * @param deadline The time at which the node expires, or NO_DEADLINE.
 	 * 
-	 * @throws TreeIsEmptyException If the Tree is empty.
+	 * @throws TreeIsFullException If the treeIsFull, no node has expired, the
+	 * 							   key is not already in the BST and the 
+	 * 							   eviction policy is NONE.
 	 */
-	public KeyValuePair<K, V> getMaximumKeyValue() throws TreeIsEmptyException {
+	private void addChecked(K key, V value, long deadline) 
+			throws TreeIsFullException {
 		if (isEmpty()) {
-			throw new TreeIsEmptyException("Tree is empty");
+			root = createNode(key, value);
+			setDeadline(root, deadline);
+			treeSize++;
+			modCount++;
+		} else if (!addAux(key, value, deadline)) {
+			if (deadlines != null && sweepExpired(1) > 0) {
+				addChecked(key, value, deadline);
+			} else if (evictionPolicy == EvictionPolicy.NONE) {
+				throw new TreeIsFullException("Tree is already full");
+			} else {
+				Node victim = evict();
+				addChecked(key, value, deadline);
+				if (evictionListener != null) {
+					evictionListener.process(victim.key, victim.value);
+				}
+			}
 		}
-		return maxKeyValueAux(root);
 	}
 	
 	/**
-	 * Recursive processing of the BST to fulfill requirements of the 
-	 * getMaximumKeyValue method.
+	 * The iterative algorithm behind inserting the node into the correct place
+	 * by reassigning parents children. Method accounts for all insertion 
+	 * location cases and rebalances every ancestor of the new node. An 
+	 * existing key is updated even when the BST is full.
 	 * 
-	 * @param rootAux The node to be processed.
+	 * @param key	   The key of the node to be stored.
+	 * @param value	   The value of the node to be stored.
+	 * @param deadline The time at which the node expires, or NO_DEADLINE.
 	 * 
-	 * @return The Maximum KeyValuePair with respect to the nodes' keys.
+	 * @return False if the key is new and the BST is full, in which case 
+	 * 		   nothing is changed. True otherwise.
 	 */
-	private KeyValuePair<K, V> maxKeyValueAux(Node rootAux) {
-		if (rootAux.right == null) {
-			KeyValuePair<K, V> answer = 
-					new KeyValuePair<K, V>(rootAux.key, rootAux.value);
-			return answer;
+	private boolean addAux(K key, V value, long deadline) {
+		Node current = root, parent = null;
+		int comparison = 0;
+		while (current != null) {
+			comparison = comparator.compare(key, current.key);
+			if (comparison == 0) {
+				current.value = value;
+				setDeadline(current, deadline);
+				if (tracker != null) {
+					tracker.accessed(current);
+				}
+				return true;
+			}
+			parent = current;
+			current = comparison < 0 ? current.left : current.right;
+		}
+		if (isFull()) {
+			return false;
+		}
+		Node node = createNode(key, value);
+		setDeadline(node, deadline);
+		node.parent = parent;
+		if (comparison < 0) {
+			parent.left = node;
 		} else {
-			return maxKeyValueAux(rootAux.right);
+			parent.right = node;
 		}
+		treeSize++;
+		modCount++;
+		rebalanceUpwards(parent);
+		return true;
 	}
-
+	
 	/**
-	 * Locates a node within the tree based upon the parameters key and returns
-	 * the KeyValuePair.
+	 * Sets or drops the deadline of a node in the deadline index, creating 
+	 * the index on the first deadline.
 	 * 
-	 * @param key The key of the node you'd like to find.
-	 * 
-	 * @return The node as a KeyValuePair.
+	 * @param node     The node.
+	 * @param deadline The time at which the node expires, or NO_DEADLINE to 
+	 * 				   drop its deadline.
 	 */
-	public KeyValuePair<K, V> find(K key) {
-		return findAux(key, root);
+	private void setDeadline(Node node, long deadline) {
+		if (deadline != NO_DEADLINE) {
+			if (deadlines == null) {
+				deadlines = new DeadlineIndex<Node>();
+				updateLookupHooks();
+			}
+			deadlines.set(node, deadline);
+		} else if (deadlines != null) {
+			deadlines.remove(node);
+		}
 	}
 	
 	/**
-	 * Recursively fulfills the requirements of the find method.
+	 * Removes every expired node, up to a limit, earliest deadline first. The
+	 * expired nodes are found through the deadline index without walking the
+	 * BST, so a call costs O(log n) per node it removes, however many nodes 
+	 * have not expired. Calling it with a small limit on every tick of a 
+	 * timer or request loop spreads expiry into bounded increments; like 
+	 * every other method, it must be called from the thread that owns the 
+	 * BST.
 	 * 
-	 * @param key     The key of the node you'd like to find.
-	 * @param rootAux The node to be processed.
+	 * @param limit The maximum number of nodes to be removed.
 	 * 
-	 * @return The node as a KeyValuePair.
+	 * @return The number of nodes removed.
+	 * 
+	 * @throws IllegalArgumentException If limit < 0.
 	 */
-	private KeyValuePair<K, V> findAux(K key, Node rootAux) {
-		if (rootAux == null) {
-			return null;
+	public int sweepExpired(int limit) {
+		if (limit < 0) {
+			throw new IllegalArgumentException("Illegal Arguments");
 		}
-		int comparison = comparator.compare(key, rootAux.key);
-		if (comparison == 0) {
-			KeyValuePair<K, V> answer = 
-					new KeyValuePair<>(rootAux.key, rootAux.value);
-			return answer;
-		} else if (comparison < 0) {
-			return findAux(key, rootAux.left);
-		} else {
-			return findAux(key, rootAux.right);
+		if (deadlines == null) {
+			return 0;
 		}
+		long now = clock.getAsLong();
+		int removed = 0;
+		Node node;
+		while (removed < limit && (node = deadlines.firstExpired(now)) != null) {
+			expire(node);
+			removed++;
+		}
+		return removed;
 	}
-
+	
 	/**
-	 * Deletes a node within the BST and handles all node location cases.
+	 * Removes an expired node and reports it to the expiry listener.
 	 * 
-	 * @param key The key of the node you'd like to delete.
-	 * 
-	 * @return The updated BST if the node was deleted and null if the key 
-	 * 		   key parameter is not assigned to a node within the BST.
+	 * @param node The expired node.
+	 */
+	private void expire(Node node) {
+		deleteAux(node);
+		if (expiryListener != null) {
+			expiryListener.process(node.key, node.value);
+		}
+	}
+	
+	/**
+	 * Installs a callback told about every node removed because it expired.
 	 * 
-	 * @throws TreeIsEmptyException If the BST is empty.
+	 * @param listener The callback. Null to remove the current one.
 	 */
-	public BinarySearchTree<K, V> delete(K key) throws TreeIsEmptyException {
-	    if (isEmpty()) {
-	        throw new TreeIsEmptyException("Tree is empty");
-	    }
-	    root = deleteAux(key, root);
-	    treeSize--;
-	    return this;
+	public void setExpiryListener(Callback<K, V> listener) {
+		expiryListener = listener;
 	}
-
+	
 	/**
-	 * Recursive method to fulfill the requirements of the delete method.
+	 * Replaces the clock time-to-lives are measured on, System.nanoTime by 
+	 * default. Deadlines already set are not converted.
 	 * 
-	 * @param key     The key of the node you'd like to delete.
-	 * @param rootAux The node to be processed.
+	 * @param clock Returns the current time in nanoseconds.
 	 * 
-	 * @return The updated BST if the node was deleted and null if the key 
-	 * 		   key parameter is not assigned to a node within the BST.
+	 * @throws IllegalArgumentException If the clock is null.
 	 */
-	private Node deleteAux(K key, Node rootAux) {
-	    if (rootAux == null) {
-	        return null;
-	    }
-	    int comparison = comparator.compare(key, rootAux.key);
-	    if (comparison < 0) {
-	        rootAux.left = deleteAux(key, rootAux.left);
-	    } else if (comparison > 0) {
-	        rootAux.right = deleteAux(key, rootAux.right);
-	    } else {
-	        if (rootAux.left == null) {
-	            return rootAux.right;
-	        } else if (rootAux.right == null) {
-	            return rootAux.left;
-	        } else {
-	            Node minNode = getMinimumNode(rootAux.right);
-	            rootAux.key = minNode.key;
-	            rootAux.value = minNode.value;
-	            rootAux.right = deleteAux(minNode.key, rootAux.right);
-	        }
-	    }
-	    return rootAux;
+	public void setClock(LongSupplier clock) {
+		if (clock == null) {
+			throw new IllegalArgumentException("clock is null.");
+		}
+		this.clock = clock;
 	}
-
+	
 	/**
-	 * Utilized in the delete method. Returns the minimum node with respect to 
-	 * the nodes' keys.
+	 * Creates a node for a new key and starts tracking its use if the 
+	 * eviction policy needs it.
 	 * 
-	 * @param node The node you'd like to begin traversal at.
+	 * @param key   The key of the node.
+	 * @param value The value of the node.
 	 * 
-	 * @return The minimum node below the node parameter with respect to the 
-	 * 		   nodes' keys.
+	 * @return The new node, not yet linked into the BST.
 	 */
-	private Node getMinimumNode(Node node) {
-		    if (node.left == null) {
-		        return node;
-		    }
-		    return getMinimumNode(node.left);
+	private Node createNode(K key, V value) {
+		Node node = new Node(key, value);
+		if (tracker != null) {
+			tracker.added(node);
+		}
+		return node;
 	}
 	
-
 	/**
-	 * Conducts an inorder traversal of the BST and processes each node upon 
-	 * arrival.
+	 * Removes the node chosen by the eviction policy. The BST must not be 
+	 * empty.
 	 * 
-	 * @param callback The processing to be done to each node while traversing.
+	 * @return The evicted node.
 	 */
-	public void processInorder(Callback<K, V> callback) {
-		if (callback == null) {
-			throw new IllegalArgumentException("callback is null.");
+	private Node evict() {
+		Node victim;
+		if (evictionPolicy == EvictionPolicy.MIN_KEY) {
+			victim = getMinimumNode(root);
+		} else if (evictionPolicy == EvictionPolicy.MAX_KEY) {
+			victim = getMaximumNode(root);
+		} else {
+			victim = tracker.victim();
 		}
-		processInorderAux(callback, root);
+		deleteAux(victim);
+		evictions++;
+		return victim;
 	}
 	
 	/**
-	 * Recursive method to fulfill the requirements of the processInOrder 
-	 * method.
+	 * Chooses what add does when the BST is full and the key is new: throw 
+	 * TreeIsFullException (NONE, the default) or evict a node chosen by the 
+	 * policy to make room, within the same call. Switching to LRU or LFU 
+	 * starts tracking every node as used once, in key order. While a policy 
+	 * other than NONE is set, find, get and containsKey count hits and misses.
 	 * 
-	 * @param callback The processing to be done to each node while traversing.
-	 * @param rootAux  The node to be processed.
+	 * Set operations (split, join, union, intersection and difference) 
+	 * restart the access history of LRU and LFU as if the policy were set 
+	 * again. They never evict: join and union still throw TreeIsFullException
+	 * if the result would not fit. addAll adds its pairs one at a time, 
+	 * evicting as needed, instead of failing as a whole.
+	 * 
+	 * @param policy The eviction policy.
+	 * 
+	 * @throws IllegalArgumentException If the policy is null.
 	 */
-	private void processInorderAux(Callback<K, V> callback, Node rootAux) {
-		if (rootAux == null) {
-			return;
+	public void setEvictionPolicy(EvictionPolicy policy) {
+		if (policy == null) {
+			throw new IllegalArgumentException("policy is null.");
 		}
-		processInorderAux(callback, rootAux.left);
-		callback.process(rootAux.key, rootAux.value);
-		processInorderAux(callback, rootAux.right);
+		evictionPolicy = policy;
+		tracker = policy == EvictionPolicy.LRU || policy == EvictionPolicy.LFU ?
+				new AccessTracker<Node>(policy == EvictionPolicy.LFU) : null;
+		retrack();
+		updateLookupHooks();
 	}
-
+	
 	/**
-	 * Creates and returns a subtree based on the original tree, containing 
-	 * nodes whose keys fall within the specified lower and upper limits.
-	 *
-	 * @param lowerLimit The lower limit of the keys for the subtree (inclusive).
-	 * @param upperLimit The upper limit of the keys for the subtree (inclusive).
+	 * Returns the eviction policy.
 	 * 
-	 * @return A new BinarySearchTree instance representing the subtree.
+	 * @return The policy applied when add finds the BST full.
+	 */
+	public EvictionPolicy getEvictionPolicy() {
+		return evictionPolicy;
+	}
+	
+	/**
+	 * Installs a callback told about every node evicted by add, once the add
+	 * that evicted it has completed.
 	 * 
-	 * @throws IllegalArgumentException If the lowerLimit or upperLimit is null,
-	 *  								or if the lowerLimit is greater than the
-	 *  								upperLimit.
+	 * @param listener The callback. Null to remove the current one.
 	 */
-	public BinarySearchTree<K, V> subTree(K lowerLimit, K upperLimit) {
-		if (lowerLimit == null || upperLimit == null || 
-				comparator.compare(lowerLimit, upperLimit) > 0) {
-			throw new IllegalArgumentException("Illegal Argument");
-		}
-		BinarySearchTree<K, V> answer = new BinarySearchTree<K, V>(comparator, maxEntries);
-		answer.subTreeAux(lowerLimit, upperLimit, root);
-		return answer;
+	public void setEvictionListener(Callback<K, V> listener) {
+		evictionListener = listener;
 	}
 	
 	/**
-	 * Recursive auxiliary method for creating a subtree based on the original tree.
-	 *
-	 * @param lowerLimit The lower limit of the keys for the subtree (inclusive).
-	 * @param upperLimit The upper limit of the keys for the subtree (inclusive).
-	 * @param rootAux The current node being processed.
-	 */
-	private void subTreeAux(K lowerLimit, K upperLimit, Node rootAux) {
-		if (rootAux != null) {
-			int comparisonUpper = comparator.compare(rootAux.key,  upperLimit);
-			int comparisonLower = comparator.compare(rootAux.key, lowerLimit);
-			if (comparisonUpper > 0) {
-				this.subTreeAux(lowerLimit, upperLimit, rootAux.left);
-			} else if (comparisonLower < 0) {
-				this.subTreeAux(lowerLimit, upperLimit, rootAux.right);
-			} else {
-				try {
-					this.add(rootAux.key, rootAux.value);
-				} catch (TreeIsFullException e) {
-					e.printStackTrace();
-				}
-				subTreeAux(lowerLimit, upperLimit, rootAux.left);
-				subTreeAux(lowerLimit, upperLimit, rootAux.right);
-			}
+	 * Returns the number of lookups (find, get and containsKey) that found 
+	 * their key while an eviction policy was set.
+	 * 
+	 * @return The number of hits.
+	 */
+	public long getHitCount() {
+		return hits;
+	}
+	
+	/**
+	 * Returns the number of lookups (find, get and containsKey) that did not 
+	 * find their key while an eviction policy was set.
+	 * 
+	 * @return The number of misses.
+	 */
+	public long getMissCount() {
+		return misses;
+	}
+	
+	/**
+	 * Returns the number of nodes evicted by add.
+	 * 
+	 * @return The number of evictions.
+	 */
+	public long getEvictionCount() {
+		return evictions;
+	}
+	
+	/**
+	 * Clears the hit, miss and eviction counts.
+	 */
+	public void resetCacheCounters() {
+		hits = misses = evictions = 0;
+	}
+	
+	/**
+	 * Restarts the access history of the eviction policy, tracking every node
+	 * as used once in key order.
+	 */
+	private void retrack() {
+		if (tracker == null) {
+			return;
+		}
+		tracker.clear();
+		for (Node node = isEmpty() ? null : getMinimumNode(root); node != null; 
+				node = successor(node)) {
+			tracker.added(node);
 		}
 	}
 	
 	/**
-	 * Creates and returns a TreeSet containing all the leaves (nodes with no 
-	 * children) of the BST.
+	 * Rebuilds the deadline index after nodes have moved between BSTs, keeping
+	 * the deadlines of the nodes that are now in this BST. A node keeps the 
+	 * deadline it had wherever it came from; a key that was in both BSTs 
+	 * keeps the deadline of the node that survived.
 	 * 
-	 * @return A TreeSet with all the leaves of the BST.
+	 * @param first  The deadline index of one BST the nodes came from. Can be
+	 * 				 null.
+	 * @param second The deadline index of the other. Can be null.
 	 */
-	public TreeSet<V> getLeavesValues() {
-		TreeSet<V> answer = new TreeSet<V>();
-		getLeavesValuesAux(answer, root);
-		return answer;
+	private void reindexDeadlines(DeadlineIndex<Node> first, 
+			DeadlineIndex<Node> second) {
+		deadlines = null;
+		copyDeadlines(first);
+		copyDeadlines(second);
+		updateLookupHooks();
 	}
 	
 	/**
-	 * Recursive auxiliary method to add values to the TreeSet from the leaves 
-	 * of the original BST.
+	 * Copies the deadlines of the nodes that are in this BST out of a deadline
+	 * index.
 	 * 
-	 * @param answer  The TreeSet being added to.
-	 * @param rootAux The node to be processed.
+	 * @param from The deadline index. Can be null.
 	 */
-	private void getLeavesValuesAux(TreeSet<V> answer, Node rootAux) {
-		if (rootAux != null) {
-			if (rootAux.left == null && rootAux.right == null) {
-				answer.add(rootAux.value);
+	private void copyDeadlines(DeadlineIndex<Node> from) {
+		if (from == null) {
+			return;
+		}
+		for (Node node : from.nodes()) {
+			if (findNode(node.key) == node) {
+				setDeadline(node, from.deadline(node));
 			}
-			getLeavesValuesAux(answer, rootAux.left);
-			getLeavesValuesAux(answer, rootAux.right);
 		}
 	}
+	
+	/**
+	 * Returns the height of a node, treating a null child as height 0.
+	 * 
+	 * @param node The node whose height is requested.
+	 * 
+	 * @return The number of levels in the subtree rooted at node.
+	 */
+	private int height(Node node) {
+		return node == null ? 0 : node.height;
+	}
+	
+	/**
+	 * Returns the number of nodes in the subtree rooted at a node, treating a 
+	 * null child as size 0.
+	 * 
+	 * @param node The node whose subtree size is requested.
+	 * 
+	 * @return The number of nodes in the subtree rooted at node.
+	 */
+	private int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+	
+	/**
+	 * Recomputes the cached height, subtree size and leaf count of a node from
+	 * those of its children.
+	 * 
+	 * @param node The node to be updated.
+	 */
+	private void update(Node node) {
+		node.height = 1 + Math.max(height(node.left), height(node.right));
+		node.size = 1 + size(node.left) + size(node.right);
+		node.leaves = node.left == null && node.right == null ? 1 : 
+				leaves(node.left) + leaves(node.right);
+	}
+	
+	/**
+	 * Returns the number of leaves in the subtree rooted at a node, treating 
+	 * a null child as having none.
+	 * 
+	 * @param node The node whose subtree's leaves are counted.
+	 * 
+	 * @return The number of leaves in the subtree rooted at node.
+	 */
+	private int leaves(Node node) {
+		return node == null ? 0 : node.leaves;
+	}
+	
+	/**
+	 * Rebalances a node and every one of its ancestors up to the root.
+	 * 
+	 * @param node The deepest node whose subtree changed. Can be null.
+	 */
+	private void rebalanceUpwards(Node node) {
+		Node top = rebalanceToTop(node);
+		if (top != null) {
+			root = top;
+		}
+	}
+	
+	/**
+	 * Rebalances a node and every one of its ancestors up to the top of the 
+	 * subtree holding it, which need not be attached to the BST.
+	 * 
+	 * @param node The deepest node whose subtree changed. Can be null.
+	 * 
+	 * @return The node now at the top of the subtree. Null if node is null.
+	 */
+	private Node rebalanceToTop(Node node) {
+		Node top = null;
+		while (node != null) {
+			top = rebalance(node);
+			node = top.parent;
+		}
+		return top;
+	}
+	
+	/**
+	 * Recomputes the height of a node from the heights of its children and, 
+	 * if the BST is self-balancing, rotates the node so that the heights of 
+	 * its children differ by at most one.
+	 * 
+	 * @param node The node to be rebalanced.
+	 * 
+	 * @return The node now occupying node's position in the BST.
+	 */
+	private Node rebalance(Node node) {
+		update(node);
+		if (!selfBalancing) {
+			return node;
+		}
+		int balance = height(node.left) - height(node.right);
+		if (balance > 1) {
+			if (height(node.left.left) < height(node.left.right)) {
+				rotateLeft(node.left);
+			}
+			return rotateRight(node);
+		} else if (balance < -1) {
+			if (height(node.right.right) < height(node.right.left)) {
+				rotateRight(node.right);
+			}
+			return rotateLeft(node);
+		}
+		return node;
+	}
+	
+	/**
+	 * Rotates a node to the right, lifting its left child into its position.
+	 * 
+	 * @param node The node to be rotated.
+	 * 
+	 * @return The node's former left child, the new root of the subtree.
+	 */
+	private Node rotateRight(Node node) {
+		Node pivot = node.left;
+		node.left = pivot.right;
+		if (pivot.right != null) {
+			pivot.right.parent = node;
+		}
+		linkChild(node.parent, node, pivot);
+		pivot.right = node;
+		node.parent = pivot;
+		update(node);
+		update(pivot);
+		rotations++;
+		return pivot;
+	}
+	
+	/**
+	 * Rotates a node to the left, lifting its right child into its position.
+	 * 
+	 * @param node The node to be rotated.
+	 * 
+	 * @return The node's former right child, the new root of the subtree.
+	 */
+	private Node rotateLeft(Node node) {
+		Node pivot = node.right;
+		node.right = pivot.left;
+		if (pivot.left != null) {
+			pivot.left.parent = node;
+		}
+		linkChild(node.parent, node, pivot);
+		pivot.left = node;
+		node.parent = pivot;
+		update(node);
+		update(pivot);
+		rotations++;
+		return pivot;
+	}
+	
+	/**
+	 * Replaces a child of a node (or the root of the BST when the parent is 
+	 * null) with another node and fixes the new child's parent reference.
+	 * 
+	 * @param parent   The parent whose child is replaced. Null for the root.
+	 * @param oldChild The child currently attached to the parent.
+	 * @param newChild The node taking oldChild's place. Can be null.
+	 */
+	private void replaceChild(Node parent, Node oldChild, Node newChild) {
+		if (parent == null) {
+			root = newChild;
+		}
+		linkChild(parent, oldChild, newChild);
+	}
+	
+	/**
+	 * Replaces a child of a node with another node and fixes the new child's 
+	 * parent reference. Unlike replaceChild, a null parent leaves the root of
+	 * the BST alone, so subtrees detached from it can be restructured too.
+	 * 
+	 * @param parent   The parent whose child is replaced. Can be null.
+	 * @param oldChild The child currently attached to the parent.
+	 * @param newChild The node taking oldChild's place. Can be null.
+	 */
+	private void linkChild(Node parent, Node oldChild, Node newChild) {
+		if (parent != null) {
+			if (parent.left == oldChild) {
+				parent.left = newChild;
+			} else {
+				parent.right = newChild;
+			}
+		}
+		if (newChild != null) {
+			newChild.parent = parent;
+		}
+	}
+	
+	/**
+	 * Overriding the toString method for the bst.
+	 */
+	@Override
+	public String toString() {
+		return toString(Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Returns the BST as a String, showing at most a number of nodes. Handy 
+	 * for logging a large BST without building a String of all of it.
+	 * 
+	 * @param limit The most nodes to be shown. Any further nodes are 
+	 * 				replaced by "...".
+	 * 
+	 * @return The first limit nodes of the BST as a String.
+	 * 
+	 * @throws IllegalArgumentException If limit < 0.
+	 */
+	public String toString(int limit) {
+		StringBuilder answer = new StringBuilder();
+		try {
+			writeTo(answer, limit);
+		} catch (IOException e) {
+			// A StringBuilder never throws.
+			throw new AssertionError(e);
+		}
+		return answer.toString();
+	}
+	
+	/**
+	 * Streams the BST, in the format of toString, to an Appendable such as a 
+	 * Writer or a StringBuilder. The nodes are written one at a time in key
+	 * order, so no String of the whole BST is ever built.
+	 * 
+	 * @param out The Appendable receiving the text.
+	 * 
+	 * @throws IOException              If the Appendable cannot be written.
+	 * @throws IllegalArgumentException If out is null.
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		writeTo(out, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Streams at most a number of nodes of the BST, in the format of toString,
+	 * to an Appendable. The nodes are written one at a time in key order.
+	 * 
+	 * @param out   The Appendable receiving the text.
+	 * @param limit The most nodes to be written. Any further nodes are 
+	 * 				replaced by "...".
+	 * 
+	 * @throws IOException              If the Appendable cannot be written.
+	 * @throws IllegalArgumentException If out is null or limit < 0.
+	 */
+	public void writeTo(Appendable out, int limit) throws IOException {
+		if (out == null || limit < 0) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		if (isEmpty()) {
+			out.append("EMPTY TREE");
+			return;
+		}
+		int written = 0;
+		for (Node node = getMinimumNode(root); node != null; 
+				node = successor(node)) {
+			if (written++ == limit) {
+				out.append("...");
+				return;
+			}
+			out.append('{').append(String.valueOf(node.key)).append(':')
+					.append(String.valueOf(node.value)).append('}');
+		}
+	}
+	
+	/**
+	 * Streams the BST to an OutputStream in a compact binary format: a magic
+	 * number and the node count, then each node in key order as its length 
+	 * in 4 bytes followed by its serialized key and value. Only a small 
+	 * buffer is used, whatever the size of the BST. The stream is neither 
+	 * flushed nor closed. readFrom loads the output back.
+	 * 
+	 * @param out             The stream receiving the bytes.
+	 * @param keySerializer   The serializer of the keys.
+	 * @param valueSerializer The serializer of the values.
+	 * 
+	 * @throws IOException              If the stream cannot be written.
+	 * @throws IllegalArgumentException If any argument is null.
+	 */
+	public void writeTo(OutputStream out, TreeSerializer<K> keySerializer, 
+			TreeSerializer<V> valueSerializer) throws IOException {
+		if (out == null || keySerializer == null || valueSerializer == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 13);
+		buffer.putInt(STREAM_MAGIC).putInt(treeSize);
+		for (Node node = isEmpty() ? null : getMinimumNode(root); node != null; 
+				node = successor(node)) {
+			int length = keySerializer.sizeOf(node.key) + 
+					valueSerializer.sizeOf(node.value);
+			if (buffer.remaining() < 4 + length) {
+				out.write(buffer.array(), 0, buffer.position());
+				buffer.clear();
+				if (buffer.capacity() < 4 + length) {
+					buffer = ByteBuffer.allocate(4 + length);
+				}
+			}
+			buffer.putInt(length);
+			keySerializer.write(node.key, buffer);
+			valueSerializer.write(node.value, buffer);
+		}
+		out.write(buffer.array(), 0, buffer.position());
+	}
+	
+	/**
+	 * Creates a self-balancing BST from the binary output of 
+	 * writeTo(OutputStream, TreeSerializer, TreeSerializer) in linear time.
+	 * 
+	 * @param in              The stream holding the bytes. It is not closed.
+	 * @param comparator      The comparator that will compare key's of each 
+	 * 						  node.
+	 * @param maxEntries      The maximum number of nodes that will be allowed
+	 * 						  in the BST.
+	 * @param keySerializer   The serializer the keys were written with.
+	 * @param valueSerializer The serializer the values were written with.
+	 * 
+	 * @return A new BinarySearchTree holding the nodes that were written.
+	 * 
+	 * @throws IOException              If the stream cannot be read or does 
+	 * 									not hold a written BST.
+	 * @throws TreeIsFullException      If the stream holds more than 
+	 * 									maxEntries nodes.
+	 * @throws IllegalArgumentException If any argument is null or 
+	 * 									maxEntries < 1.
+	 */
+	public static <K, V> BinarySearchTree<K, V> readFrom(InputStream in, 
+			Comparator<K> comparator, int maxEntries, 
+			TreeSerializer<K> keySerializer, TreeSerializer<V> valueSerializer)
+			throws IOException, TreeIsFullException {
+		if (in == null || comparator == null || maxEntries < 1 || 
+				keySerializer == null || valueSerializer == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != STREAM_MAGIC) {
+			throw new IOException("Not a tree stream");
+		}
+		int count = data.readInt();
+		if (count > maxEntries) {
+			throw new TreeIsFullException("Tree is already full");
+		}
+		List<KeyValuePair<K, V>> pairs = new ArrayList<KeyValuePair<K, V>>();
+		byte[] bytes = new byte[0];
+		for (int i = 0; i < count; i++) {
+			int length = data.readInt();
+			if (length < 0) {
+				throw new IOException("Corrupt tree stream");
+			}
+			if (bytes.length < length) {
+				bytes = new byte[length];
+			}
+			data.readFully(bytes, 0, length);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+			K key = keySerializer.read(buffer);
+			pairs.add(new KeyValuePair<K, V>(key, valueSerializer.read(buffer)));
+		}
+		return bulkLoad(comparator, maxEntries, pairs);
+	}
+	
+	/**
+	 * Determines whether the tree is empty or not.
+	 * 
+	 * @return True if BST root is null. False otherwise.
+	 */
+	public boolean isEmpty() {
+		return root == null;
+	}
+	
+	/**
+	 * Returns the number of nodes within the BST.
+	 * 
+	 * @return Number of nodes in BST.
+	 */
+	public int size() {
+		return treeSize;
+	}
+	
+	/**
+	 * Returns the height of the BST, the number of nodes on the longest path
+	 * from the root down to a leaf.
+	 * 
+	 * @return Height of the BST. 0 if the BST is empty.
+	 */
+	public int getHeight() {
+		return height(root);
+	}
+	
+	/**
+	 * Determines whether the BST is self-balancing or not.
+	 * 
+	 * @return True if the BST rebalances itself after each add and delete.
+	 */
+	public boolean isSelfBalancing() {
+		return selfBalancing;
+	}
+
+	/**
+	 * Determines whether the BST is full or not.
+	 * 
+	 * @return True if treeSize equals maxEntries. False otherwise.
+	 */
+	public boolean isFull() {
+		return treeSize == maxEntries;
+	}
+	
+	/**
+	 * Returns the maximum number of nodes allowed in the BST.
+	 * 
+	 * @return maxEntries.
+	 */
+	int getMaxEntries() {
+		return maxEntries;
+	}
+	
+	/**
+	 * Changes the maximum number of nodes allowed in the BST, without checking
+	 * it against the current size. Lets WriteAheadLog replay a log whose 
+	 * intermediate states held more nodes than the BST allows.
+	 * 
+	 * @param maxEntries The new maximum number of nodes.
+	 */
+	void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+	
+	/**
+	 * Installs a listener that is told about every add, delete and lookup 
+	 * (find, get and containsKey) along with its latency, its number of key 
+	 * comparisons and its number of rotations. While a listener is installed 
+	 * the comparator is wrapped in one that counts its calls. With no 
+	 * listener, the default, each operation pays a single null check. Batch 
+	 * operations such as addAll are not reported.
+	 * 
+	 * @param listener The listener to be installed. Null to remove the 
+	 * 				   current one.
+	 */
+	public void setMetricsListener(TreeMetricsListener listener) {
+		if (listener != null && counter == null) {
+			counter = new CountingComparator(comparator);
+			comparator = counter;
+		} else if (listener == null && counter != null) {
+			comparator = counter.delegate;
+			counter = null;
+		}
+		metrics = listener;
+		updateLookupHooks();
+	}
+	
+	/**
+	 * Records whether lookups need more than a plain search: the lookup 
+	 * cache, timing for the metrics listener, expiry of nodes with a 
+	 * deadline, or hit and miss counting for the eviction policy. Lookups 
+	 * check this single flag.
+	 */
+	private void updateLookupHooks() {
+		lookupHooks = metrics != null || deadlines != null || 
+				evictionPolicy != EvictionPolicy.NONE || lookupCache != null;
+	}
+	
+	/**
+	 * Returns the installed metrics listener.
+	 * 
+	 * @return The listener or null if metrics are disabled.
+	 */
+	public TreeMetricsListener getMetricsListener() {
+		return metrics;
+	}
+	
+	/**
+	 * Installs a new TreeStatistics as the metrics listener, replacing any
+	 * other listener, and returns it.
+	 * 
+	 * @return The statistics now recording the operations of the BST.
+	 */
+	public TreeStatistics enableMetrics() {
+		TreeStatistics statistics = new TreeStatistics(this);
+		setMetricsListener(statistics);
+		return statistics;
+	}
+	
+	/**
+	 * Clears the per-operation comparison and rotation counts and returns the
+	 * start time of an instrumented operation.
+	 * 
+	 * @return The current value of System.nanoTime.
+	 */
+	private long startOperation() {
+		counter.count = 0;
+		rotations = 0;
+		return System.nanoTime();
+	}
+	
+	/**
+	 * Reports a finished instrumented operation to the metrics listener.
+	 * 
+	 * @param operation The kind of operation.
+	 * @param start     The time returned by startOperation.
+	 */
+	private void finishOperation(TreeMetricsListener.Operation operation, 
+			long start) {
+		metrics.operationCompleted(operation, System.nanoTime() - start, 
+				counter.count, rotations);
+	}
+	
+	/**
+	 * Returns the comparator the BST was constructed with, unwrapped from the
+	 * counting comparator installed while metrics are enabled.
+	 * 
+	 * @return The comparator of the keys.
+	 */
+	private Comparator<K> keyComparator() {
+		return counter == null ? comparator : counter.delegate;
+	}
+	
+	/**
+	 * Comparator that counts its calls before delegating them, installed in 
+	 * place of the comparator of the BST while metrics are enabled.
+	 */
+	private class CountingComparator implements Comparator<K> {
+		private final Comparator<K> delegate;
+		private int count;
+		
+		private CountingComparator(Comparator<K> delegate) {
+			this.delegate = delegate;
+		}
+		
+		@Override
+		public int compare(K key1, K key2) {
+			count++;
+			return delegate.compare(key1, key2);
+		}
+	}
+	
+	/**
+	 * Counts the nodes of the BST at each depth, the root being at depth 0. 
+	 * The walk is iterative and visits every node once.
+	 * 
+	 * @return An array of getHeight() counts whose element d is the number of
+	 * 		   nodes at depth d. Empty if the BST is empty.
+	 */
+	public int[] getDepthDistribution() {
+		int[] counts = new int[getHeight()];
+		Node node = root, previous = null;
+		int depth = 0;
+		while (node != null) {
+			Node next;
+			if (previous == node.parent) {
+				counts[depth]++;
+				next = node.left != null ? node.left : 
+						node.right != null ? node.right : node.parent;
+			} else if (previous == node.left && node.right != null) {
+				next = node.right;
+			} else {
+				next = node.parent;
+			}
+			depth += next == node.parent ? -1 : 1;
+			previous = node;
+			node = next;
+		}
+		return counts;
+	}
+	
+	/**
+	 * Returns the mean depth of the nodes of the BST, the root being at depth
+	 * 0. A lookup of a present key makes on average one comparison more than 
+	 * this.
+	 * 
+	 * @return The mean depth. 0 if the BST is empty.
+	 */
+	public double getAverageDepth() {
+		int[] counts = getDepthDistribution();
+		long total = 0;
+		for (int depth = 0; depth < counts.length; depth++) {
+			total += (long) depth * counts[depth];
+		}
+		return isEmpty() ? 0 : (double) total / treeSize;
+	}
+
+	/**
+	 * Locates and returns the minimum node within the BST with respect to the 
+	 * nodes' keys.
+	 * 
+	 * @return Minimum KeyValuePair.
+	 * 
+	 * @throws TreeIsEmptyException If the Tree is empty.
+	 */
+	public KeyValuePair<K, V> getMinimumKeyValue() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		Node minNode = getMinimumNode(root);
+		return new KeyValuePair<K, V>(minNode.key, minNode.value);
+	}
+
+	/**
+	 * Locates and returns the maximum node within the BST with respect to the 
+	 * nodes' keys.
+	 * 
+	 * @return Maximum KeyValuePair.
+	 * 
+	 * @throws TreeIsEmptyException If the Tree is empty.
+	 */
+	public KeyValuePair<K, V> getMaximumKeyValue() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		Node maxNode = getMaximumNode(root);
+		return new KeyValuePair<K, V>(maxNode.key, maxNode.value);
+	}
+
+	/**
+	 * Locates a node within the tree based upon the parameters key and returns
+	 * the KeyValuePair.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return The node as a KeyValuePair.
+	 */
+	public KeyValuePair<K, V> find(K key) {
+		Node node = lookup(key);
+		if (node == null) {
+			return null;
+		}
+		return new KeyValuePair<>(node.key, node.value);
+	}
+	
+	/**
+	 * Locates a node within the tree based upon the parameters key and copies
+	 * its key and value into a caller-supplied holder. Unlike find(K), no 
+	 * object is allocated.
+	 * 
+	 * @param key    The key of the node you'd like to find.
+	 * @param holder The holder that receives the node's key and value.
+	 * 
+	 * @return True if the node was found. False otherwise, in which case the 
+	 * 		   holder is left untouched.
+	 * 
+	 * @throws IllegalArgumentException If the holder is null.
+	 */
+	public boolean find(K key, KeyValueHolder<K, V> holder) {
+		if (holder == null) {
+			throw new IllegalArgumentException("holder is null.");
+		}
+		Node node = lookup(key);
+		if (node == null) {
+			return false;
+		}
+		holder.set(node.key, node.value);
+		return true;
+	}
+	
+	/**
+	 * Returns the value assigned to a key without allocating a KeyValuePair.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return The value of the node or null if no node has the key.
+	 */
+	public V get(K key) {
+		Node node = lookup(key);
+		return node == null ? null : node.value;
+	}
+	
+	/**
+	 * Determines whether a node within the BST has the key.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return True if a node has the key. False otherwise.
+	 */
+	public boolean containsKey(K key) {
+		return lookup(key) != null;
+	}
+	
+	/**
+	 * Returns the minimum key within the BST without allocating a 
+	 * KeyValuePair.
+	 * 
+	 * @return Minimum key.
+	 * 
+	 * @throws TreeIsEmptyException If the Tree is empty.
+	 */
+	public K minKey() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		return getMinimumNode(root).key;
+	}
+	
+	/**
+	 * Returns the maximum key within the BST without allocating a 
+	 * KeyValuePair.
+	 * 
+	 * @return Maximum key.
+	 * 
+	 * @throws TreeIsEmptyException If the Tree is empty.
+	 */
+	public K maxKey() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		return getMaximumNode(root).key;
+	}
+	
+	/**
+	 * Returns the node with the largest key less than or equal to a key.
+	 * 
+	 * @param key The key to be compared against.
+	 * 
+	 * @return The matching node as a KeyValuePair or null if there is none.
+	 */
+	public KeyValuePair<K, V> floor(K key) {
+		return toKeyValuePair(floorNode(key));
+	}
+	
+	/**
+	 * Returns the node with the smallest key greater than or equal to a key.
+	 * 
+	 * @param key The key to be compared against.
+	 * 
+	 * @return The matching node as a KeyValuePair or null if there is none.
+	 */
+	public KeyValuePair<K, V> ceiling(K key) {
+		return toKeyValuePair(ceilingNode(key));
+	}
+	
+	/**
+	 * Returns the node with the largest key strictly less than a key.
+	 * 
+	 * @param key The key to be compared against.
+	 * 
+	 * @return The matching node as a KeyValuePair or null if there is none.
+	 */
+	public KeyValuePair<K, V> lower(K key) {
+		return toKeyValuePair(lowerNode(key));
+	}
+	
+	/**
+	 * Returns the node with the smallest key strictly greater than a key.
+	 * 
+	 * @param key The key to be compared against.
+	 * 
+	 * @return The matching node as a KeyValuePair or null if there is none.
+	 */
+	public KeyValuePair<K, V> higher(K key) {
+		return toKeyValuePair(higherNode(key));
+	}
+	
+	/**
+	 * Returns the number of keys within the BST that are strictly less than a
+	 * key. The key itself does not have to be in the BST.
+	 * 
+	 * @param key The key to be ranked.
+	 * 
+	 * @return The rank of the key, between 0 and size().
+	 */
+	public int rank(K key) {
+		return rankAux(key, false);
+	}
+	
+	/**
+	 * Counts the keys within the BST that are less than (or optionally equal 
+	 * to) a key by summing the sizes of the left subtrees passed on the way 
+	 * down.
+	 * 
+	 * @param key       The key to be ranked.
+	 * @param inclusive True to also count a node whose key equals key.
+	 * 
+	 * @return The number of keys below (or at) the key.
+	 */
+	private int rankAux(K key, boolean inclusive) {
+		int answer = 0;
+		Node current = root;
+		while (current != null) {
+			int comparison = comparator.compare(key, current.key);
+			if (comparison < 0) {
+				current = current.left;
+			} else if (comparison > 0) {
+				answer += size(current.left) + 1;
+				current = current.right;
+			} else {
+				return answer + size(current.left) + (inclusive ? 1 : 0);
+			}
+		}
+		return answer;
+	}
+	
+	/**
+	 * Returns the node with the i-th smallest key (starting from 0).
+	 * 
+	 * @param index The rank of the requested node.
+	 * 
+	 * @return The node as a KeyValuePair.
+	 * 
+	 * @throws IllegalArgumentException If index < 0 or index >= size().
+	 */
+	public KeyValuePair<K, V> select(int index) {
+		if (index < 0 || index >= treeSize) {
+			throw new IllegalArgumentException("Illegal Argument");
+		}
+		return toKeyValuePair(selectNode(index));
+	}
+	
+	/**
+	 * Descends to the node with the i-th smallest key using subtree sizes.
+	 * 
+	 * @param index The rank of the requested node. Must be within the BST.
+	 * 
+	 * @return The node with the requested rank.
+	 */
+	private Node selectNode(int index) {
+		Node current = root;
+		while (true) {
+			int leftSize = size(current.left);
+			if (index < leftSize) {
+				current = current.left;
+			} else if (index > leftSize) {
+				index -= leftSize + 1;
+				current = current.right;
+			} else {
+				return current;
+			}
+		}
+	}
+	
+	/**
+	 * Copies a node into a new KeyValuePair.
+	 * 
+	 * @param node The node to be copied. Can be null.
+	 * 
+	 * @return The node as a KeyValuePair or null if node is null.
+	 */
+	private KeyValuePair<K, V> toKeyValuePair(Node node) {
+		return node == null ? null : new KeyValuePair<K, V>(node.key, node.value);
+	}
+	
+	/**
+	 * Locates the node holding a key for find, get and containsKey, through 
+	 * the lookup cache if there is one, reporting the lookup to the metrics
+	 * listener if one is installed, removing the node if it has expired and
+	 * counting the lookup as a hit or miss if an eviction policy is set.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return The node with the key or null if no node has the key.
+	 */
+	private Node lookup(K key) {
+		if (!lookupHooks) {
+			return findNode(key);
+		}
+		Node node;
+		if (metrics == null) {
+			node = findCached(key);
+		} else {
+			long start = startOperation();
+			try {
+				node = findCached(key);
+			} finally {
+				finishOperation(TreeMetricsListener.Operation.FIND, start);
+			}
+		}
+		if (node != null && deadlines != null && 
+				deadlines.deadline(node) <= clock.getAsLong()) {
+			expire(node);
+			node = null;
+		}
+		if (evictionPolicy != EvictionPolicy.NONE) {
+			if (node == null) {
+				misses++;
+			} else {
+				hits++;
+				if (tracker != null) {
+					tracker.accessed(node);
+				}
+			}
+		}
+		return node;
+	}
+	
+	/**
+	 * Locates the node holding a key, trying the lookup cache first if there
+	 * is one. A hit costs one hash and one comparison instead of a descent 
+	 * from the root; a miss descends as usual and caches the node it finds if
+	 * the key maps to the slot of the node's own key, the only slot delete 
+	 * clears.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return The node with the key or null if no node has the key.
+	 */
+	private Node findCached(K key) {
+		Object[] cache = lookupCache;
+		if (cache == null) {
+			return findNode(key);
+		}
+		int slot = lookupCacheSlot(key, cache.length);
+		@SuppressWarnings("unchecked")
+		Node node = (Node) cache[slot];
+		if (node != null && comparator.compare(key, node.key) == 0) {
+			lookupCacheHits++;
+			return node;
+		}
+		lookupCacheMisses++;
+		node = findNode(key);
+		if (node != null && lookupCacheSlot(node.key, cache.length) == slot) {
+			cache[slot] = node;
+		}
+		return node;
+	}
+	
+	/**
+	 * Returns the slot of the lookup cache a key maps to.
+	 * 
+	 * @param key   The key.
+	 * @param slots The number of slots, a power of two.
+	 * 
+	 * @return The index of the slot.
+	 */
+	private static int lookupCacheSlot(Object key, int slots) {
+		// Multiplying by the golden ratio moves every bit of the hash into the
+		// high bits, which are folded down, so keys that differ only in high
+		// bits or share low bits still spread over the slots.
+		int hash = (key == null ? 0 : key.hashCode()) * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & (slots - 1);
+	}
+	
+	/**
+	 * Drops a node from the lookup cache, if it is cached.
+	 * 
+	 * @param node The node.
+	 */
+	private void uncache(Node node) {
+		Object[] cache = lookupCache;
+		if (cache != null) {
+			int slot = lookupCacheSlot(node.key, cache.length);
+			if (cache[slot] == node) {
+				cache[slot] = null;
+			}
+		}
+	}
+	
+	/**
+	 * Drops every node from the lookup cache.
+	 */
+	private void clearLookupCache() {
+		if (lookupCache != null) {
+			Arrays.fill(lookupCache, null);
+		}
+	}
+	
+	/**
+	 * Puts a small cache of recently found nodes in front of find, get and 
+	 * containsKey, or removes it. The cache is direct-mapped: each key hashes
+	 * to one slot, which holds the last node found for a key hashing there. 
+	 * When a few keys receive most lookups, most of them are answered from 
+	 * the cache with one hash and one comparison instead of a descent from 
+	 * the root.
+	 * 
+	 * A slot is only a hint: a hit still compares its key with the comparator,
+	 * so keys need not implement hashCode consistently with the comparator; 
+	 * keys that do not simply miss more. Adds and rebalancing keep every node
+	 * in place, so the cache stays valid through them; delete drops the 
+	 * deleted node, and split, join and the set operations empty the cache.
+	 * The cache is written by lookups, so like the rest of the BST it must 
+	 * only be used by one thread at a time.
+	 * 
+	 * Setting the size also resets the hit and miss counts.
+	 * 
+	 * @param size The number of slots, rounded up to a power of two. 0 to 
+	 * 			   remove the cache.
+	 * 
+	 * @throws IllegalArgumentException If size < 0 or size > 2^30.
+	 */
+	public void setLookupCacheSize(int size) {
+		if (size < 0 || size > MAX_LOOKUP_CACHE_SIZE) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		int slots = Integer.highestOneBit(size);
+		if (slots < size) {
+			slots <<= 1;
+		}
+		lookupCache = size == 0 ? null : new Object[slots];
+		lookupCacheHits = lookupCacheMisses = 0;
+		updateLookupHooks();
+	}
+	
+	/**
+	 * Returns the number of slots of the lookup cache.
+	 * 
+	 * @return The number of slots. 0 if there is no lookup cache.
+	 */
+	public int getLookupCacheSize() {
+		return lookupCache == null ? 0 : lookupCache.length;
+	}
+	
+	/**
+	 * Returns the number of lookups answered by the lookup cache since its 
+	 * size was last set.
+	 * 
+	 * @return The number of hits.
+	 */
+	public long getLookupCacheHitCount() {
+		return lookupCacheHits;
+	}
+	
+	/**
+	 * Returns the number of lookups that missed the lookup cache and searched
+	 * the BST since its size was last set.
+	 * 
+	 * @return The number of misses.
+	 */
+	public long getLookupCacheMissCount() {
+		return lookupCacheMisses;
+	}
+	
+	/**
+	 * Returns the fraction of lookups answered by the lookup cache since its 
+	 * size was last set.
+	 * 
+	 * @return The hit rate, between 0 and 1. 0 if there were no lookups.
+	 */
+	public double getLookupCacheHitRate() {
+		long lookups = lookupCacheHits + lookupCacheMisses;
+		return lookups == 0 ? 0 : (double) lookupCacheHits / lookups;
+	}
+	
+	/**
+	 * Iteratively locates the node holding a key.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return The node with the key or null if no node has the key.
+	 */
+	private Node findNode(K key) {
+		Node current = root;
+		while (current != null) {
+			int comparison = comparator.compare(key, current.key);
+			if (comparison == 0) {
+				return current;
+			}
+			current = comparison < 0 ? current.left : current.right;
+		}
+		return null;
+	}
+
+	/**
+	 * Deletes a node within the BST and handles all node location cases.
+	 * 
+	 * @param key The key of the node you'd like to delete.
+	 * 
+	 * @return The updated BST if the node was deleted and null if the key 
+	 * 		   key parameter is not assigned to a node within the BST.
+	 * 
+	 * @throws TreeIsEmptyException If the BST is empty.
+	 */
+	public BinarySearchTree<K, V> delete(K key) throws TreeIsEmptyException {
+	    if (isEmpty()) {
+	        throw new TreeIsEmptyException("Tree is empty");
+	    }
+	    if (metrics == null) {
+	    	return deleteChecked(key);
+	    }
+	    long start = startOperation();
+	    try {
+	    	return deleteChecked(key);
+	    } finally {
+	    	finishOperation(TreeMetricsListener.Operation.DELETE, start);
+	    }
+	}
+	
+	/**
+	 * Deletes the node holding a key from a non-empty BST; the body of delete
+	 * without its instrumentation.
+	 * 
+	 * @param key The key of the node you'd like to delete.
+	 * 
+	 * @return The updated BST if the node was deleted and null if the key 
+	 * 		   key parameter is not assigned to a node within the BST.
+	 */
+	private BinarySearchTree<K, V> deleteChecked(K key) {
+	    Node node = findNode(key);
+	    if (node == null) {
+	    	return null;
+	    }
+	    deleteAux(node);
+	    return this;
+	}
+
+	/**
+	 * Unlinks a node from the BST. A node with two children is replaced by its
+	 * inorder successor, which is relinked rather than copied so that every
+	 * remaining node keeps its own key and value.
+	 * 
+	 * @param node The node to be removed from the BST.
+	 */
+	private void deleteAux(Node node) {
+		if (tracker != null) {
+			tracker.removed(node);
+		}
+		if (deadlines != null) {
+			deadlines.remove(node);
+		}
+		uncache(node);
+		Node rebalanceFrom;
+		if (node.left == null || node.right == null) {
+			Node child = node.left != null ? node.left : node.right;
+			rebalanceFrom = node.parent;
+			replaceChild(node.parent, node, child);
+		} else {
+			Node successor = getMinimumNode(node.right);
+			if (successor.parent == node) {
+				rebalanceFrom = successor;
+			} else {
+				rebalanceFrom = successor.parent;
+				replaceChild(successor.parent, successor, successor.right);
+				successor.right = node.right;
+				successor.right.parent = successor;
+			}
+			replaceChild(node.parent, node, successor);
+			successor.left = node.left;
+			successor.left.parent = successor;
+		}
+		treeSize--;
+		modCount++;
+		rebalanceUpwards(rebalanceFrom);
+	}
+
+	/**
+	 * Adds a batch of pairs, as if add were called for each of them in order.
+	 * The batch is sorted first and the BST is walked once in key order: every
+	 * search starts from the node of the previous key instead of the root, so
+	 * neighbouring keys share the upper part of their search paths. Either the
+	 * whole batch is added or, if it does not fit, nothing is. Like add, it 
+	 * makes room by removing expired nodes first.
+	 * 
+	 * @param pairs The pairs to be added, in any order.
+	 * 
+	 * @return The updated BST.
+	 * 
+	 * @throws TreeIsFullException      If the batch holds more new keys than
+	 * 									the BST has room for after every 
+	 * 									expired node is removed.
+	 * @throws IllegalArgumentException If pairs is null.
+	 */
+	public BinarySearchTree<K, V> addAll(Collection<KeyValuePair<K, V>> pairs) 
+			throws TreeIsFullException {
+		if (pairs == null) {
+			throw new IllegalArgumentException("pairs is null.");
+		}
+		if (evictionPolicy != EvictionPolicy.NONE) {
+			for (KeyValuePair<K, V> pair : pairs) {
+				add(pair.getKey(), pair.getValue());
+			}
+			return this;
+		}
+		KeyValuePair<K, V>[] sorted = sortByKey(comparator, pairs);
+		if (treeSize + sorted.length > maxEntries) {
+			// Removing an expired node whose key is in the batch frees no 
+			// room, so the new keys are counted again after every sweep.
+			int needed;
+			while ((needed = treeSize + countNewKeys(sorted) - maxEntries) > 0) {
+				if (deadlines == null || sweepExpired(needed) == 0) {
+					throw new TreeIsFullException("Tree is already full");
+				}
+			}
+		}
+		Node finger = null;
+		for (KeyValuePair<K, V> pair : sorted) {
+			if (isEmpty()) {
+				add(pair.getKey(), pair.getValue());
+				finger = root;
+				continue;
+			}
+			Node last = searchFrom(finger, pair.getKey());
+			int comparison = comparator.compare(pair.getKey(), last.key);
+			if (comparison == 0) {
+				last.value = pair.getValue();
+				setDeadline(last, NO_DEADLINE);
+				finger = last;
+			} else {
+				finger = createNode(pair.getKey(), pair.getValue());
+				finger.parent = last;
+				if (comparison < 0) {
+					last.left = finger;
+				} else {
+					last.right = finger;
+				}
+				treeSize++;
+				modCount++;
+				rebalanceUpwards(last);
+			}
+		}
+		return this;
+	}
+	
+	/**
+	 * Counts the distinct keys of a sorted batch that are not yet in the BST.
+	 * 
+	 * @param sorted The pairs in ascending key order.
+	 * 
+	 * @return The number of nodes adding the batch would create.
+	 */
+	private int countNewKeys(KeyValuePair<K, V>[] sorted) {
+		int answer = 0;
+		Node finger = null;
+		for (int i = 0; i < sorted.length; i++) {
+			K key = sorted[i].getKey();
+			if (i > 0 && comparator.compare(key, sorted[i - 1].getKey()) == 0) {
+				continue;
+			}
+			if (isEmpty()) {
+				answer++;
+				continue;
+			}
+			Node last = searchFrom(finger, key);
+			if (comparator.compare(key, last.key) == 0) {
+				finger = last;
+			} else {
+				answer++;
+				finger = floorOfMiss(last, key);
+			}
+		}
+		return answer;
+	}
+	
+	/**
+	 * Locates a batch of keys in one ordered walk over the BST. Like find, it
+	 * treats expired nodes as missing and removes them, and every key counts
+	 * as a hit or miss and a use of its node for the eviction policy.
+	 * 
+	 * @param keys The keys of the nodes you'd like to find, in any order.
+	 * 
+	 * @return A list with, at the position of each key, the node as a 
+	 * 		   KeyValuePair or null if no node has that key.
+	 * 
+	 * @throws IllegalArgumentException If keys is null.
+	 */
+	public List<KeyValuePair<K, V>> findAll(Collection<K> keys) {
+		if (keys == null) {
+			throw new IllegalArgumentException("keys is null.");
+		}
+		@SuppressWarnings("unchecked")
+		final K[] lookups = (K[]) keys.toArray();
+		Integer[] order = new Integer[lookups.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer index1, Integer index2) {
+				return comparator.compare(lookups[index1], lookups[index2]);
+			}
+		});
+		ArrayList<KeyValuePair<K, V>> answer = 
+				new ArrayList<KeyValuePair<K, V>>(lookups.length);
+		for (int i = 0; i < lookups.length; i++) {
+			answer.add(null);
+		}
+		Object[] found = evictionPolicy == EvictionPolicy.NONE ? null : 
+				new Object[lookups.length];
+		ArrayList<Node> expired = new ArrayList<Node>();
+		long now = deadlines == null ? 0 : clock.getAsLong();
+		Node finger = null;
+		for (int i = 0; i < order.length && !isEmpty(); i++) {
+			K key = lookups[order[i]];
+			Node last = searchFrom(finger, key);
+			if (comparator.compare(key, last.key) == 0) {
+				if (deadlines == null || deadlines.deadline(last) > now) {
+					answer.set(order[i], toKeyValuePair(last));
+					if (found != null) {
+						found[order[i]] = last;
+					}
+				} else if (expired.isEmpty() || 
+						expired.get(expired.size() - 1) != last) {
+					expired.add(last);
+				}
+				finger = last;
+			} else {
+				finger = floorOfMiss(last, key);
+			}
+		}
+		// Removed only after the walk, which still starts from their nodes.
+		for (Node node : expired) {
+			expire(node);
+		}
+		if (found != null) {
+			// Counted and recorded in the caller's order, as find would be.
+			for (Object node : found) {
+				if (node == null) {
+					misses++;
+				} else {
+					hits++;
+					if (tracker != null) {
+						@SuppressWarnings("unchecked")
+						Node used = (Node) node;
+						tracker.accessed(used);
+					}
+				}
+			}
+		}
+		return answer;
+	}
+	
+	/**
+	 * Deletes a batch of keys in one ordered walk over the BST. Keys that are
+	 * not in the BST are ignored.
+	 * 
+	 * @param keys The keys of the nodes you'd like to delete, in any order.
+	 * 
+	 * @return The number of nodes that were deleted.
+	 * 
+	 * @throws TreeIsEmptyException     If the BST is empty.
+	 * @throws IllegalArgumentException If keys is null.
+	 */
+	public int deleteAll(Collection<K> keys) throws TreeIsEmptyException {
+		if (keys == null) {
+			throw new IllegalArgumentException("keys is null.");
+		}
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		@SuppressWarnings("unchecked")
+		K[] sorted = (K[]) keys.toArray();
+		Arrays.sort(sorted, comparator);
+		int answer = 0;
+		Node finger = null;
+		for (int i = 0; i < sorted.length && !isEmpty(); i++) {
+			Node last = searchFrom(finger, sorted[i]);
+			if (comparator.compare(sorted[i], last.key) == 0) {
+				finger = predecessor(last);
+				deleteAux(last);
+				answer++;
+			} else {
+				finger = floorOfMiss(last, sorted[i]);
+			}
+		}
+		return answer;
+	}
+	
+	/**
+	 * Searches for a key starting from a finger node instead of the root. The 
+	 * search first climbs from the finger to the lowest ancestor whose subtree
+	 * can hold the key and then descends as usual, so it only costs as much as
+	 * the distance between the finger and the key.
+	 * 
+	 * @param finger A node whose key is less than or equal to key, or null to
+	 * 				 start from the root. The BST must not be empty.
+	 * @param key    The key to search for.
+	 * 
+	 * @return The node with the key, or the node the key would be attached to
+	 * 		   as a child if it is not in the BST.
+	 */
+	private Node searchFrom(Node finger, K key) {
+		Node current = finger == null ? root : finger;
+		while (current.parent != null) {
+			// The subtree's lower bound is already below the finger's key, so
+			// it can hold key once key is below the key of the parent above.
+			if (current == current.parent.left && 
+					comparator.compare(key, current.parent.key) < 0) {
+				break;
+			}
+			current = current.parent;
+		}
+		while (true) {
+			int comparison = comparator.compare(key, current.key);
+			Node next = comparison < 0 ? current.left : current.right;
+			if (comparison == 0 || next == null) {
+				return current;
+			}
+			current = next;
+		}
+	}
+	
+	/**
+	 * Returns the finger for the next search after a key was not found: the 
+	 * node with the largest key below the missing key.
+	 * 
+	 * @param last The node the missing key would be attached to.
+	 * @param key  The missing key.
+	 * 
+	 * @return The floor node of the key or null if every key is larger.
+	 */
+	private Node floorOfMiss(Node last, K key) {
+		return comparator.compare(key, last.key) > 0 ? last : predecessor(last);
+	}
+
+	/**
+	 * Utilized in the delete method. Returns the minimum node with respect to 
+	 * the nodes' keys.
+	 * 
+	 * @param node The node you'd like to begin traversal at.
+	 * 
+	 * @return The minimum node below the node parameter with respect to the 
+	 * 		   nodes' keys.
+	 */
+	private Node getMinimumNode(Node node) {
+		while (node.left != null) {
+			node = node.left;
+		}
+		return node;
+	}
+	
+	/**
+	 * Returns the maximum node with respect to the nodes' keys.
+	 * 
+	 * @param node The node you'd like to begin traversal at.
+	 * 
+	 * @return The maximum node below the node parameter with respect to the 
+	 * 		   nodes' keys.
+	 */
+	private Node getMaximumNode(Node node) {
+		while (node.right != null) {
+			node = node.right;
+		}
+		return node;
+	}
+	
+	/**
+	 * Returns the node that follows a node in an inorder traversal.
+	 * 
+	 * @param node The node whose successor is requested.
+	 * 
+	 * @return The node with the next larger key or null if there is none.
+	 */
+	private Node successor(Node node) {
+		if (node.right != null) {
+			return getMinimumNode(node.right);
+		}
+		Node parent = node.parent;
+		while (parent != null && node == parent.right) {
+			node = parent;
+			parent = parent.parent;
+		}
+		return parent;
+	}
+	
+	/**
+	 * Returns the node that precedes a node in an inorder traversal.
+	 * 
+	 * @param node The node whose predecessor is requested.
+	 * 
+	 * @return The node with the next smaller key or null if there is none.
+	 */
+	private Node predecessor(Node node) {
+		if (node.left != null) {
+			return getMaximumNode(node.left);
+		}
+		Node parent = node.parent;
+		while (parent != null && node == parent.left) {
+			node = parent;
+			parent = parent.parent;
+		}
+		return parent;
+	}
+	
+
+	/**
+	 * Conducts an inorder traversal of the BST and processes each node upon 
+	 * arrival.
+	 * 
+	 * @param callback The processing to be done to each node while traversing.
+	 */
+	public void processInorder(Callback<K, V> callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("callback is null.");
+		}
+		if (isEmpty()) {
+			return;
+		}
+		for (Node node = getMinimumNode(root); node != null; 
+				node = successor(node)) {
+			callback.process(node.key, node.value);
+		}
+	}
+
+	/**
+	 * Returns an iterator over the nodes of the BST in ascending key order. 
+	 * The iterator does nothing until it is advanced, so a traversal can stop
+	 * early without visiting the rest of the BST.
+	 * 
+	 * @return An ascending iterator of KeyValuePairs.
+	 */
+	@Override
+	public Iterator<KeyValuePair<K, V>> iterator() {
+		return new EntryIterator(isEmpty() ? null : getMinimumNode(root), 
+				null, false);
+	}
+	
+	/**
+	 * Returns an iterator over the nodes of the BST in descending key order.
+	 * 
+	 * @return A descending iterator of KeyValuePairs.
+	 */
+	public Iterator<KeyValuePair<K, V>> descendingIterator() {
+		return new EntryIterator(isEmpty() ? null : getMaximumNode(root), 
+				null, true);
+	}
+	
+	/**
+	 * Returns a Spliterator over the nodes of the BST in ascending key order.
+	 * The Spliterator covers a range of ranks and splits it in half, so a 
+	 * parallel stream divides the BST evenly whatever its shape. It fails 
+	 * fast if the BST is structurally modified while it is in use.
+	 * 
+	 * @return An ordered, sized, splitting Spliterator of KeyValuePairs.
+	 */
+	@Override
+	public Spliterator<KeyValuePair<K, V>> spliterator() {
+		return new RankSpliterator(0, treeSize);
+	}
+	
+	/**
+	 * Returns a sequential Stream over the nodes of the BST in ascending key 
+	 * order.
+	 * 
+	 * @return A Stream of KeyValuePairs.
+	 */
+	public Stream<KeyValuePair<K, V>> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * Returns a parallel Stream over the nodes of the BST. The Stream is 
+	 * ordered; call unordered() on it when encounter order does not matter 
+	 * to let operations such as limit and distinct skip ordering work.
+	 * 
+	 * @return A parallel Stream of KeyValuePairs.
+	 */
+	public Stream<KeyValuePair<K, V>> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	/**
+	 * Spliterator over the nodes whose ranks fall within a range. The node at
+	 * the start of the range is located by rank only when it is first needed,
+	 * after which the Spliterator walks successors.
+	 */
+	private class RankSpliterator implements Spliterator<KeyValuePair<K, V>> {
+		private int index, fence;
+		private Node next;
+		private final int expectedModCount;
+		
+		/**
+		 * Constructor for a Spliterator over a range of ranks.
+		 * 
+		 * @param index The rank of the first node (inclusive).
+		 * @param fence The rank after the last node (exclusive).
+		 */
+		private RankSpliterator(int index, int fence) {
+			this.index = index;
+			this.fence = fence;
+			this.expectedModCount = modCount;
+		}
+		
+		@Override
+		public boolean tryAdvance(
+				Consumer<? super KeyValuePair<K, V>> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (index >= fence) {
+				return false;
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (next == null) {
+				next = selectNode(index);
+			}
+			Node node = next;
+			next = successor(node);
+			index++;
+			action.accept(new KeyValuePair<K, V>(node.key, node.value));
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(
+				Consumer<? super KeyValuePair<K, V>> action) {
+			while (tryAdvance(action)) {
+			}
+		}
+		
+		@Override
+		public Spliterator<KeyValuePair<K, V>> trySplit() {
+			int middle = (index + fence) >>> 1;
+			if (middle <= index) {
+				return null;
+			}
+			RankSpliterator prefix = new RankSpliterator(index, middle);
+			prefix.next = next;
+			index = middle;
+			next = null;
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+		
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.DISTINCT | 
+					Spliterator.NONNULL | Spliterator.SIZED | 
+					Spliterator.SUBSIZED;
+		}
+	}
+	
+	/**
+	 * Processes every node of the BST on the threads of the common fork/join
+	 * pool. See parallelForEach(Callback, ForkJoinPool).
+	 * 
+	 * @param callback The thread-safe processing to be done to each node.
+	 * 
+	 * @throws IllegalArgumentException        If the callback is null.
+	 * @throws ConcurrentModificationException If the BST was structurally 
+	 * 										   modified during the traversal.
+	 */
+	public void parallelForEach(Callback<K, V> callback) {
+		parallelForEach(callback, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Processes every node of the BST in parallel, in no particular order. The
+	 * BST is partitioned at subtree boundaries using the cached subtree sizes:
+	 * each task hands the smaller child subtree of its node to a new task and
+	 * carries on down the larger one, until what remains is small enough to 
+	 * walk on one thread. The BST must not be modified while it is traversed.
+	 * 
+	 * @param callback The processing to be done to each node. It is called 
+	 * 				   from several threads at once.
+	 * @param pool     The pool whose threads do the processing.
+	 * 
+	 * @throws IllegalArgumentException        If the callback or pool is null.
+	 * @throws ConcurrentModificationException If the BST was structurally 
+	 * 										   modified during the traversal.
+	 */
+	public void parallelForEach(Callback<K, V> callback, ForkJoinPool pool) {
+		if (callback == null || pool == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		int expectedModCount = modCount;
+		if (!isEmpty()) {
+			pool.invoke(new ForEachTask(root, callback));
+		}
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+	
+	/**
+	 * Folds every node of the BST into a single result on the threads of the
+	 * common fork/join pool. See parallelReduce(Object, Reducer, ForkJoinPool).
+	 * 
+	 * @param identity The neutral element of the reducer's combine.
+	 * @param reducer  The folding to be done.
+	 * 
+	 * @return The combined result. The identity if the BST is empty.
+	 * 
+	 * @throws IllegalArgumentException        If the reducer is null.
+	 * @throws ConcurrentModificationException If the BST was structurally 
+	 * 										   modified during the traversal.
+	 */
+	public <R> R parallelReduce(R identity, Reducer<K, V, R> reducer) {
+		return parallelReduce(identity, reducer, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Folds every node of the BST into a single result in parallel. The BST is
+	 * partitioned at subtree boundaries as in parallelForEach, each partition
+	 * is folded with accumulate and the partial results are merged with 
+	 * combine in key order, so the result matches a sequential fold in key 
+	 * order whenever combine is associative. The BST must not be modified 
+	 * while it is traversed.
+	 * 
+	 * @param identity The neutral element of the reducer's combine.
+	 * @param reducer  The folding to be done.
+	 * @param pool     The pool whose threads do the folding.
+	 * 
+	 * @return The combined result. The identity if the BST is empty.
+	 * 
+	 * @throws IllegalArgumentException        If the reducer or pool is null.
+	 * @throws ConcurrentModificationException If the BST was structurally 
+	 * 										   modified during the traversal.
+	 */
+	public <R> R parallelReduce(R identity, Reducer<K, V, R> reducer, 
+			ForkJoinPool pool) {
+		if (reducer == null || pool == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		int expectedModCount = modCount;
+		R answer = isEmpty() ? identity : 
+				pool.invoke(new ReduceTask<R>(root, identity, reducer));
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+		return answer;
+	}
+	
+	/**
+	 * Returns the child subtree a parallel task hands to a new task: the 
+	 * smaller one, so that nested tasks at least halve in size.
+	 * 
+	 * @param node The node whose children are compared.
+	 * 
+	 * @return The smaller child of node. Can be null.
+	 */
+	private Node smallerChild(Node node) {
+		return size(node.left) <= size(node.right) ? node.left : node.right;
+	}
+	
+	/**
+	 * Fork/join task processing every node of a subtree.
+	 */
+	private class ForEachTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Node subtree;
+		private final Callback<K, V> callback;
+		
+		private ForEachTask(Node subtree, Callback<K, V> callback) {
+			this.subtree = subtree;
+			this.callback = callback;
+		}
+		
+		@Override
+		protected void compute() {
+			ArrayList<ForEachTask> forked = new ArrayList<ForEachTask>();
+			Node node = subtree;
+			while (size(node) > PARALLEL_THRESHOLD) {
+				Node smaller = smallerChild(node);
+				if (smaller != null) {
+					ForEachTask task = new ForEachTask(smaller, callback);
+					task.fork();
+					forked.add(task);
+				}
+				callback.process(node.key, node.value);
+				node = smaller == node.left ? node.right : node.left;
+			}
+			Node current = node == null ? null : getMinimumNode(node);
+			for (int remaining = size(node); remaining > 0; remaining--) {
+				callback.process(current.key, current.value);
+				current = successor(current);
+			}
+			for (ForEachTask task : forked) {
+				task.join();
+			}
+		}
+	}
+	
+	/**
+	 * Fork/join task folding the nodes of a subtree in key order.
+	 */
+	private class ReduceTask<R> extends RecursiveTask<R> {
+		private static final long serialVersionUID = 1L;
+		private final Node subtree;
+		private final R identity;
+		private final Reducer<K, V, R> reducer;
+		
+		private ReduceTask(Node subtree, R identity, Reducer<K, V, R> reducer) {
+			this.subtree = subtree;
+			this.identity = identity;
+			this.reducer = reducer;
+		}
+		
+		@Override
+		protected R compute() {
+			// The parts before the remaining subtree, in key order, and the 
+			// parts after it, in reverse key order. A part is a forked task or
+			// a single node.
+			ArrayList<Object> before = new ArrayList<Object>();
+			ArrayList<Object> after = new ArrayList<Object>();
+			Node node = subtree;
+			while (size(node) > PARALLEL_THRESHOLD) {
+				Node smaller = smallerChild(node);
+				ArrayList<Object> parts = smaller == node.left ? before : after;
+				fork(smaller, parts);
+				parts.add(node);
+				node = smaller == node.left ? node.right : node.left;
+			}
+			R answer = identity;
+			for (Object part : before) {
+				answer = reducer.combine(answer, result(part));
+			}
+			R middle = identity;
+			Node current = node == null ? null : getMinimumNode(node);
+			for (int remaining = size(node); remaining > 0; remaining--) {
+				middle = reducer.accumulate(middle, current.key, current.value);
+				current = successor(current);
+			}
+			answer = reducer.combine(answer, middle);
+			for (int i = after.size() - 1; i >= 0; i--) {
+				answer = reducer.combine(answer, result(after.get(i)));
+			}
+			return answer;
+		}
+		
+		/**
+		 * Forks a task folding a subtree and records it as a part.
+		 * 
+		 * @param subtree The subtree to be folded. Can be null.
+		 * @param parts   The parts the task is added to.
+		 */
+		private void fork(Node subtree, ArrayList<Object> parts) {
+			if (subtree != null) {
+				ReduceTask<R> task = new ReduceTask<R>(subtree, identity, reducer);
+				task.fork();
+				parts.add(task);
+			}
+		}
+		
+		/**
+		 * Returns the folded result of a part.
+		 * 
+		 * @param part A forked task or a single node.
+		 * 
+		 * @return The task's result or the node folded into the identity.
+		 */
+		@SuppressWarnings("unchecked")
+		private R result(Object part) {
+			if (part instanceof ForkJoinTask) {
+				return ((ReduceTask<R>) part).join();
+			}
+			Node node = (Node) part;
+			return reducer.accumulate(identity, node.key, node.value);
+		}
+	}
+	
+	/**
+	 * Moves every node whose key is greater than or equal to a key into a new
+	 * BST, which is returned, and keeps the smaller keys in this BST. The two
+	 * halves are cut along the search path of the key and each is rejoined 
+	 * with join, so a self-balancing BST splits in O(log n) time and both 
+	 * halves stay balanced.
+	 * 
+	 * @param key The key at which the BST is split.
+	 * 
+	 * @return A new BST, with this BST's comparator, maxEntries and balancing,
+	 * 		   holding the nodes whose keys are not smaller than key.
+	 */
+	public BinarySearchTree<K, V> split(K key) {
+		BinarySearchTree<K, V> answer = 
+				new BinarySearchTree<K, V>(keyComparator(), maxEntries, 
+						selfBalancing);
+		if (!isEmpty()) {
+			Split parts = splitNodes(root, key);
+			root = parts.less;
+			answer.root = parts.match == null ? parts.greater : 
+					joinNodes(null, parts.match, parts.greater);
+			treeSize = size(root);
+			answer.treeSize = size(answer.root);
+			modCount++;
+			retrack();
+			clearLookupCache();
+			DeadlineIndex<Node> old = deadlines;
+			reindexDeadlines(old, null);
+			answer.clock = clock;
+			answer.reindexDeadlines(old, null);
+		}
+		return answer;
+	}
+	
+	/**
+	 * Moves every node of another BST, whose keys must all be greater than the
+	 * keys of this BST, onto the end of this BST and leaves the other BST 
+	 * empty. The shorter tree is hung from the spine of the taller one at the
+	 * matching height and rebalanced from there, which takes time 
+	 * proportional to the difference of their heights.
+	 * 
+	 * @param other The BST to be appended. It must order its keys with the 
+	 * 				same comparator.
+	 * 
+	 * @return The updated BST.
+	 * 
+	 * @throws TreeIsFullException      If the nodes of both BSTs do not fit 
+	 * 									within maxEntries. Neither BST is 
+	 * 									changed.
+	 * @throws IllegalArgumentException If other is null or this BST, or if 
+	 * 									its smallest key is not greater than
+	 * 									the largest key of this BST.
+	 */
+	public BinarySearchTree<K, V> join(BinarySearchTree<K, V> other) 
+			throws TreeIsFullException {
+		if (other == null || other == this) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		if (other.isEmpty()) {
+			return this;
+		}
+		if (!isEmpty() && comparator.compare(getMaximumNode(root).key, 
+				getMinimumNode(other.root).key) >= 0) {
+			throw new IllegalArgumentException("Keys of other are not greater.");
+		}
+		if (treeSize + other.treeSize > maxEntries) {
+			throw new TreeIsFullException("Tree is already full");
+		}
+		DeadlineIndex<Node> taken = other.deadlines;
+		root = join2(shallow(root, false), takeNodes(other));
+		treeSize = size(root);
+		modCount++;
+		retrack();
+		clearLookupCache();
+		reindexDeadlines(deadlines, taken);
+		return this;
+	}
+	
+	/**
+	 * Merges another BST into this one on the threads of the common fork/join
+	 * pool. See union(BinarySearchTree, ForkJoinPool).
+	 * 
+	 * @param other The BST to be merged. It is left empty.
+	 * 
+	 * @return The updated BST.
+	 * 
+	 * @throws TreeIsFullException      If the union does not fit within 
+	 * 									maxEntries. Neither BST is changed.
+	 * @throws IllegalArgumentException If other is null or this BST.
+	 */
+	public BinarySearchTree<K, V> union(BinarySearchTree<K, V> other) 
+			throws TreeIsFullException {
+		return union(other, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Merges another BST into this one, so that this BST holds every key of 
+	 * either, and leaves the other BST empty. A key in both takes the value it
+	 * has in other, as if each of its nodes were added. The nodes of other 
+	 * are moved, not copied.
+	 * 
+	 * Instead of adding the m nodes of the smaller BST one at a time, the 
+	 * larger is split around the root of the smaller, the halves are merged 
+	 * recursively and the results joined under that root. This takes 
+	 * O(m log(n / m + 1)) time, linear for two BSTs of similar size and 
+	 * logarithmic for a single node, and merging sorted runs costs no more 
+	 * than merging random ones. The two recursive merges are independent, so 
+	 * large ones run as parallel tasks.
+	 * 
+	 * The recursion follows the shape of this BST, so a BST that is not 
+	 * self-balancing and has grown too deep is first relinked into balanced 
+	 * form. Likewise, a self-balancing BST rebalances other first if it is 
+	 * not self-balancing, so the result keeps its AVL balance.
+	 * 
+	 * @param other The BST to be merged. It must order its keys with the same
+	 * 				comparator and is left empty.
+	 * @param pool  The pool whose threads do large merges.
+	 * 
+	 * @return The updated BST.
+	 * 
+	 * @throws TreeIsFullException      If the union does not fit within 
+	 * 									maxEntries. Neither BST is changed.
+	 * @throws IllegalArgumentException If other or pool is null, or if other 
+	 * 									is this BST.
+	 */
+	public BinarySearchTree<K, V> union(BinarySearchTree<K, V> other, 
+			ForkJoinPool pool) throws TreeIsFullException {
+		checkSetOperation(other, pool);
+		if (treeSize + other.treeSize > maxEntries && treeSize + 
+				other.treeSize - countCommonKeys(other) > maxEntries) {
+			throw new TreeIsFullException("Tree is already full");
+		}
+		setOperation(SetOperation.UNION, other, pool);
+		return this;
+	}
+	
+	/**
+	 * Keeps only the keys of this BST that are also in another BST, on the 
+	 * threads of the common fork/join pool. See 
+	 * intersection(BinarySearchTree, ForkJoinPool).
+	 * 
+	 * @param other The BST whose keys are kept. It is left empty.
+	 * 
+	 * @return The updated BST.
+	 * 
+	 * @throws IllegalArgumentException If other is null or this BST.
+	 */
+	public BinarySearchTree<K, V> intersection(BinarySearchTree<K, V> other) {
+		return intersection(other, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Keeps only the keys of this BST that are also in another BST, with the
+	 * values they have in this BST, and leaves the other BST empty. Runs in 
+	 * O(m log(n / m + 1)) time like union.
+	 * 
+	 * @param other The BST whose keys are kept. It must order its keys with 
+	 * 				the same comparator and is left empty.
+	 * @param pool  The pool whose threads do large intersections.
+	 * 
+	 * @return The updated BST.
+	 * 
+	 * @throws IllegalArgumentException If other or pool is null, or if other 
+	 * 									is this BST.
+	 */
+	public BinarySearchTree<K, V> intersection(BinarySearchTree<K, V> other, 
+			ForkJoinPool pool) {
+		checkSetOperation(other, pool);
+		setOperation(SetOperation.INTERSECTION, other, pool);
+		return this;
+	}
+	
+	/**
+	 * Removes from this BST every key that is in another BST, on the threads 
+	 * of the common fork/join pool. See 
+	 * difference(BinarySearchTree, ForkJoinPool).
+	 * 
+	 * @param other The BST whose keys are removed. It is left empty.
+	 * 
+	 * @return The updated BST.
+	 * 
+	 * @throws IllegalArgumentException If other is null or this BST.
+	 */
+	public BinarySearchTree<K, V> difference(BinarySearchTree<K, V> other) {
+		return difference(other, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Removes from this BST every key that is in another BST and leaves the 
+	 * other BST empty. Runs in O(m log(n / m + 1)) time like union.
+	 * 
+	 * @param other The BST whose keys are removed. It must order its keys 
+	 * 				with the same comparator and is left empty.
+	 * @param pool  The pool whose threads do large differences.
+	 * 
+	 * @return The updated BST.
+	 * 
+	 * @throws IllegalArgumentException If other or pool is null, or if other 
+	 * 									is this BST.
+	 */
+	public BinarySearchTree<K, V> difference(BinarySearchTree<K, V> other, 
+			ForkJoinPool pool) {
+		checkSetOperation(other, pool);
+		setOperation(SetOperation.DIFFERENCE, other, pool);
+		return this;
+	}
+	
+	/**
+	 * The set operations computed by SetOperationTask.
+	 */
+	private enum SetOperation {
+		UNION, INTERSECTION, DIFFERENCE
+	}
+	
+	/**
+	 * Validates the arguments of a set operation.
+	 * 
+	 * @param other The other BST of the operation.
+	 * @param pool  The pool of the operation.
+	 * 
+	 * @throws IllegalArgumentException If other or pool is null, or if other 
+	 * 									is this BST.
+	 */
+	private void checkSetOperation(BinarySearchTree<K, V> other, 
+			ForkJoinPool pool) {
+		if (other == null || other == this || pool == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+	}
+	
+	/**
+	 * Counts the keys of another BST that are also in this BST by looking up
+	 * the keys of the smaller BST in the larger one.
+	 * 
+	 * @param other The other BST.
+	 * 
+	 * @return The number of keys in both BSTs.
+	 */
+	private int countCommonKeys(BinarySearchTree<K, V> other) {
+		BinarySearchTree<K, V> smaller = treeSize <= other.treeSize ? this : other;
+		BinarySearchTree<K, V> larger = smaller == this ? other : this;
+		int common = 0;
+		for (Node node = smaller.isEmpty() ? null : 
+				getMinimumNode(smaller.root); node != null; 
+				node = successor(node)) {
+			if (larger.findNode(node.key) != null) {
+				common++;
+			}
+		}
+		return common;
+	}
+	
+	/**
+	 * Combines the nodes of another BST into this one and empties the other.
+	 * 
+	 * @param operation The set operation to be computed.
+	 * @param other     The other BST.
+	 * @param pool      The pool whose threads do large operations.
+	 */
+	private void setOperation(SetOperation operation, 
+			BinarySearchTree<K, V> other, ForkJoinPool pool) {
+		boolean large = treeSize + other.treeSize > PARALLEL_THRESHOLD;
+		DeadlineIndex<Node> taken = other.deadlines;
+		SetOperationTask task = new SetOperationTask(operation, 
+				shallow(root, false), takeNodes(other));
+		root = large ? pool.invoke(task) : task.compute();
+		treeSize = size(root);
+		modCount++;
+		retrack();
+		clearLookupCache();
+		reindexDeadlines(deadlines, taken);
+	}
+	
+	/**
+	 * Detaches every node of another BST, leaving it empty, and returns the
+	 * top of the detached nodes, relinked into balanced form if this BST is 
+	 * self-balancing and the other is not.
+	 * 
+	 * @param other The BST whose nodes are taken.
+	 * 
+	 * @return The top of the detached nodes. Null if other is empty.
+	 */
+	private Node takeNodes(BinarySearchTree<K, V> other) {
+		Node top = other.root;
+		other.root = null;
+		other.treeSize = 0;
+		other.modCount++;
+		other.retrack();
+		other.clearLookupCache();
+		other.deadlines = null;
+		other.updateLookupHooks();
+		return shallow(top, selfBalancing && !other.selfBalancing);
+	}
+	
+	/**
+	 * Relinks the nodes of a detached subtree into balanced form, keeping 
+	 * every node, if asked to or if the subtree is too deep for the recursion
+	 * of the set operations: deeper than twice the height of a balanced 
+	 * subtree of the same size.
+	 * 
+	 * @param top    The top of the subtree. Can be null.
+	 * @param always True to relink the subtree whatever its height.
+	 * 
+	 * @return The top of the possibly relinked subtree.
+	 */
+	private Node shallow(Node top, boolean always) {
+		int size = size(top);
+		if (size == 0 || (!always && 
+				height(top) <= 2 * (32 - Integer.numberOfLeadingZeros(size)))) {
+			return top;
+		}
+		ArrayList<Node> nodes = new ArrayList<Node>(size);
+		for (Node node = getMinimumNode(top); node != null; 
+				node = successor(node)) {
+			nodes.add(node);
+		}
+		return linkBalanced(nodes, 0, size, null);
+	}
+	
+	/**
+	 * Relinks a range of nodes in ascending key order into a balanced subtree.
+	 * The middle node becomes the top and each half one of its subtrees, so 
+	 * the recursion is only logarithmically deep.
+	 * 
+	 * @param nodes  The nodes in ascending key order.
+	 * @param low    The first index to be used (inclusive).
+	 * @param high   The last index to be used (exclusive).
+	 * @param parent The parent of the subtree being linked.
+	 * 
+	 * @return The top of the subtree or null if the index range is empty.
+	 */
+	private Node linkBalanced(ArrayList<Node> nodes, int low, int high, 
+			Node parent) {
+		if (low >= high) {
+			return null;
+		}
+		int middle = (low + high) >>> 1;
+		Node node = nodes.get(middle);
+		node.parent = parent;
+		node.left = linkBalanced(nodes, low, middle, node);
+		node.right = linkBalanced(nodes, middle + 1, high, node);
+		update(node);
+		return node;
+	}
+	
+	/**
+	 * The result of splitting a subtree at a key: the subtree of the smaller
+	 * keys, the node holding the key if there is one, and the subtree of the
+	 * greater keys.
+	 */
+	private class Split {
+		private Node less, match, greater;
+	}
+	
+	/**
+	 * Splits a detached subtree at a key. The search path of the key is 
+	 * walked down once and then, from the bottom up, each node on it is 
+	 * joined with its subtree off the path onto the side of the key it lies 
+	 * on. Each join costs the difference of the heights it joins, and these 
+	 * add up to O(height) along the path.
+	 * 
+	 * @param top The top of the subtree, whose parent is null.
+	 * @param key The key at which the subtree is split.
+	 * 
+	 * @return The parts of the subtree, all detached. The subtree itself is
+	 * 		   consumed.
+	 */
+	private Split splitNodes(Node top, K key) {
+		ArrayList<Node> path = new ArrayList<Node>();
+		int comparison = 0;
+		for (Node current = top; current != null; 
+				current = comparison < 0 ? current.left : current.right) {
+			path.add(current);
+			comparison = comparator.compare(key, current.key);
+			if (comparison == 0) {
+				break;
+			}
+		}
+		Split answer = new Split();
+		for (int i = path.size() - 1; i >= 0; i--) {
+			Node node = path.get(i);
+			boolean deepest = i == path.size() - 1;
+			// The child on the path was already consumed by the joins below.
+			if (deepest && comparison == 0) {
+				answer.less = detach(node.left);
+				answer.greater = detach(node.right);
+				answer.match = node;
+				node.left = node.right = node.parent = null;
+				update(node);
+			} else if (deepest ? comparison < 0 : path.get(i + 1) == node.left) {
+				answer.greater = joinNodes(answer.greater, node, 
+						detach(node.right));
+			} else {
+				answer.less = joinNodes(detach(node.left), node, answer.less);
+			}
+		}
+		return answer;
+	}
+	
+	/**
+	 * Cuts a node off from its parent.
+	 * 
+	 * @param node The node to be detached. Can be null.
+	 * 
+	 * @return The node, now without a parent.
+	 */
+	private Node detach(Node node) {
+		if (node != null) {
+			node.parent = null;
+		}
+		return node;
+	}
+	
+	/**
+	 * Joins two detached subtrees and a node whose key lies between theirs 
+	 * into one detached subtree. If their heights differ by more than one, 
+	 * the node and the shorter subtree are hung from the spine of the taller
+	 * one where the heights match, and the spine is rebalanced from there up.
+	 * 
+	 * @param left   The subtree of the smaller keys. Can be null.
+	 * @param middle The node to be placed between them. Its links are reset.
+	 * @param right  The subtree of the greater keys. Can be null.
+	 * 
+	 * @return The top of the joined subtree.
+	 */
+	private Node joinNodes(Node left, Node middle, Node right) {
+		middle.parent = null;
+		if (height(left) > height(right) + 1) {
+			Node parent = left;
+			while (height(parent.right) > height(right) + 1) {
+				parent = parent.right;
+			}
+			middle.left = parent.right;
+			middle.right = right;
+			linkChildren(middle);
+			parent.right = middle;
+			middle.parent = parent;
+			return rebalanceToTop(middle);
+		} else if (height(right) > height(left) + 1) {
+			Node parent = right;
+			while (height(parent.left) > height(left) + 1) {
+				parent = parent.left;
+			}
+			middle.left = left;
+			middle.right = parent.left;
+			linkChildren(middle);
+			parent.left = middle;
+			middle.parent = parent;
+			return rebalanceToTop(middle);
+		}
+		middle.left = left;
+		middle.right = right;
+		linkChildren(middle);
+		update(middle);
+		return middle;
+	}
+	
+	/**
+	 * Points the children of a node back at it.
+	 * 
+	 * @param node The node whose children are fixed.
+	 */
+	private void linkChildren(Node node) {
+		if (node.left != null) {
+			node.left.parent = node;
+		}
+		if (node.right != null) {
+			node.right.parent = node;
+		}
+	}
+	
+	/**
+	 * Joins two detached subtrees, the keys of the first all smaller than 
+	 * those of the second, by taking the smallest node of the second out and
+	 * joining with it in the middle.
+	 * 
+	 * @param left  The subtree of the smaller keys. Can be null.
+	 * @param right The subtree of the greater keys. Can be null.
+	 * 
+	 * @return The top of the joined subtree.
+	 */
+	private Node join2(Node left, Node right) {
+		if (left == null) {
+			return right;
+		} else if (right == null) {
+			return left;
+		}
+		Node minimum = getMinimumNode(right);
+		Node parent = minimum.parent;
+		if (parent == null) {
+			right = detach(minimum.right);
+		} else {
+			linkChild(parent, minimum, minimum.right);
+			right = rebalanceToTop(parent);
+		}
+		return joinNodes(left, minimum, right);
+	}
+	
+	/**
+	 * Fork/join task computing a set operation on two detached subtrees. The
+	 * second subtree is split at the top node of the first, the operation is
+	 * computed on the two pairs of halves (the pair on the left as a new task
+	 * when they are large) and the results are joined, with the top node in
+	 * between if the operation keeps its key.
+	 */
+	private class SetOperationTask extends RecursiveTask<Node> {
+		private static final long serialVersionUID = 1L;
+		private final SetOperation operation;
+		private final Node first, second;
+		
+		private SetOperationTask(SetOperation operation, Node first, 
+				Node second) {
+			this.operation = operation;
+			this.first = first;
+			this.second = second;
+		}
+		
+		@Override
+		protected Node compute() {
+			return apply(first, second);
+		}
+		
+		/**
+		 * Computes the operation on two detached subtrees.
+		 * 
+		 * @param first  The subtree of this BST, whose shape the recursion 
+		 * 				 follows. Can be null.
+		 * @param second The subtree of the other BST. Can be null.
+		 * 
+		 * @return The top of the detached result.
+		 */
+		private Node apply(Node first, Node second) {
+			if (first == null) {
+				return operation == SetOperation.UNION ? second : null;
+			} else if (second == null) {
+				return operation == SetOperation.INTERSECTION ? null : first;
+			}
+			boolean large = size(first) + size(second) > PARALLEL_THRESHOLD && 
+					inForkJoinPool();
+			Node left = detach(first.left), right = detach(first.right);
+			Split parts = splitNodes(second, first.key);
+			Node lower, upper;
+			if (large) {
+				SetOperationTask task = 
+						new SetOperationTask(operation, left, parts.less);
+				task.fork();
+				upper = apply(right, parts.greater);
+				lower = task.join();
+			} else {
+				lower = apply(left, parts.less);
+				upper = apply(right, parts.greater);
+			}
+			if (operation == SetOperation.UNION && parts.match != null) {
+				first.value = parts.match.value;
+			}
+			boolean keep = operation == SetOperation.UNION || 
+					(operation == SetOperation.INTERSECTION) == 
+					(parts.match != null);
+			return keep ? joinNodes(lower, first, upper) : join2(lower, upper);
+		}
+	}
+	
+	/**
+	 * Returns a new cursor over the BST. The cursor starts unpositioned; call
+	 * first, last or seek before reading from it.
+	 * 
+	 * @return A Cursor over this BST.
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+	
+	/**
+	 * Iterates over consecutive nodes of the BST by following successor or 
+	 * predecessor links, optionally stopping at a limit key. Fails fast if the
+	 * BST is structurally modified during the iteration.
+	 */
+	private class EntryIterator implements Iterator<KeyValuePair<K, V>> {
+		private Node next;
+		private final K limit;
+		private final boolean descending;
+		private final int expectedModCount;
+
+		/**
+		 * @param first      The first node to be returned. Can be null.
+		 * @param limit      The last key that may be returned (inclusive) or 
+		 * 					 null to run to the end of the BST.
+		 * @param descending True to iterate in descending key order.
+		 */
+		private EntryIterator(Node first, K limit, boolean descending) {
+			this.limit = limit;
+			this.descending = descending;
+			this.expectedModCount = modCount;
+			this.next = withinLimit(first) ? first : null;
+		}
+		
+		/**
+		 * Determines whether a node may still be returned by the iterator.
+		 * 
+		 * @param node The node to be checked. Can be null.
+		 * 
+		 * @return True if the node is not null and does not pass the limit.
+		 */
+		private boolean withinLimit(Node node) {
+			if (node == null || limit == null) {
+				return node != null;
+			}
+			int comparison = comparator.compare(node.key, limit);
+			return descending ? comparison >= 0 : comparison <= 0;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public KeyValuePair<K, V> next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			Node node = next;
+			Node following = descending ? predecessor(node) : successor(node);
+			next = withinLimit(following) ? following : null;
+			return new KeyValuePair<K, V>(node.key, node.value);
+		}
+	}
+	
+	/**
+	 * A seekable position within the BST that can move forwards and backwards
+	 * one node at a time. Reading the current node allocates nothing. A cursor
+	 * becomes invalid when it moves past either end of the BST and fails fast
+	 * if the BST is structurally modified after it was positioned.
+	 */
+	public class Cursor {
+		private Node current;
+		private int expectedModCount;
+
+		private Cursor() {
+		}
+		
+		/**
+		 * Positions the cursor on a node (or nowhere when node is null).
+		 * 
+		 * @param node The node to be positioned on.
+		 * 
+		 * @return True if the cursor is now on a node.
+		 */
+		private boolean moveTo(Node node) {
+			current = node;
+			expectedModCount = modCount;
+			return node != null;
+		}
+		
+		/**
+		 * Ensures the BST was not structurally modified since the cursor was
+		 * positioned.
+		 * 
+		 * @throws ConcurrentModificationException If it was modified.
+		 */
+		private void checkForComodification() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+		
+		/**
+		 * Positions the cursor on the node with the smallest key.
+		 * 
+		 * @return True if the BST is not empty.
+		 */
+		public boolean first() {
+			return moveTo(isEmpty() ? null : getMinimumNode(root));
+		}
+		
+		/**
+		 * Positions the cursor on the node with the largest key.
+		 * 
+		 * @return True if the BST is not empty.
+		 */
+		public boolean last() {
+			return moveTo(isEmpty() ? null : getMaximumNode(root));
+		}
+		
+		/**
+		 * Positions the cursor on the node with the smallest key greater than 
+		 * or equal to a key.
+		 * 
+		 * @param key The key to seek to.
+		 * 
+		 * @return True if such a node exists.
+		 */
+		public boolean seek(K key) {
+			return moveTo(ceilingNode(key));
+		}
+		
+		/**
+		 * Moves the cursor to the node with the next larger key.
+		 * 
+		 * @return True if the cursor is still on a node.
+		 */
+		public boolean next() {
+			if (current == null) {
+				return false;
+			}
+			checkForComodification();
+			current = successor(current);
+			return current != null;
+		}
+		
+		/**
+		 * Moves the cursor to the node with the next smaller key.
+		 * 
+		 * @return True if the cursor is still on a node.
+		 */
+		public boolean prev() {
+			if (current == null) {
+				return false;
+			}
+			checkForComodification();
+			current = predecessor(current);
+			return current != null;
+		}
+		
+		/**
+		 * Determines whether the cursor is positioned on a node.
+		 * 
+		 * @return True if getKey and getValue may be called.
+		 */
+		public boolean isValid() {
+			return current != null;
+		}
+		
+		/**
+		 * Returns the key of the node the cursor is positioned on.
+		 * 
+		 * @return The current key.
+		 * 
+		 * @throws NoSuchElementException If the cursor is not valid.
+		 */
+		public K getKey() {
+			checkValid();
+			return current.key;
+		}
+		
+		/**
+		 * Returns the value of the node the cursor is positioned on.
+		 * 
+		 * @return The current value.
+		 * 
+		 * @throws NoSuchElementException If the cursor is not valid.
+		 */
+		public V getValue() {
+			checkValid();
+			return current.value;
+		}
+		
+		/**
+		 * Ensures the cursor is positioned on a node that is still valid.
+		 * 
+		 * @throws NoSuchElementException If the cursor is not positioned.
+		 */
+		private void checkValid() {
+			if (current == null) {
+				throw new NoSuchElementException("Cursor is not positioned");
+			}
+			checkForComodification();
+		}
+	}
+	
+	/**
+	 * Compiles the BST into an immutable, read-optimized snapshot for 
+	 * lookup-heavy phases. The snapshot holds the entries in flat arrays 
+	 * (sorted and in Eytzinger order) instead of linked nodes, and later 
+	 * changes to the BST do not affect it. Runs in linear time.
+	 * 
+	 * @return A FrozenBinarySearchTree holding the entries of the BST.
+	 * 
+	 * @throws IllegalArgumentException If the BST holds more entries than a 
+	 * 									snapshot can, 2^30 - 1.
+	 */
+	public FrozenBinarySearchTree<K, V> freeze() {
+		return freezeAux(null);
+	}
+	
+	/**
+	 * Compiles the BST into an immutable, read-optimized snapshot whose 
+	 * lookups search the keys mapped to longs instead of the keys themselves.
+	 * The mapping must order the keys exactly as the comparator does, for 
+	 * the value of an Integer key under natural ordering; lookups then compare
+	 * inline longs and call the comparator only once.
+	 * 
+	 * @param keyOrder Maps each key to a long, the smaller key of any two to
+	 * 				   the smaller long.
+	 * 
+	 * @return A FrozenBinarySearchTree holding the entries of the BST.
+	 * 
+	 * @throws IllegalArgumentException If keyOrder is null or does not map 
+	 * 									the keys of the BST to strictly 
+	 * 									increasing longs, or if the BST holds
+	 * 									more entries than a snapshot can, 
+	 * 									2^30 - 1.
+	 */
+	public FrozenBinarySearchTree<K, V> freeze(
+			ToLongFunction<? super K> keyOrder) {
+		if (keyOrder == null) {
+			throw new IllegalArgumentException("keyOrder is null.");
+		}
+		return freezeAux(keyOrder);
+	}
+	
+	/**
+	 * Copies the entries of the BST in key order into a new snapshot.
+	 * 
+	 * @param keyOrder The order-preserving mapping of the keys to longs. Can
+	 * 				   be null.
+	 * 
+	 * @return A FrozenBinarySearchTree holding the entries of the BST.
+	 */
+	private FrozenBinarySearchTree<K, V> freezeAux(
+			ToLongFunction<? super K> keyOrder) {
+		Object[] keys = new Object[treeSize];
+		Object[] values = new Object[treeSize];
+		int i = 0;
+		for (Node node = isEmpty() ? null : getMinimumNode(root); node != null; 
+				node = successor(node)) {
+			keys[i] = node.key;
+			values[i++] = node.value;
+		}
+		return new FrozenBinarySearchTree<K, V>(keyComparator(), keyOrder, 
+				keys, values);
+	}
+	
+	/**
+	 * Creates and returns a subtree based on the original tree, containing 
+	 * nodes whose keys fall within the specified lower and upper limits. The 
+	 * in-range nodes are collected in sorted order and the subtree is built
+	 * perfectly balanced from them in linear time.
+	 *
+	 * @param lowerLimit The lower limit of the keys for the subtree (inclusive).
+	 * @param upperLimit The upper limit of the keys for the subtree (inclusive).
+	 * 
+	 * @return A new BinarySearchTree instance representing the subtree.
+	 * 
+	 * @throws IllegalArgumentException If the lowerLimit or upperLimit is null,
+	 *  								or if the lowerLimit is greater than the
+	 *  								upperLimit.
+	 */
+	public BinarySearchTree<K, V> subTree(K lowerLimit, K upperLimit) {
+		checkLimits(lowerLimit, upperLimit);
+		ArrayList<K> keys = new ArrayList<K>();
+		ArrayList<V> values = new ArrayList<V>();
+		for (Node node = ceilingNode(lowerLimit); node != null && 
+				comparator.compare(node.key, upperLimit) <= 0; 
+				node = successor(node)) {
+			keys.add(node.key);
+			values.add(node.value);
+		}
+		BinarySearchTree<K, V> answer = 
+				new BinarySearchTree<K, V>(keyComparator(), maxEntries, 
+						selfBalancing);
+		answer.root = buildBalanced(keys, values, 0, keys.size(), null);
+		answer.treeSize = keys.size();
+		return answer;
+	}
+	
+	/**
+	 * Returns a live, read-only view of the nodes whose keys fall within the 
+	 * specified lower and upper limits. The view shares the nodes of this BST
+	 * and reflects later changes to it; creating it costs nothing and every 
+	 * operation on it only visits the nodes it needs.
+	 *
+	 * @param lowerLimit The lower limit of the keys for the view (inclusive).
+	 * @param upperLimit The upper limit of the keys for the view (inclusive).
+	 * 
+	 * @return A RangeView over this BST.
+	 * 
+	 * @throws IllegalArgumentException If the lowerLimit or upperLimit is null,
+	 *  								or if the lowerLimit is greater than the
+	 *  								upperLimit.
+	 */
+	public RangeView subTreeView(K lowerLimit, K upperLimit) {
+		checkLimits(lowerLimit, upperLimit);
+		return new RangeView(lowerLimit, upperLimit);
+	}
+	
+	/**
+	 * Ensures a pair of range limits is valid.
+	 * 
+	 * @param lowerLimit The lower limit of the range (inclusive).
+	 * @param upperLimit The upper limit of the range (inclusive).
+	 * 
+	 * @throws IllegalArgumentException If the lowerLimit or upperLimit is null,
+	 *  								or if the lowerLimit is greater than the
+	 *  								upperLimit.
+	 */
+	private void checkLimits(K lowerLimit, K upperLimit) {
+		if (lowerLimit == null || upperLimit == null || 
+				comparator.compare(lowerLimit, upperLimit) > 0) {
+			throw new IllegalArgumentException("Illegal Argument");
+		}
+	}
+	
+	/**
+	 * Builds a perfectly balanced chain of new nodes from sorted keys and 
+	 * values. The middle entry becomes the root and each half becomes one of 
+	 * its subtrees, so the recursion is only logarithmically deep.
+	 * 
+	 * @param keys   The keys in ascending order.
+	 * @param values The values matching the keys.
+	 * @param low    The first index to be used (inclusive).
+	 * @param high   The last index to be used (exclusive).
+	 * @param parent The parent of the subtree being built.
+	 * 
+	 * @return The root of the subtree or null if the index range is empty.
+	 */
+	private Node buildBalanced(ArrayList<K> keys, ArrayList<V> values, 
+			int low, int high, Node parent) {
+		if (low >= high) {
+			return null;
+		}
+		int middle = (low + high) >>> 1;
+		Node node = new Node(keys.get(middle), values.get(middle));
+		node.parent = parent;
+		node.left = buildBalanced(keys, values, low, middle, node);
+		node.right = buildBalanced(keys, values, middle + 1, high, node);
+		update(node);
+		return node;
+	}
+	
+	/**
+	 * Returns the node with the smallest key greater than or equal to a key.
+	 * 
+	 * @param key The key to be compared against.
+	 * 
+	 * @return The matching node or null if every key is smaller.
+	 */
+	private Node ceilingNode(K key) {
+		Node current = root, answer = null;
+		while (current != null) {
+			int comparison = comparator.compare(key, current.key);
+			if (comparison == 0) {
+				return current;
+			} else if (comparison < 0) {
+				answer = current;
+				current = current.left;
+			} else {
+				current = current.right;
+			}
+		}
+		return answer;
+	}
+	
+	/**
+	 * Returns the node with the largest key less than or equal to a key.
+	 * 
+	 * @param key The key to be compared against.
+	 * 
+	 * @return The matching node or null if every key is larger.
+	 */
+	private Node floorNode(K key) {
+		Node current = root, answer = null;
+		while (current != null) {
+			int comparison = comparator.compare(key, current.key);
+			if (comparison == 0) {
+				return current;
+			} else if (comparison > 0) {
+				answer = current;
+				current = current.right;
+			} else {
+				current = current.left;
+			}
+		}
+		return answer;
+	}
+	
+	/**
+	 * Returns the node with the largest key strictly less than a key.
+	 * 
+	 * @param key The key to be compared against.
+	 * 
+	 * @return The matching node or null if no key is smaller.
+	 */
+	private Node lowerNode(K key) {
+		Node current = root, answer = null;
+		while (current != null) {
+			if (comparator.compare(key, current.key) > 0) {
+				answer = current;
+				current = current.right;
+			} else {
+				current = current.left;
+			}
+		}
+		return answer;
+	}
+	
+	/**
+	 * Returns the node with the smallest key strictly greater than a key.
+	 * 
+	 * @param key The key to be compared against.
+	 * 
+	 * @return The matching node or null if no key is larger.
+	 */
+	private Node higherNode(K key) {
+		Node current = root, answer = null;
+		while (current != null) {
+			if (comparator.compare(key, current.key) < 0) {
+				answer = current;
+				current = current.left;
+			} else {
+				current = current.right;
+			}
+		}
+		return answer;
+	}
+	
+	/**
+	 * A live, read-only view of the nodes of the BST whose keys fall within
+	 * a lower and upper limit (both inclusive). The view holds no nodes of its
+	 * own; every operation searches the BST it was created from.
+	 */
+	public class RangeView implements Iterable<KeyValuePair<K, V>> {
+		private final K lowerLimit, upperLimit;
+
+		private RangeView(K lowerLimit, K upperLimit) {
+			this.lowerLimit = lowerLimit;
+			this.upperLimit = upperLimit;
+		}
+		
+		/**
+		 * Determines whether a key falls within the limits of the view.
+		 * 
+		 * @param key The key to be checked.
+		 * 
+		 * @return True if lowerLimit <= key <= upperLimit.
+		 */
+		private boolean inRange(K key) {
+			return comparator.compare(key, lowerLimit) >= 0 && 
+					comparator.compare(key, upperLimit) <= 0;
+		}
+		
+		/**
+		 * Returns the first node of the view in ascending key order.
+		 * 
+		 * @return The first node or null if the view is empty.
+		 */
+		private Node first() {
+			Node node = ceilingNode(lowerLimit);
+			return node != null && comparator.compare(node.key, upperLimit) <= 0 
+					? node : null;
+		}
+		
+		/**
+		 * Returns the last node of the view in ascending key order.
+		 * 
+		 * @return The last node or null if the view is empty.
+		 */
+		private Node last() {
+			Node node = floorNode(upperLimit);
+			return node != null && comparator.compare(node.key, lowerLimit) >= 0 
+					? node : null;
+		}
+		
+		/**
+		 * Locates a node within the view and returns the KeyValuePair.
+		 * 
+		 * @param key The key of the node you'd like to find.
+		 * 
+		 * @return The node as a KeyValuePair or null if the key is not in the 
+		 * 		   view.
+		 */
+		public KeyValuePair<K, V> find(K key) {
+			if (!inRange(key)) {
+				return null;
+			}
+			return BinarySearchTree.this.find(key);
+		}
+		
+		/**
+		 * Determines whether the view contains a node with the key.
+		 * 
+		 * @param key The key of the node you'd like to find.
+		 * 
+		 * @return True if the key is in the view. False otherwise.
+		 */
+		public boolean containsKey(K key) {
+			return inRange(key) && BinarySearchTree.this.containsKey(key);
+		}
+		
+		/**
+		 * Determines whether the view contains no nodes.
+		 * 
+		 * @return True if no key of the BST falls within the limits.
+		 */
+		public boolean isEmpty() {
+			return first() == null;
+		}
+		
+		/**
+		 * Counts the nodes within the view from the ranks of its limits.
+		 * 
+		 * @return Number of nodes within the view.
+		 */
+		public int size() {
+			return rankAux(upperLimit, true) - rankAux(lowerLimit, false);
+		}
+		
+		/**
+		 * Locates and returns the minimum node within the view.
+		 * 
+		 * @return Minimum KeyValuePair.
+		 * 
+		 * @throws TreeIsEmptyException If the view is empty.
+		 */
+		public KeyValuePair<K, V> getMinimumKeyValue() 
+				throws TreeIsEmptyException {
+			Node node = first();
+			if (node == null) {
+				throw new TreeIsEmptyException("View is empty");
+			}
+			return new KeyValuePair<K, V>(node.key, node.value);
+		}
+		
+		/**
+		 * Locates and returns the maximum node within the view.
+		 * 
+		 * @return Maximum KeyValuePair.
+		 * 
+		 * @throws TreeIsEmptyException If the view is empty.
+		 */
+		public KeyValuePair<K, V> getMaximumKeyValue() 
+				throws TreeIsEmptyException {
+			Node node = last();
+			if (node == null) {
+				throw new TreeIsEmptyException("View is empty");
+			}
+			return new KeyValuePair<K, V>(node.key, node.value);
+		}
+		
+		/**
+		 * Conducts an inorder traversal of the view and processes each node 
+		 * upon arrival.
+		 * 
+		 * @param callback The processing to be done to each node while 
+		 * 				   traversing.
+		 */
+		public void processInorder(Callback<K, V> callback) {
+			if (callback == null) {
+				throw new IllegalArgumentException("callback is null.");
+			}
+			for (Node node = first(); node != null && 
+					comparator.compare(node.key, upperLimit) <= 0; 
+					node = successor(node)) {
+				callback.process(node.key, node.value);
+			}
+		}
+		
+		/**
+		 * Returns an iterator over the nodes of the view in ascending key 
+		 * order.
+		 * 
+		 * @return An ascending iterator of KeyValuePairs.
+		 */
+		@Override
+		public Iterator<KeyValuePair<K, V>> iterator() {
+			return new EntryIterator(first(), upperLimit, false);
+		}
+		
+		/**
+		 * Returns an iterator over the nodes of the view in descending key 
+		 * order.
+		 * 
+		 * @return A descending iterator of KeyValuePairs.
+		 */
+		public Iterator<KeyValuePair<K, V>> descendingIterator() {
+			return new EntryIterator(last(), lowerLimit, true);
+		}
+		
+		/**
+		 * Copies the view into a new, perfectly balanced BST.
+		 * 
+		 * @return A new BinarySearchTree holding the nodes of the view.
+		 */
+		public BinarySearchTree<K, V> toTree() {
+			return subTree(lowerLimit, upperLimit);
+		}
+		
+		/**
+		 * Overriding the toString method for the view.
+		 */
+		@Override
+		public String toString() {
+			if (isEmpty()) {
+				return "EMPTY TREE";
+			}
+			final StringBuilder answer = new StringBuilder();
+			processInorder(new Callback<K, V>() {
+				@Override
+				public void process(K key, V value) {
+					answer.append('{').append(key).append(':')
+							.append(value).append('}');
+				}
+			});
+			return answer.toString();
+		}
+	}
+	
+	/**
+	 * Creates and returns a TreeSet containing all the leaves (nodes with no 
+	 * children) of the BST. Equal values collapse into one and V must be 
+	 * Comparable; getLeavesValues(Collection) and processLeaves avoid both.
+	 * 
+	 * @return A TreeSet with all the leaves of the BST.
+	 */
+	public TreeSet<V> getLeavesValues() {
+		return getLeavesValues(new TreeSet<V>());
+	}
+	
+	/**
+	 * Adds the values of all the leaves (nodes with no children) of the BST 
+	 * to a caller-supplied collection in ascending key order.
+	 * 
+	 * @param target The collection receiving the values.
+	 * 
+	 * @return The target collection.
+	 * 
+	 * @throws IllegalArgumentException If the target is null.
+	 */
+	public <C extends Collection<? super V>> C getLeavesValues(C target) {
+		if (target == null) {
+			throw new IllegalArgumentException("target is null.");
+		}
+		for (Node leaf = isEmpty() ? null : leftmostLeaf(root); leaf != null; 
+				leaf = nextLeaf(leaf)) {
+			target.add(leaf.value);
+		}
+		return target;
+	}
+	
+	/**
+	 * Processes every leaf (node with no children) of the BST in ascending 
+	 * key order. The walk goes from leaf to leaf without visiting the other
+	 * nodes in between, and allocates nothing.
+	 * 
+	 * @param callback The processing to be done to each leaf.
+	 * 
+	 * @throws IllegalArgumentException If the callback is null.
+	 */
+	public void processLeaves(Callback<K, V> callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("callback is null.");
+		}
+		for (Node leaf = isEmpty() ? null : leftmostLeaf(root); leaf != null; 
+				leaf = nextLeaf(leaf)) {
+			callback.process(leaf.key, leaf.value);
+		}
+	}
+	
+	/**
+	 * Processes the leaves (nodes with no children) of the BST whose keys 
+	 * fall within the specified lower and upper limits, in ascending key 
+	 * order. Only the leaves within the limits and the nodes on the way to 
+	 * them are visited.
+	 * 
+	 * @param lowerLimit The lower limit of the keys (inclusive).
+	 * @param upperLimit The upper limit of the keys (inclusive).
+	 * @param callback   The processing to be done to each leaf.
+	 * 
+	 * @throws IllegalArgumentException If the callback, lowerLimit or 
+	 * 									upperLimit is null, or if the 
+	 * 									lowerLimit is greater than the 
+	 * 									upperLimit.
+	 */
+	public void processLeaves(K lowerLimit, K upperLimit, 
+			Callback<K, V> callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("callback is null.");
+		}
+		checkLimits(lowerLimit, upperLimit);
+		Node first = ceilingNode(lowerLimit);
+		if (first == null) {
+			return;
+		}
+		Node leaf;
+		if (first.left == null && first.right == null) {
+			leaf = first;
+		} else if (first.right != null) {
+			leaf = leftmostLeaf(first.right);
+		} else {
+			leaf = nextLeaf(first);
+		}
+		for (; leaf != null && comparator.compare(leaf.key, upperLimit) <= 0; 
+				leaf = nextLeaf(leaf)) {
+			callback.process(leaf.key, leaf.value);
+		}
+	}
+	
+	/**
+	 * Returns the number of leaves (nodes with no children) of the BST. The 
+	 * count is kept up to date by every add and delete, so this is O(1).
+	 * 
+	 * @return The number of leaves. 0 if the BST is empty.
+	 */
+	public int getLeafCount() {
+		return leaves(root);
+	}
+	
+	/**
+	 * Returns the leaf with the smallest key in the subtree rooted at a node.
+	 * 
+	 * @param node The root of the subtree.
+	 * 
+	 * @return The first leaf of the subtree in key order.
+	 */
+	private Node leftmostLeaf(Node node) {
+		while (node.left != null || node.right != null) {
+			node = node.left != null ? node.left : node.right;
+		}
+		return node;
+	}
+	
+	/**
+	 * Returns the first leaf whose key is larger than every key in the 
+	 * subtree rooted at a node.
+	 * 
+	 * @param node The root of the subtree, usually a leaf.
+	 * 
+	 * @return The next leaf in key order or null if there is none.
+	 */
+	private Node nextLeaf(Node node) {
+		Node parent = node.parent;
+		while (parent != null && (node == parent.right || parent.right == null)) {
+			node = parent;
+			parent = parent.parent;
+		}
+		return parent == null ? null : leftmostLeaf(parent.right);
+	}
 
 	/**
 	 * Returns the current number of nodes within the BST.
@@ -0,0 +1,260 @@
+package implementation;
+
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe, self-balancing (AVL) Binary Search Tree with the same
+ * operations as BinarySearchTree.
+ *
+ * The tree holds the current version of a PersistentBinarySearchTree in a
+ * volatile field (copy-on-write root). A write derives a new version, which
+ * copies only the nodes on the path from the root to the changed node, and
+ * then publishes it. Reads never lock: they load the current version once and
+ * search a structure that can no longer change, which lets any number of
+ * readers run in parallel with each other and with a writer. Writers are
+ * serialized by a single lock; each one costs O(log n) time and allocation.
+ *
+ * @param <K> The data type of the key of each node of the tree.
+ * @param <V> The data type of the data stored within each node of the tree.
+ */
+public class ConcurrentBinarySearchTree<K, V> {
+	private volatile PersistentBinarySearchTree<K, V> current;
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	/**
+	 * Constructor for the tree that assigns the comparator object and ensures
+	 * valid instance variables.
+	 *
+	 * @param comparator The comparator that will compare key's of each node.
+	 * @param maxEntries The maximum number of nodes that will be allowed in the
+	 * 					 tree.
+	 *
+	 * @throws IllegalArgumentException If the comparator object is null or
+	 * 									maxEntries < 1.
+	 */
+	public ConcurrentBinarySearchTree(Comparator<K> comparator, int maxEntries)
+			throws IllegalArgumentException {
+		this(new PersistentBinarySearchTree<K, V>(comparator, maxEntries));
+	}
+
+	/**
+	 * Constructor for a tree whose first version is an existing persistent
+	 * tree.
+	 *
+	 * @param initial The version the tree starts from.
+	 */
+	private ConcurrentBinarySearchTree(PersistentBinarySearchTree<K, V> initial) {
+		this.current = initial;
+	}
+
+	/**
+	 * Adds a node into the tree in the correct position, or replaces the value
+	 * of the node that already has the key.
+	 *
+	 * @param key   The key of the node to be stored.
+	 * @param value The value of the node to be stored.
+	 *
+	 * @return The updated tree.
+	 *
+	 * @throws TreeIsFullException If the tree is full and the key is not
+	 * 							   already in the tree.
+	 */
+	public ConcurrentBinarySearchTree<K, V> add(K key, V value)
+			throws TreeIsFullException {
+		writeLock.lock();
+		try {
+			current = current.add(key, value);
+			return this;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Deletes the node with a key.
+	 *
+	 * @param key The key of the node you'd like to delete.
+	 *
+	 * @return The updated tree if the node was deleted and null if the key
+	 * 		   parameter is not assigned to a node within the tree.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public ConcurrentBinarySearchTree<K, V> delete(K key)
+			throws TreeIsEmptyException {
+		writeLock.lock();
+		try {
+			PersistentBinarySearchTree<K, V> updated = current.delete(key);
+			if (updated == current) {
+				return null;
+			}
+			current = updated;
+			return this;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a consistent point-in-time snapshot of the tree in O(1). The
+	 * snapshot is immutable, so it can be traversed without locks while
+	 * writers keep changing this tree.
+	 *
+	 * @return The current version of the tree.
+	 */
+	public PersistentBinarySearchTree<K, V> snapshot() {
+		return current;
+	}
+
+	/**
+	 * Locates a node within the tree based upon the parameters key and returns
+	 * the KeyValuePair. Never blocks.
+	 *
+	 * @param key The key of the node you'd like to find.
+	 *
+	 * @return The node as a KeyValuePair or null if no node has the key.
+	 */
+	public KeyValuePair<K, V> find(K key) {
+		return current.find(key);
+	}
+
+	/**
+	 * Returns the value assigned to a key. Never blocks.
+	 *
+	 * @param key The key of the node you'd like to find.
+	 *
+	 * @return The value of the node or null if no node has the key.
+	 */
+	public V get(K key) {
+		return current.get(key);
+	}
+
+	/**
+	 * Determines whether a node within the tree has the key. Never blocks.
+	 *
+	 * @param key The key of the node you'd like to find.
+	 *
+	 * @return True if a node has the key. False otherwise.
+	 */
+	public boolean containsKey(K key) {
+		return current.containsKey(key);
+	}
+
+	/**
+	 * Locates and returns the minimum node within the tree with respect to
+	 * the nodes' keys.
+	 *
+	 * @return Minimum KeyValuePair.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public KeyValuePair<K, V> getMinimumKeyValue() throws TreeIsEmptyException {
+		return current.getMinimumKeyValue();
+	}
+
+	/**
+	 * Locates and returns the maximum node within the tree with respect to
+	 * the nodes' keys.
+	 *
+	 * @return Maximum KeyValuePair.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public KeyValuePair<K, V> getMaximumKeyValue() throws TreeIsEmptyException {
+		return current.getMaximumKeyValue();
+	}
+
+	/**
+	 * Conducts an inorder traversal of the version of the tree current at the
+	 * time of the call. Writes made during the traversal are not seen.
+	 *
+	 * @param callback The processing to be done to each node while traversing.
+	 */
+	public void processInorder(Callback<K, V> callback) {
+		current.processInorder(callback);
+	}
+
+	/**
+	 * Creates and returns a subtree based on the current version of the tree,
+	 * containing nodes whose keys fall within the specified lower and upper
+	 * limits.
+	 *
+	 * @param lowerLimit The lower limit of the keys for the subtree (inclusive).
+	 * @param upperLimit The upper limit of the keys for the subtree (inclusive).
+	 *
+	 * @return A new ConcurrentBinarySearchTree representing the subtree.
+	 *
+	 * @throws IllegalArgumentException If the lowerLimit or upperLimit is null,
+	 *  								or if the lowerLimit is greater than the
+	 *  								upperLimit.
+	 */
+	public ConcurrentBinarySearchTree<K, V> subTree(K lowerLimit, K upperLimit) {
+		return new ConcurrentBinarySearchTree<K, V>(
+				current.subTree(lowerLimit, upperLimit));
+	}
+
+	/**
+	 * Creates and returns a TreeSet containing all the leaves (nodes with no
+	 * children) of the current version of the tree.
+	 *
+	 * @return A TreeSet with all the leaves of the tree.
+	 */
+	public TreeSet<V> getLeavesValues() {
+		return current.getLeavesValues();
+	}
+
+	/**
+	 * Overriding the toString method for the tree.
+	 */
+	@Override
+	public String toString() {
+		return current.toString();
+	}
+
+	/**
+	 * Determines whether the tree is empty or not.
+	 *
+	 * @return True if the tree has no nodes. False otherwise.
+	 */
+	public boolean isEmpty() {
+		return current.isEmpty();
+	}
+
+	/**
+	 * Returns the number of nodes within the tree.
+	 *
+	 * @return Number of nodes in the tree.
+	 */
+	public int size() {
+		return current.size();
+	}
+
+	/**
+	 * Returns the current number of nodes within the tree.
+	 *
+	 * @return Current number of nodes within the tree.
+	 */
+	public int getTreeSize() {
+		return size();
+	}
+
+	/**
+	 * Returns the height of the tree.
+	 *
+	 * @return Height of the tree. 0 if the tree is empty.
+	 */
+	public int getHeight() {
+		return current.getHeight();
+	}
+
+	/**
+	 * Determines whether the tree is full or not.
+	 *
+	 * @return True if the number of nodes equals maxEntries. False otherwise.
+	 */
+	public boolean isFull() {
+		return current.isFull();
+	}
+}
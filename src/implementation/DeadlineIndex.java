@@ -0,0 +1,170 @@
+package implementation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Secondary index of the expiry deadlines of the nodes of a tree: a binary 
+ * min-heap of deadlines, plus a map from each node to its place in the heap 
+ * so that a node's deadline can be changed or dropped in O(log n) when the 
+ * node is updated or deleted. The node that expires first is always at the 
+ * top, so finding the expired nodes costs only as much as there are of them.
+ * Nodes are tracked by identity.
+ *
+ * @param <N> The type of the indexed nodes.
+ */
+class DeadlineIndex<N> {
+	
+	/**
+	 * The deadline of one node and its position in the heap.
+	 */
+	private static class Deadline<N> {
+		private final N node;
+		private long deadline;
+		private int index;
+		
+		private Deadline(N node) {
+			this.node = node;
+		}
+	}
+	
+	private final HashMap<N, Deadline<N>> deadlines = 
+			new HashMap<N, Deadline<N>>();
+	private final ArrayList<Deadline<N>> heap = new ArrayList<Deadline<N>>();
+	
+	/**
+	 * Sets or changes the deadline of a node.
+	 * 
+	 * @param node     The node.
+	 * @param deadline The time at which the node expires, on the clock of 
+	 * 				   the tree.
+	 */
+	void set(N node, long deadline) {
+		Deadline<N> entry = deadlines.get(node);
+		if (entry == null) {
+			entry = new Deadline<N>(node);
+			entry.index = heap.size();
+			heap.add(entry);
+			deadlines.put(node, entry);
+		}
+		entry.deadline = deadline;
+		siftDown(siftUp(entry.index));
+	}
+	
+	/**
+	 * Drops the deadline of a node, if it has one.
+	 * 
+	 * @param node The node.
+	 */
+	void remove(N node) {
+		Deadline<N> entry = deadlines.remove(node);
+		if (entry == null) {
+			return;
+		}
+		Deadline<N> last = heap.remove(heap.size() - 1);
+		if (last != entry) {
+			last.index = entry.index;
+			heap.set(entry.index, last);
+			siftDown(siftUp(entry.index));
+		}
+	}
+	
+	/**
+	 * Returns the node whose deadline passed first, if any has.
+	 * 
+	 * @param now The current time, on the clock of the tree.
+	 * 
+	 * @return The node with the earliest deadline if it is at or before now.
+	 * 		   Null otherwise.
+	 */
+	N firstExpired(long now) {
+		return heap.isEmpty() || heap.get(0).deadline > now ? null : 
+				heap.get(0).node;
+	}
+	
+	/**
+	 * Returns the deadline of a node.
+	 * 
+	 * @param node The node.
+	 * 
+	 * @return The deadline or Long.MAX_VALUE if the node has none.
+	 */
+	long deadline(N node) {
+		Deadline<N> entry = deadlines.get(node);
+		return entry == null ? Long.MAX_VALUE : entry.deadline;
+	}
+	
+	/**
+	 * Returns every node that has a deadline, in no particular order.
+	 * 
+	 * @return A new list of the nodes.
+	 */
+	List<N> nodes() {
+		return new ArrayList<N>(deadlines.keySet());
+	}
+	
+	/**
+	 * Returns the number of nodes that have a deadline.
+	 * 
+	 * @return The number of nodes.
+	 */
+	int size() {
+		return heap.size();
+	}
+	
+	/**
+	 * Moves an entry up the heap while its deadline is earlier than its 
+	 * parent's.
+	 * 
+	 * @param index The position of the entry.
+	 * 
+	 * @return The final position of the entry.
+	 */
+	private int siftUp(int index) {
+		Deadline<N> entry = heap.get(index);
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			Deadline<N> above = heap.get(parent);
+			if (above.deadline <= entry.deadline) {
+				break;
+			}
+			above.index = index;
+			heap.set(index, above);
+			index = parent;
+		}
+		entry.index = index;
+		heap.set(index, entry);
+		return index;
+	}
+	
+	/**
+	 * Moves an entry down the heap while its deadline is later than one of 
+	 * its children's.
+	 * 
+	 * @param index The position of the entry.
+	 */
+	private void siftDown(int index) {
+		Deadline<N> entry = heap.get(index);
+		int size = heap.size();
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && 
+					heap.get(child + 1).deadline < heap.get(child).deadline) {
+				child++;
+			}
+			Deadline<N> below = heap.get(child);
+			if (below.deadline >= entry.deadline) {
+				break;
+			}
+			below.index = index;
+			heap.set(index, below);
+			index = child;
+		}
+		entry.index = index;
+		heap.set(index, entry);
+	}
+}
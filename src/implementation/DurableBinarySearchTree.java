@@ -0,0 +1,327 @@
+package implementation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * Self-balancing BinarySearchTree whose mutations survive a crash. The tree
+ * lives in a directory holding a snapshot (a MappedTreeFile) and a
+ * WriteAheadLog of every add and delete made since that snapshot. Each
+ * mutation is logged before it is applied. Opening the directory loads the
+ * snapshot in linear time and replays the log onto it, and checkpoint writes
+ * a new snapshot and empties the log.
+ *
+ * @param <K> The data type of the key of each node of the tree.
+ * @param <V> The data type of the data stored within each node of the tree.
+ */
+public class DurableBinarySearchTree<K, V> implements Closeable {
+
+	private static final String SNAPSHOT = "snapshot.bst";
+	private static final String LOG = "wal.log";
+
+	private final Path directory;
+	private final BinarySearchTree<K, V> tree;
+	private final WriteAheadLog<K, V> log;
+	private final TreeSerializer<K> keySerializer;
+	private final TreeSerializer<V> valueSerializer;
+
+	/**
+	 * Constructor for a recovered tree.
+	 *
+	 * @param directory       The directory holding the snapshot and the log.
+	 * @param tree            The recovered tree.
+	 * @param log             The log, opened for appending.
+	 * @param keySerializer   The serializer of the keys.
+	 * @param valueSerializer The serializer of the values.
+	 */
+	private DurableBinarySearchTree(Path directory, BinarySearchTree<K, V> tree,
+			WriteAheadLog<K, V> log, TreeSerializer<K> keySerializer,
+			TreeSerializer<V> valueSerializer) {
+		this.directory = directory;
+		this.tree = tree;
+		this.log = log;
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+	}
+
+	/**
+	 * Opens the tree stored in a directory, creating an empty one if the
+	 * directory holds none, and recovers every logged mutation.
+	 *
+	 * @param directory       The directory holding the snapshot and the log.
+	 * @param comparator      The comparator that will compare key's of each
+	 * 						  node.
+	 * @param maxEntries      The maximum number of nodes that will be allowed
+	 * 						  in the tree.
+	 * @param keySerializer   The serializer of the keys.
+	 * @param valueSerializer The serializer of the values.
+	 * @param policy          When logged mutations are forced onto disk.
+	 * @param groupSize       The number of mutations forced together under
+	 * 						  GROUP_COMMIT. Ignored by the other policies.
+	 *
+	 * @return The recovered tree.
+	 *
+	 * @throws IOException              If the snapshot or the log cannot be
+	 * 									read.
+	 * @throws TreeIsFullException      If the recovered tree holds more than
+	 * 									maxEntries nodes.
+	 * @throws IllegalArgumentException If any argument is null, maxEntries
+	 * 									< 1 or groupSize < 1.
+	 */
+	public static <K, V> DurableBinarySearchTree<K, V> open(Path directory,
+			Comparator<K> comparator, int maxEntries,
+			TreeSerializer<K> keySerializer, TreeSerializer<V> valueSerializer,
+			WriteAheadLog.SyncPolicy policy, int groupSize)
+			throws IOException, TreeIsFullException {
+		if (directory == null || comparator == null || keySerializer == null ||
+				valueSerializer == null || policy == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		Files.createDirectories(directory);
+		Path snapshot = directory.resolve(SNAPSHOT);
+		BinarySearchTree<K, V> tree;
+		if (Files.exists(snapshot)) {
+			tree = MappedTreeFile.open(snapshot, comparator, keySerializer,
+					valueSerializer).toTree(maxEntries);
+		} else {
+			tree = new BinarySearchTree<K, V>(comparator, maxEntries, true);
+		}
+		Path logFile = directory.resolve(LOG);
+		WriteAheadLog.replay(logFile, tree, keySerializer, valueSerializer);
+		WriteAheadLog<K, V> log = new WriteAheadLog<K, V>(logFile,
+				keySerializer, valueSerializer, policy, groupSize);
+		return new DurableBinarySearchTree<K, V>(directory, tree, log,
+				keySerializer, valueSerializer);
+	}
+
+	/**
+	 * Logs and then applies an add.
+	 *
+	 * @param key   The key of the node to be stored.
+	 * @param value The value of the node to be stored.
+	 *
+	 * @return The updated tree.
+	 *
+	 * @throws TreeIsFullException If the tree is full and the key is not
+	 * 							   already in the tree. Nothing is logged.
+	 * @throws IOException         If the mutation cannot be logged, in which
+	 * 							   case it is not applied.
+	 */
+	public DurableBinarySearchTree<K, V> add(K key, V value)
+			throws TreeIsFullException, IOException {
+		if (tree.isFull() && !tree.containsKey(key)) {
+			throw new TreeIsFullException("Tree is already full");
+		}
+		log.logAdd(key, value);
+		tree.add(key, value);
+		return this;
+	}
+
+	/**
+	 * Logs and then applies a delete. Deleting a missing key logs nothing.
+	 *
+	 * @param key The key of the node you'd like to delete.
+	 *
+	 * @return The updated tree if the node was deleted and null if the key
+	 * 		   parameter is not assigned to a node within the tree.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 * @throws IOException          If the mutation cannot be logged, in which
+	 * 								case it is not applied.
+	 */
+	public DurableBinarySearchTree<K, V> delete(K key)
+			throws TreeIsEmptyException, IOException {
+		if (tree.isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		if (!tree.containsKey(key)) {
+			return null;
+		}
+		log.logDelete(key);
+		tree.delete(key);
+		return this;
+	}
+
+	/**
+	 * Forces every logged mutation onto disk, whatever the sync policy.
+	 *
+	 * @throws IOException If the log cannot be written.
+	 */
+	public void sync() throws IOException {
+		log.sync();
+	}
+
+	/**
+	 * Writes the tree to a new snapshot and empties the log. The snapshot is
+	 * written to a temporary file and moved into place, so a crash at any
+	 * point leaves either the old snapshot and the full log or the new
+	 * snapshot and a log whose records it already reflects.
+	 *
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	public void checkpoint() throws IOException {
+		log.sync();
+		Path temporary = directory.resolve(SNAPSHOT + ".tmp");
+		MappedTreeFile.save(tree, temporary, keySerializer, valueSerializer);
+		Files.move(temporary, directory.resolve(SNAPSHOT),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		log.reset();
+	}
+
+	/**
+	 * Locates a node within the tree based upon the parameters key and returns
+	 * the KeyValuePair.
+	 *
+	 * @param key The key of the node you'd like to find.
+	 *
+	 * @return The node as a KeyValuePair or null if no node has the key.
+	 */
+	public KeyValuePair<K, V> find(K key) {
+		return tree.find(key);
+	}
+
+	/**
+	 * Returns the value assigned to a key.
+	 *
+	 * @param key The key of the node you'd like to find.
+	 *
+	 * @return The value of the node or null if no node has the key.
+	 */
+	public V get(K key) {
+		return tree.get(key);
+	}
+
+	/**
+	 * Determines whether a node within the tree has the key.
+	 *
+	 * @param key The key of the node you'd like to find.
+	 *
+	 * @return True if a node has the key. False otherwise.
+	 */
+	public boolean containsKey(K key) {
+		return tree.containsKey(key);
+	}
+
+	/**
+	 * Locates and returns the minimum node within the tree with respect to
+	 * the nodes' keys.
+	 *
+	 * @return Minimum KeyValuePair.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public KeyValuePair<K, V> getMinimumKeyValue() throws TreeIsEmptyException {
+		return tree.getMinimumKeyValue();
+	}
+
+	/**
+	 * Locates and returns the maximum node within the tree with respect to
+	 * the nodes' keys.
+	 *
+	 * @return Maximum KeyValuePair.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public KeyValuePair<K, V> getMaximumKeyValue() throws TreeIsEmptyException {
+		return tree.getMaximumKeyValue();
+	}
+
+	/**
+	 * Conducts an inorder traversal of the tree and processes each node upon
+	 * arrival.
+	 *
+	 * @param callback The processing to be done to each node while traversing.
+	 */
+	public void processInorder(Callback<K, V> callback) {
+		tree.processInorder(callback);
+	}
+
+	/**
+	 * Creates and returns an in-memory subtree containing the nodes whose keys
+	 * fall within the specified lower and upper limits. The subtree is not
+	 * durable.
+	 *
+	 * @param lowerLimit The lower limit of the keys for the subtree (inclusive).
+	 * @param upperLimit The upper limit of the keys for the subtree (inclusive).
+	 *
+	 * @return A new BinarySearchTree representing the subtree.
+	 *
+	 * @throws IllegalArgumentException If the lowerLimit or upperLimit is null,
+	 *  								or if the lowerLimit is greater than the
+	 *  								upperLimit.
+	 */
+	public BinarySearchTree<K, V> subTree(K lowerLimit, K upperLimit) {
+		return tree.subTree(lowerLimit, upperLimit);
+	}
+
+	/**
+	 * Creates and returns a TreeSet containing all the leaves (nodes with no
+	 * children) of the tree.
+	 *
+	 * @return A TreeSet with all the leaves of the tree.
+	 */
+	public TreeSet<V> getLeavesValues() {
+		return tree.getLeavesValues();
+	}
+
+	/**
+	 * Overriding the toString method for the tree.
+	 */
+	@Override
+	public String toString() {
+		return tree.toString();
+	}
+
+	/**
+	 * Determines whether the tree is empty or not.
+	 *
+	 * @return True if the tree has no nodes. False otherwise.
+	 */
+	public boolean isEmpty() {
+		return tree.isEmpty();
+	}
+
+	/**
+	 * Returns the number of nodes within the tree.
+	 *
+	 * @return Number of nodes in the tree.
+	 */
+	public int size() {
+		return tree.size();
+	}
+
+	/**
+	 * Returns the height of the tree.
+	 *
+	 * @return Height of the tree. 0 if the tree is empty.
+	 */
+	public int getHeight() {
+		return tree.getHeight();
+	}
+
+	/**
+	 * Determines whether the tree is full or not.
+	 *
+	 * @return True if the number of nodes equals maxEntries. False otherwise.
+	 */
+	public boolean isFull() {
+		return tree.isFull();
+	}
+
+	/**
+	 * Forces every logged mutation onto disk and closes the log. The tree
+	 * must not be changed afterwards.
+	 *
+	 * @throws IOException If the log cannot be written or closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		log.close();
+	}
+}
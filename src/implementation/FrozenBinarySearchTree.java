@@ -0,0 +1,409 @@
+package implementation;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable, read-optimized snapshot of a BinarySearchTree, created by 
+ * BinarySearchTree.freeze. Instead of Node objects linked by pointers, the 
+ * snapshot keeps its entries in flat arrays:
+ * 
+ * - the keys and values in ascending key order, for minimum, maximum, range
+ *   scans and ordered iteration, which become sequential array reads; and
+ * - a copy of the keys in Eytzinger (breadth-first) order, where the children
+ *   of slot k sit at slots 2k and 2k + 1, for lookups.
+ * 
+ * A lookup descends the Eytzinger array with k = 2k + (key[k] < key ? 1 : 0),
+ * which has no data-dependent branch other than the comparator itself, and
+ * finds the lower bound of the key from the bits of the final k. The first 
+ * levels of the search share a few cache lines, and each level's slot is 
+ * computed without first loading a node, so the processor can fetch the next
+ * levels ahead of the comparisons instead of waiting on every pointer.
+ * 
+ * The keys in the Eytzinger array are references, so once the snapshot 
+ * outgrows the cache each level still loads a key object from wherever it was
+ * allocated. A snapshot frozen with a key order (an order-preserving mapping
+ * of the keys to longs) keeps those longs inline in the Eytzinger array 
+ * instead, and its lookups neither follow a reference nor call the comparator
+ * until the final equality check.
+ * 
+ * The snapshot is safe to search from any number of threads and never 
+ * reflects later changes to the tree it was frozen from.
+ *
+ * @param <K> The data type of the key of each entry of the snapshot.
+ * @param <V> The data type of the data stored within each entry of the 
+ * 			  snapshot.
+ */
+public class FrozenBinarySearchTree<K, V> 
+		implements Iterable<KeyValuePair<K, V>> {
+	
+	/**
+	 * The largest number of entries a snapshot can hold, so that the slots
+	 * visited by a lookup (up to twice the size plus one) fit in an int.
+	 */
+	static final int MAX_SIZE = (1 << 30) - 1;
+
+	private final Comparator<K> comparator;
+	private final Object[] keys, values;
+	private final Object[] eytzinger;
+	private final long[] ordinals;
+	private final ToLongFunction<? super K> keyOrder;
+	private final int[] rank;
+	private final int count;
+	
+	/**
+	 * Constructor for a snapshot of entries already in ascending key order. 
+	 * The arrays are adopted, not copied.
+	 * 
+	 * @param comparator The comparator that orders the keys.
+	 * @param keyOrder   Maps the keys to longs in the same order as the 
+	 * 					 comparator. Can be null.
+	 * @param keys       The keys in ascending order.
+	 * @param values     The values, in the order of their keys.
+	 * 
+	 * @throws IllegalArgumentException If there are more than MAX_SIZE keys,
+	 * 									or if keyOrder does not map the keys
+	 * 									to strictly increasing longs.
+	 */
+	@SuppressWarnings("unchecked")
+	FrozenBinarySearchTree(Comparator<K> comparator, 
+			ToLongFunction<? super K> keyOrder, Object[] keys, Object[] values) {
+		if (keys.length > MAX_SIZE) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		this.comparator = comparator;
+		this.keyOrder = keyOrder;
+		this.keys = keys;
+		this.values = values;
+		this.count = keys.length;
+		this.rank = new int[count + 1];
+		long[] sortedOrdinals = null;
+		if (keyOrder != null) {
+			sortedOrdinals = new long[count];
+			for (int i = 0; i < count; i++) {
+				sortedOrdinals[i] = keyOrder.applyAsLong((K) keys[i]);
+				if (i > 0 && sortedOrdinals[i] <= sortedOrdinals[i - 1]) {
+					throw new IllegalArgumentException("keyOrder does not " + 
+							"preserve the order of the keys.");
+				}
+			}
+		}
+		this.eytzinger = keyOrder == null ? new Object[count + 1] : null;
+		this.ordinals = keyOrder == null ? null : new long[count + 1];
+		// An inorder walk of the implicit tree visits its slots in key order.
+		int slot = 1;
+		while (slot <= count >> 1) {
+			slot <<= 1;
+		}
+		for (int i = 0; i < count; i++) {
+			if (keyOrder == null) {
+				eytzinger[slot] = keys[i];
+			} else {
+				ordinals[slot] = sortedOrdinals[i];
+			}
+			rank[slot] = i;
+			if (slot <= (count - 1) >> 1) {
+				slot = (slot << 1) + 1;
+				while (slot <= count >> 1) {
+					slot <<= 1;
+				}
+			} else {
+				slot >>>= Integer.numberOfTrailingZeros(~slot) + 1;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the position in key order of the first key greater than or 
+	 * equal to a key.
+	 * 
+	 * @param key The key to be searched for.
+	 * 
+	 * @return The position of the lower bound, or size() if every key is 
+	 * 		   smaller.
+	 */
+	@SuppressWarnings("unchecked")
+	private int lowerBound(K key) {
+		int slot = 1;
+		if (keyOrder != null) {
+			long ordinal = keyOrder.applyAsLong(key);
+			while (slot <= count) {
+				slot = (slot << 1) + (ordinals[slot] < ordinal ? 1 : 0);
+			}
+		} else {
+			while (slot <= count) {
+				slot = (slot << 1) + 
+						(comparator.compare((K) eytzinger[slot], key) < 0 ? 1 : 0);
+			}
+		}
+		// Drop the trailing right turns taken after the last left turn, and 
+		// that left turn itself, to get back to the slot where it was taken.
+		slot >>>= Integer.numberOfTrailingZeros(~slot) + 1;
+		return slot == 0 ? count : rank[slot];
+	}
+	
+	/**
+	 * Returns the position in key order of a key.
+	 * 
+	 * @param key The key to be searched for.
+	 * 
+	 * @return The position of the key or -1 if no entry has the key.
+	 */
+	@SuppressWarnings("unchecked")
+	private int indexOf(K key) {
+		int index = lowerBound(key);
+		return index < count && comparator.compare((K) keys[index], key) == 0 ? 
+				index : -1;
+	}
+	
+	/**
+	 * Returns the entry at a position in key order as a KeyValuePair.
+	 * 
+	 * @param index The position of the entry.
+	 * 
+	 * @return The entry as a KeyValuePair.
+	 */
+	@SuppressWarnings("unchecked")
+	private KeyValuePair<K, V> pair(int index) {
+		return new KeyValuePair<K, V>((K) keys[index], (V) values[index]);
+	}
+	
+	/**
+	 * Locates an entry within the snapshot based upon the parameters key and 
+	 * returns the KeyValuePair.
+	 * 
+	 * @param key The key of the entry you'd like to find.
+	 * 
+	 * @return The entry as a KeyValuePair or null if no entry has the key.
+	 */
+	public KeyValuePair<K, V> find(K key) {
+		int index = indexOf(key);
+		return index < 0 ? null : pair(index);
+	}
+	
+	/**
+	 * Returns the value assigned to a key.
+	 * 
+	 * @param key The key of the entry you'd like to find.
+	 * 
+	 * @return The value of the entry or null if no entry has the key.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(K key) {
+		int index = indexOf(key);
+		return index < 0 ? null : (V) values[index];
+	}
+	
+	/**
+	 * Determines whether an entry within the snapshot has the key.
+	 * 
+	 * @param key The key of the entry you'd like to find.
+	 * 
+	 * @return True if an entry has the key. False otherwise.
+	 */
+	public boolean containsKey(K key) {
+		return indexOf(key) >= 0;
+	}
+	
+	/**
+	 * Returns the entry with the smallest key.
+	 * 
+	 * @return Minimum KeyValuePair.
+	 * 
+	 * @throws TreeIsEmptyException If the snapshot holds no entries.
+	 */
+	public KeyValuePair<K, V> getMinimumKeyValue() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		return pair(0);
+	}
+	
+	/**
+	 * Returns the entry with the largest key.
+	 * 
+	 * @return Maximum KeyValuePair.
+	 * 
+	 * @throws TreeIsEmptyException If the snapshot holds no entries.
+	 */
+	public KeyValuePair<K, V> getMaximumKeyValue() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		return pair(count - 1);
+	}
+	
+	/**
+	 * Processes every entry of the snapshot in ascending key order.
+	 * 
+	 * @param callback The processing to be done to each entry.
+	 * 
+	 * @throws IllegalArgumentException If the callback is null.
+	 */
+	@SuppressWarnings("unchecked")
+	public void processInorder(Callback<K, V> callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("callback is null.");
+		}
+		for (int i = 0; i < count; i++) {
+			callback.process((K) keys[i], (V) values[i]);
+		}
+	}
+	
+	/**
+	 * Processes the entries whose keys fall within the specified lower and 
+	 * upper limits, in ascending key order.
+	 * 
+	 * @param lowerLimit The lower limit of the keys (inclusive).
+	 * @param upperLimit The upper limit of the keys (inclusive).
+	 * @param callback   The processing to be done to each entry.
+	 * 
+	 * @throws IllegalArgumentException If the callback, lowerLimit or 
+	 * 									upperLimit is null, or if the 
+	 * 									lowerLimit is greater than the 
+	 * 									upperLimit.
+	 */
+	@SuppressWarnings("unchecked")
+	public void processRange(K lowerLimit, K upperLimit, 
+			Callback<K, V> callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("callback is null.");
+		}
+		int end = rangeEnd(lowerLimit, upperLimit);
+		for (int i = lowerBound(lowerLimit); i < end; i++) {
+			callback.process((K) keys[i], (V) values[i]);
+		}
+	}
+	
+	/**
+	 * Creates and returns a snapshot of the entries whose keys fall within the
+	 * specified lower and upper limits.
+	 * 
+	 * @param lowerLimit The lower limit of the keys (inclusive).
+	 * @param upperLimit The upper limit of the keys (inclusive).
+	 * 
+	 * @return A new FrozenBinarySearchTree holding the entries in range.
+	 * 
+	 * @throws IllegalArgumentException If the lowerLimit or upperLimit is 
+	 * 									null, or if the lowerLimit is greater
+	 * 									than the upperLimit.
+	 */
+	public FrozenBinarySearchTree<K, V> subTree(K lowerLimit, K upperLimit) {
+		int end = rangeEnd(lowerLimit, upperLimit);
+		int start = Math.min(lowerBound(lowerLimit), end);
+		Object[] rangeKeys = new Object[end - start];
+		Object[] rangeValues = new Object[end - start];
+		System.arraycopy(keys, start, rangeKeys, 0, rangeKeys.length);
+		System.arraycopy(values, start, rangeValues, 0, rangeValues.length);
+		return new FrozenBinarySearchTree<K, V>(comparator, keyOrder, rangeKeys, 
+				rangeValues);
+	}
+	
+	/**
+	 * Validates the limits of a range and returns the position just past its
+	 * last entry.
+	 * 
+	 * @param lowerLimit The lower limit of the keys (inclusive).
+	 * @param upperLimit The upper limit of the keys (inclusive).
+	 * 
+	 * @return The position of the first key greater than upperLimit, or 
+	 * 		   size() if there is none.
+	 * 
+	 * @throws IllegalArgumentException If the lowerLimit or upperLimit is 
+	 * 									null, or if the lowerLimit is greater
+	 * 									than the upperLimit.
+	 */
+	@SuppressWarnings("unchecked")
+	private int rangeEnd(K lowerLimit, K upperLimit) {
+		if (lowerLimit == null || upperLimit == null || 
+				comparator.compare(lowerLimit, upperLimit) > 0) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		int end = lowerBound(upperLimit);
+		if (end < count && comparator.compare((K) keys[end], upperLimit) == 0) {
+			end++;
+		}
+		return end;
+	}
+	
+	/**
+	 * Returns an iterator over the entries in ascending key order.
+	 * 
+	 * @return An iterator of KeyValuePairs in ascending key order.
+	 */
+	@Override
+	public Iterator<KeyValuePair<K, V>> iterator() {
+		return new Iterator<KeyValuePair<K, V>>() {
+			private int next;
+			
+			@Override
+			public boolean hasNext() {
+				return next < count;
+			}
+			
+			@Override
+			public KeyValuePair<K, V> next() {
+				if (next == count) {
+					throw new NoSuchElementException();
+				}
+				return pair(next++);
+			}
+		};
+	}
+	
+	/**
+	 * Loads every entry of the snapshot into a new self-balancing 
+	 * BinarySearchTree in linear time, to be changed again.
+	 * 
+	 * @param maxEntries The maximum number of nodes that will be allowed in
+	 * 					 the tree.
+	 * 
+	 * @return A new BinarySearchTree holding the snapshot's entries.
+	 * 
+	 * @throws TreeIsFullException      If the snapshot holds more than 
+	 * 									maxEntries entries.
+	 * @throws IllegalArgumentException If maxEntries < 1.
+	 */
+	public BinarySearchTree<K, V> toTree(int maxEntries) 
+			throws TreeIsFullException {
+		return BinarySearchTree.bulkLoad(comparator, maxEntries, 
+				StreamSupport.stream(spliterator(), false));
+	}
+	
+	/**
+	 * Overriding the toString method in the format of BinarySearchTree.
+	 */
+	@Override
+	public String toString() {
+		if (isEmpty()) {
+			return "EMPTY TREE";
+		}
+		StringBuilder answer = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			answer.append('{').append(keys[i]).append(':').append(values[i])
+					.append('}');
+		}
+		return answer.toString();
+	}
+	
+	/**
+	 * Determines whether the snapshot holds no entries.
+	 * 
+	 * @return True if the snapshot has no entries. False otherwise.
+	 */
+	public boolean isEmpty() {
+		return count == 0;
+	}
+	
+	/**
+	 * Returns the number of entries within the snapshot.
+	 * 
+	 * @return Number of entries in the snapshot.
+	 */
+	public int size() {
+		return count;
+	}
+}
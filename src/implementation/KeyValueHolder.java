@@ -0,0 +1,33 @@
+package implementation;
+
+/**
+ * Reusable, mutable holder for a key/value pair retrieved from the tree. A 
+ * single holder can be passed to every lookup so that reading from the tree 
+ * does not allocate a new KeyValuePair per call.
+ * 
+ * @param <K> The data type of the key.
+ * @param <V> The data type of the value.
+ */
+public class KeyValueHolder<K, V> {
+	private K key;
+	private V value;
+
+	/**
+	 * Stores a key and value in the holder, replacing the previous contents.
+	 * 
+	 * @param key   The key to be stored.
+	 * @param value The value to be stored.
+	 */
+	void set(K key, V value) {
+		this.key = key;
+		this.value = value;
+	}
+
+	public K getKey() {
+		return key;
+	}
+
+	public V getValue() {
+		return value;
+	}
+}
@@ -0,0 +1,616 @@
+package implementation;
+
+import java.util.TreeSet;
+
+/**
+ * Binary Search Tree specialized for primitive long keys. It offers the same
+ * operations as BinarySearchTree, but keys are stored as longs and compared
+ * inline, so no key is ever boxed and no Comparator is called while walking 
+ * the tree. Like BinarySearchTree it is non-selfbalancing by default, can be 
+ * constructed as a self-balancing (AVL) tree and never recurses over the 
+ * height of the tree.
+ *
+ * @param <V> The data type of the data stored within each node of the tree.
+ */
+public class LongBinarySearchTree<V> {
+	
+	/**
+	 * A node within the tree. Each node has a left child, a right child and a
+	 * parent. (Children and the parent can be null).
+	 */
+	private class Node {
+		private long key;
+		private V value;
+		private Node left, right, parent;
+		private int height;
+
+		private Node(long key, V value) {
+			this.key = key;
+			this.value = value;
+			this.height = 1;
+		}
+	}
+
+	private Node root;
+	private int treeSize, maxEntries;
+	private boolean selfBalancing;
+	
+	/**
+	 * Constructor for a non-selfbalancing tree.
+	 * 
+	 * @param maxEntries The maximum number of nodes that will be allowed in the
+	 * 					 tree.
+	 * 
+	 * @throws IllegalArgumentException If maxEntries < 1.
+	 */
+	public LongBinarySearchTree(int maxEntries) throws IllegalArgumentException {
+		this(maxEntries, false);
+	}
+	
+	/**
+	 * Constructor for the tree that ensures valid instance variables and 
+	 * chooses whether the tree rebalances itself (AVL) after every add and 
+	 * delete.
+	 * 
+	 * @param maxEntries    The maximum number of nodes that will be allowed in
+	 * 						the tree.
+	 * @param selfBalancing True if the tree should keep its height logarithmic
+	 * 						by rebalancing (AVL). False for a plain BST.
+	 * 
+	 * @throws IllegalArgumentException If maxEntries < 1.
+	 */
+	public LongBinarySearchTree(int maxEntries, boolean selfBalancing) 
+			throws IllegalArgumentException {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		this.maxEntries = maxEntries;
+		this.selfBalancing = selfBalancing;
+	}
+	
+	/**
+	 * Adds a node into the tree in the correct position, or replaces the value
+	 * of the node that already has the key.
+	 * 
+	 * @param key   The key of the node to be stored.
+	 * @param value The value of the node to be stored.
+	 * 
+	 * @return The updated tree.
+	 * 
+	 * @throws TreeIsFullException If the tree is full and the key is not 
+	 * 							   already in the tree.
+	 */
+	public LongBinarySearchTree<V> add(long key, V value) 
+			throws TreeIsFullException {
+		if (isEmpty()) {
+			root = new Node(key, value);
+			treeSize++;
+			return this;
+		}
+		Node current = root, parent = null;
+		while (current != null) {
+			if (key == current.key) {
+				current.value = value;
+				return this;
+			}
+			parent = current;
+			current = key < current.key ? current.left : current.right;
+		}
+		if (isFull()) {
+			throw new TreeIsFullException("Tree is already full");
+		}
+		Node node = new Node(key, value);
+		node.parent = parent;
+		if (key < parent.key) {
+			parent.left = node;
+		} else {
+			parent.right = node;
+		}
+		treeSize++;
+		rebalanceUpwards(parent);
+		return this;
+	}
+	
+	/**
+	 * Returns the height of a node, treating a null child as height 0.
+	 * 
+	 * @param node The node whose height is requested.
+	 * 
+	 * @return The number of levels in the subtree rooted at node.
+	 */
+	private int height(Node node) {
+		return node == null ? 0 : node.height;
+	}
+	
+	/**
+	 * Recomputes the cached height of a node from those of its children.
+	 * 
+	 * @param node The node to be updated.
+	 */
+	private void update(Node node) {
+		node.height = 1 + Math.max(height(node.left), height(node.right));
+	}
+	
+	/**
+	 * Rebalances a node and every one of its ancestors up to the root.
+	 * 
+	 * @param node The deepest node whose subtree changed. Can be null.
+	 */
+	private void rebalanceUpwards(Node node) {
+		while (node != null) {
+			node = rebalance(node).parent;
+		}
+	}
+	
+	/**
+	 * Updates a node and, if the tree is self-balancing, rotates it so that 
+	 * the heights of its children differ by at most one.
+	 * 
+	 * @param node The node to be rebalanced.
+	 * 
+	 * @return The node now occupying node's position in the tree.
+	 */
+	private Node rebalance(Node node) {
+		update(node);
+		if (!selfBalancing) {
+			return node;
+		}
+		int balance = height(node.left) - height(node.right);
+		if (balance > 1) {
+			if (height(node.left.left) < height(node.left.right)) {
+				rotateLeft(node.left);
+			}
+			return rotateRight(node);
+		} else if (balance < -1) {
+			if (height(node.right.right) < height(node.right.left)) {
+				rotateRight(node.right);
+			}
+			return rotateLeft(node);
+		}
+		return node;
+	}
+	
+	/**
+	 * Rotates a node to the right, lifting its left child into its position.
+	 * 
+	 * @param node The node to be rotated.
+	 * 
+	 * @return The node's former left child, the new root of the subtree.
+	 */
+	private Node rotateRight(Node node) {
+		Node pivot = node.left;
+		node.left = pivot.right;
+		if (pivot.right != null) {
+			pivot.right.parent = node;
+		}
+		replaceChild(node.parent, node, pivot);
+		pivot.right = node;
+		node.parent = pivot;
+		update(node);
+		update(pivot);
+		return pivot;
+	}
+	
+	/**
+	 * Rotates a node to the left, lifting its right child into its position.
+	 * 
+	 * @param node The node to be rotated.
+	 * 
+	 * @return The node's former right child, the new root of the subtree.
+	 */
+	private Node rotateLeft(Node node) {
+		Node pivot = node.right;
+		node.right = pivot.left;
+		if (pivot.left != null) {
+			pivot.left.parent = node;
+		}
+		replaceChild(node.parent, node, pivot);
+		pivot.left = node;
+		node.parent = pivot;
+		update(node);
+		update(pivot);
+		return pivot;
+	}
+	
+	/**
+	 * Replaces a child of a node (or the root of the tree when the parent is 
+	 * null) with another node and fixes the new child's parent reference.
+	 * 
+	 * @param parent   The parent whose child is replaced. Null for the root.
+	 * @param oldChild The child currently attached to the parent.
+	 * @param newChild The node taking oldChild's place. Can be null.
+	 */
+	private void replaceChild(Node parent, Node oldChild, Node newChild) {
+		if (parent == null) {
+			root = newChild;
+		} else if (parent.left == oldChild) {
+			parent.left = newChild;
+		} else {
+			parent.right = newChild;
+		}
+		if (newChild != null) {
+			newChild.parent = parent;
+		}
+	}
+	
+	/**
+	 * Iteratively locates the node holding a key.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return The node with the key or null if no node has the key.
+	 */
+	private Node findNode(long key) {
+		Node current = root;
+		while (current != null && current.key != key) {
+			current = key < current.key ? current.left : current.right;
+		}
+		return current;
+	}
+	
+	/**
+	 * Locates a node within the tree based upon the parameters key and returns
+	 * the KeyValuePair. The key is boxed only for the returned pair.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return The node as a KeyValuePair or null if no node has the key.
+	 */
+	public KeyValuePair<Long, V> find(long key) {
+		Node node = findNode(key);
+		return node == null ? null : new KeyValuePair<Long, V>(key, node.value);
+	}
+	
+	/**
+	 * Returns the value assigned to a key.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return The value of the node or null if no node has the key.
+	 */
+	public V get(long key) {
+		Node node = findNode(key);
+		return node == null ? null : node.value;
+	}
+	
+	/**
+	 * Determines whether a node within the tree has the key.
+	 * 
+	 * @param key The key of the node you'd like to find.
+	 * 
+	 * @return True if a node has the key. False otherwise.
+	 */
+	public boolean containsKey(long key) {
+		return findNode(key) != null;
+	}
+	
+	/**
+	 * Deletes a node within the tree and handles all node location cases.
+	 * 
+	 * @param key The key of the node you'd like to delete.
+	 * 
+	 * @return The updated tree if the node was deleted and null if the key 
+	 * 		   parameter is not assigned to a node within the tree.
+	 * 
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public LongBinarySearchTree<V> delete(long key) throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		Node node = findNode(key);
+		if (node == null) {
+			return null;
+		}
+		Node rebalanceFrom;
+		if (node.left == null || node.right == null) {
+			Node child = node.left != null ? node.left : node.right;
+			rebalanceFrom = node.parent;
+			replaceChild(node.parent, node, child);
+		} else {
+			Node successor = getMinimumNode(node.right);
+			if (successor.parent == node) {
+				rebalanceFrom = successor;
+			} else {
+				rebalanceFrom = successor.parent;
+				replaceChild(successor.parent, successor, successor.right);
+				successor.right = node.right;
+				successor.right.parent = successor;
+			}
+			replaceChild(node.parent, node, successor);
+			successor.left = node.left;
+			successor.left.parent = successor;
+		}
+		treeSize--;
+		rebalanceUpwards(rebalanceFrom);
+		return this;
+	}
+	
+	/**
+	 * Returns the minimum node below a node.
+	 * 
+	 * @param node The node you'd like to begin traversal at.
+	 * 
+	 * @return The node with the smallest key below node.
+	 */
+	private Node getMinimumNode(Node node) {
+		while (node.left != null) {
+			node = node.left;
+		}
+		return node;
+	}
+	
+	/**
+	 * Returns the maximum node below a node.
+	 * 
+	 * @param node The node you'd like to begin traversal at.
+	 * 
+	 * @return The node with the largest key below node.
+	 */
+	private Node getMaximumNode(Node node) {
+		while (node.right != null) {
+			node = node.right;
+		}
+		return node;
+	}
+	
+	/**
+	 * Returns the node that follows a node in an inorder traversal.
+	 * 
+	 * @param node The node whose successor is requested.
+	 * 
+	 * @return The node with the next larger key or null if there is none.
+	 */
+	private Node successor(Node node) {
+		if (node.right != null) {
+			return getMinimumNode(node.right);
+		}
+		Node parent = node.parent;
+		while (parent != null && node == parent.right) {
+			node = parent;
+			parent = parent.parent;
+		}
+		return parent;
+	}
+	
+	/**
+	 * Returns the minimum key within the tree.
+	 * 
+	 * @return Minimum key.
+	 * 
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public long minKey() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		return getMinimumNode(root).key;
+	}
+	
+	/**
+	 * Returns the maximum key within the tree.
+	 * 
+	 * @return Maximum key.
+	 * 
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public long maxKey() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		return getMaximumNode(root).key;
+	}
+	
+	/**
+	 * Locates and returns the minimum node within the tree.
+	 * 
+	 * @return Minimum KeyValuePair.
+	 * 
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public KeyValuePair<Long, V> getMinimumKeyValue() 
+			throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		Node node = getMinimumNode(root);
+		return new KeyValuePair<Long, V>(node.key, node.value);
+	}
+	
+	/**
+	 * Locates and returns the maximum node within the tree.
+	 * 
+	 * @return Maximum KeyValuePair.
+	 * 
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public KeyValuePair<Long, V> getMaximumKeyValue() 
+			throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		Node node = getMaximumNode(root);
+		return new KeyValuePair<Long, V>(node.key, node.value);
+	}
+	
+	/**
+	 * Conducts an inorder traversal of the tree and processes each node upon 
+	 * arrival.
+	 * 
+	 * @param callback The processing to be done to each node while traversing.
+	 */
+	public void processInorder(LongCallback<V> callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("callback is null.");
+		}
+		if (isEmpty()) {
+			return;
+		}
+		for (Node node = getMinimumNode(root); node != null; 
+				node = successor(node)) {
+			callback.process(node.key, node.value);
+		}
+	}
+	
+	/**
+	 * Creates and returns a perfectly balanced subtree containing the nodes 
+	 * whose keys fall within the specified lower and upper limits.
+	 *
+	 * @param lowerLimit The lower limit of the keys for the subtree (inclusive).
+	 * @param upperLimit The upper limit of the keys for the subtree (inclusive).
+	 * 
+	 * @return A new LongBinarySearchTree instance representing the subtree.
+	 * 
+	 * @throws IllegalArgumentException If the lowerLimit is greater than the
+	 *  								upperLimit.
+	 */
+	public LongBinarySearchTree<V> subTree(long lowerLimit, long upperLimit) {
+		if (lowerLimit > upperLimit) {
+			throw new IllegalArgumentException("Illegal Argument");
+		}
+		Node first = null;
+		for (Node current = root; current != null; ) {
+			if (current.key >= lowerLimit) {
+				first = current;
+				current = current.left;
+			} else {
+				current = current.right;
+			}
+		}
+		int count = 0;
+		for (Node node = first; node != null && node.key <= upperLimit; 
+				node = successor(node)) {
+			count++;
+		}
+		long[] keys = new long[count];
+		Object[] values = new Object[count];
+		Node node = first;
+		for (int i = 0; i < count; i++, node = successor(node)) {
+			keys[i] = node.key;
+			values[i] = node.value;
+		}
+		LongBinarySearchTree<V> answer = 
+				new LongBinarySearchTree<V>(maxEntries, selfBalancing);
+		answer.root = answer.buildBalanced(keys, values, 0, count, null);
+		answer.treeSize = count;
+		return answer;
+	}
+	
+	/**
+	 * Builds a perfectly balanced chain of new nodes from sorted keys and 
+	 * values. The recursion is only logarithmically deep.
+	 * 
+	 * @param keys   The keys in ascending order.
+	 * @param values The values matching the keys.
+	 * @param low    The first index to be used (inclusive).
+	 * @param high   The last index to be used (exclusive).
+	 * @param parent The parent of the subtree being built.
+	 * 
+	 * @return The root of the subtree or null if the index range is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	private Node buildBalanced(long[] keys, Object[] values, int low, int high, 
+			Node parent) {
+		if (low >= high) {
+			return null;
+		}
+		int middle = (low + high) >>> 1;
+		Node node = new Node(keys[middle], (V) values[middle]);
+		node.parent = parent;
+		node.left = buildBalanced(keys, values, low, middle, node);
+		node.right = buildBalanced(keys, values, middle + 1, high, node);
+		update(node);
+		return node;
+	}
+	
+	/**
+	 * Creates and returns a TreeSet containing all the leaves (nodes with no 
+	 * children) of the tree.
+	 * 
+	 * @return A TreeSet with all the leaves of the tree.
+	 */
+	public TreeSet<V> getLeavesValues() {
+		TreeSet<V> answer = new TreeSet<V>();
+		if (isEmpty()) {
+			return answer;
+		}
+		for (Node node = getMinimumNode(root); node != null; 
+				node = successor(node)) {
+			if (node.left == null && node.right == null) {
+				answer.add(node.value);
+			}
+		}
+		return answer;
+	}
+	
+	/**
+	 * Overriding the toString method for the tree.
+	 */
+	@Override
+	public String toString() {
+		if (isEmpty()) {
+			return "EMPTY TREE";
+		}
+		StringBuilder answer = new StringBuilder();
+		for (Node node = getMinimumNode(root); node != null; 
+				node = successor(node)) {
+			answer.append('{').append(node.key).append(':')
+					.append(node.value).append('}');
+		}
+		return answer.toString();
+	}
+	
+	/**
+	 * Determines whether the tree is empty or not.
+	 * 
+	 * @return True if the tree has no nodes. False otherwise.
+	 */
+	public boolean isEmpty() {
+		return root == null;
+	}
+	
+	/**
+	 * Returns the number of nodes within the tree.
+	 * 
+	 * @return Number of nodes in the tree.
+	 */
+	public int size() {
+		return treeSize;
+	}
+	
+	/**
+	 * Returns the current number of nodes within the tree.
+	 * 
+	 * @return Current number of nodes within the tree.
+	 */
+	public int getTreeSize() {
+		return treeSize;
+	}
+	
+	/**
+	 * Returns the height of the tree.
+	 * 
+	 * @return Height of the tree. 0 if the tree is empty.
+	 */
+	public int getHeight() {
+		return height(root);
+	}
+	
+	/**
+	 * Determines whether the tree is self-balancing or not.
+	 * 
+	 * @return True if the tree rebalances itself after each add and delete.
+	 */
+	public boolean isSelfBalancing() {
+		return selfBalancing;
+	}
+	
+	/**
+	 * Determines whether the tree is full or not.
+	 * 
+	 * @return True if treeSize equals maxEntries. False otherwise.
+	 */
+	public boolean isFull() {
+		return treeSize == maxEntries;
+	}
+}
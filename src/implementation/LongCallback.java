@@ -0,0 +1,10 @@
+package implementation;
+
+/**
+ * Interface implemented by classes that will perform processing over a node
+ * of a LongBinarySearchTree. The key is passed as a primitive, so processing
+ * a node does not box it.
+ */
+public interface LongCallback<V> {
+	public void process(long key, V value);
+}
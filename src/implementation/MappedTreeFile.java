@@ -0,0 +1,414 @@
+package implementation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.StreamSupport;
+
+/**
+ * A BinarySearchTree saved to a compact sorted file and opened through
+ * memory-mapped I/O. Opening a file reads only its header; lookups binary
+ * search the file in place and deserialize just the keys they compare
+ * against, so a saved tree can answer queries immediately after a restart.
+ * toTree loads the whole file into a balanced in-memory tree in linear time.
+ *
+ * The file holds a 16 byte header (magic number, format version, entry
+ * count and a reserved int), a table with the file offset of each entry in
+ * ascending key order, and then the entries, each a serialized key followed
+ * by its serialized value. The file is mapped in chunks of 1 GiB and no entry
+ * crosses a chunk boundary, so files larger than 2 GiB are supported. An
+ * opened file is read-only and safe to search from any number of threads.
+ *
+ * @param <K> The data type of the key of each entry of the file.
+ * @param <V> The data type of the data stored within each entry of the file.
+ */
+public class MappedTreeFile<K, V> implements Iterable<KeyValuePair<K, V>> {
+
+	private static final int MAGIC = 0x42535446;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 16;
+	private static final int CHUNK_SHIFT = 30;
+	private static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+	private static final long CHUNK_MASK = CHUNK_BYTES - 1;
+	private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+	private final MappedByteBuffer[] chunks;
+	private final int count;
+	private final Comparator<K> comparator;
+	private final TreeSerializer<K> keySerializer;
+	private final TreeSerializer<V> valueSerializer;
+
+	/**
+	 * Constructor for an opened file.
+	 *
+	 * @param chunks          The mapped chunks of the file.
+	 * @param count           The number of entries in the file.
+	 * @param comparator      The comparator the entries are sorted by.
+	 * @param keySerializer   The serializer of the keys.
+	 * @param valueSerializer The serializer of the values.
+	 */
+	private MappedTreeFile(MappedByteBuffer[] chunks, int count,
+			Comparator<K> comparator, TreeSerializer<K> keySerializer,
+			TreeSerializer<V> valueSerializer) {
+		this.chunks = chunks;
+		this.count = count;
+		this.comparator = comparator;
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+	}
+
+	/**
+	 * Saves a tree to a file, replacing any existing file. The entries are
+	 * written in ascending key order and the file is forced onto disk before
+	 * the method returns.
+	 *
+	 * @param tree            The tree to be saved.
+	 * @param file            The file to be written.
+	 * @param keySerializer   The serializer of the keys.
+	 * @param valueSerializer The serializer of the values.
+	 *
+	 * @throws IOException              If the file cannot be written.
+	 * @throws IllegalArgumentException If any argument is null or an entry
+	 * 									serializes to more than 1 GiB.
+	 */
+	public static <K, V> void save(BinarySearchTree<K, V> tree, Path file,
+			TreeSerializer<K> keySerializer, TreeSerializer<V> valueSerializer)
+			throws IOException {
+		if (tree == null || file == null || keySerializer == null ||
+				valueSerializer == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		int count = tree.size();
+		long[] offsets = new long[count];
+		long position = HEADER_BYTES + 8L * count;
+		int index = 0;
+		for (KeyValuePair<K, V> pair : tree) {
+			long length = keySerializer.sizeOf(pair.getKey()) +
+					(long) valueSerializer.sizeOf(pair.getValue());
+			if (length > CHUNK_BYTES) {
+				throw new IllegalArgumentException("Illegal Argument");
+			}
+			if ((position & CHUNK_MASK) + length > CHUNK_BYTES) {
+				position = (position | CHUNK_MASK) + 1;
+			}
+			offsets[index++] = position;
+			position += length;
+		}
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0);
+			for (long offset : offsets) {
+				if (buffer.remaining() < 8) {
+					flush(channel, buffer);
+				}
+				buffer.putLong(offset);
+			}
+			index = 0;
+			for (KeyValuePair<K, V> pair : tree) {
+				int length = keySerializer.sizeOf(pair.getKey()) +
+						valueSerializer.sizeOf(pair.getValue());
+				if (channel.position() + buffer.position() != offsets[index] ||
+						buffer.remaining() < length) {
+					// Skipped padding bytes before a chunk boundary are never
+					// read, so their contents do not matter.
+					flush(channel, buffer);
+					channel.position(offsets[index]);
+				}
+				ByteBuffer target = buffer.capacity() < length ?
+						ByteBuffer.allocate(length) : buffer;
+				keySerializer.write(pair.getKey(), target);
+				valueSerializer.write(pair.getValue(), target);
+				if (target != buffer) {
+					flush(channel, target);
+				}
+				index++;
+			}
+			flush(channel, buffer);
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * Writes out and empties a buffer.
+	 *
+	 * @param channel The channel receiving the bytes.
+	 * @param buffer  The buffer holding the bytes.
+	 *
+	 * @throws IOException If the channel cannot be written.
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Opens a saved file by mapping it into memory. Only the header is read.
+	 *
+	 * @param file            The file to be opened.
+	 * @param comparator      The comparator the tree was sorted by.
+	 * @param keySerializer   The serializer the keys were saved with.
+	 * @param valueSerializer The serializer the values were saved with.
+	 *
+	 * @return The opened file.
+	 *
+	 * @throws IOException              If the file cannot be read or was not
+	 * 									written by save.
+	 * @throws IllegalArgumentException If any argument is null.
+	 */
+	public static <K, V> MappedTreeFile<K, V> open(Path file,
+			Comparator<K> comparator, TreeSerializer<K> keySerializer,
+			TreeSerializer<V> valueSerializer) throws IOException {
+		if (file == null || comparator == null || keySerializer == null ||
+				valueSerializer == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.READ)) {
+			long length = channel.size();
+			MappedByteBuffer[] chunks =
+					new MappedByteBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT)];
+			for (int i = 0; i < chunks.length; i++) {
+				long start = (long) i << CHUNK_SHIFT;
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+						Math.min(CHUNK_BYTES, length - start));
+			}
+			if (length < HEADER_BYTES || chunks[0].getInt(0) != MAGIC ||
+					chunks[0].getInt(4) != VERSION) {
+				throw new IOException("Not a tree file: " + file);
+			}
+			int count = chunks[0].getInt(8);
+			if (count < 0 || HEADER_BYTES + 8L * count > length) {
+				throw new IOException("Corrupt tree file: " + file);
+			}
+			return new MappedTreeFile<K, V>(chunks, count, comparator,
+					keySerializer, valueSerializer);
+		}
+	}
+
+	/**
+	 * Returns a buffer positioned at the start of an entry.
+	 *
+	 * @param index The index of the entry in ascending key order.
+	 *
+	 * @return A buffer whose next bytes are the entry's key and value.
+	 */
+	private ByteBuffer entry(int index) {
+		long position = HEADER_BYTES + 8L * index;
+		long offset = chunks[(int) (position >>> CHUNK_SHIFT)]
+				.getLong((int) (position & CHUNK_MASK));
+		ByteBuffer buffer = chunks[(int) (offset >>> CHUNK_SHIFT)].duplicate();
+		buffer.position((int) (offset & CHUNK_MASK));
+		return buffer;
+	}
+
+	/**
+	 * Binary searches the file for a key, deserializing only the keys it
+	 * compares against.
+	 *
+	 * @param key The key to be searched for.
+	 *
+	 * @return A buffer positioned at the key's value, or null if no entry
+	 * 		   has the key.
+	 */
+	private ByteBuffer search(K key) {
+		int low = 0, high = count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			ByteBuffer buffer = entry(middle);
+			int result = comparator.compare(keySerializer.read(buffer), key);
+			if (result < 0) {
+				low = middle + 1;
+			} else if (result > 0) {
+				high = middle - 1;
+			} else {
+				return buffer;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the entry at an index.
+	 *
+	 * @param index The index of the entry in ascending key order.
+	 *
+	 * @return The entry as a KeyValuePair.
+	 */
+	private KeyValuePair<K, V> read(int index) {
+		ByteBuffer buffer = entry(index);
+		K key = keySerializer.read(buffer);
+		return new KeyValuePair<K, V>(key, valueSerializer.read(buffer));
+	}
+
+	/**
+	 * Locates an entry within the file based upon the parameters key and
+	 * returns the KeyValuePair.
+	 *
+	 * @param key The key of the entry you'd like to find.
+	 *
+	 * @return The entry as a KeyValuePair or null if no entry has the key.
+	 */
+	public KeyValuePair<K, V> find(K key) {
+		ByteBuffer buffer = search(key);
+		return buffer == null ? null :
+				new KeyValuePair<K, V>(key, valueSerializer.read(buffer));
+	}
+
+	/**
+	 * Returns the value assigned to a key.
+	 *
+	 * @param key The key of the entry you'd like to find.
+	 *
+	 * @return The value of the entry or null if no entry has the key.
+	 */
+	public V get(K key) {
+		ByteBuffer buffer = search(key);
+		return buffer == null ? null : valueSerializer.read(buffer);
+	}
+
+	/**
+	 * Determines whether an entry within the file has the key.
+	 *
+	 * @param key The key of the entry you'd like to find.
+	 *
+	 * @return True if an entry has the key. False otherwise.
+	 */
+	public boolean containsKey(K key) {
+		return search(key) != null;
+	}
+
+	/**
+	 * Returns the entry with the smallest key.
+	 *
+	 * @return Minimum KeyValuePair.
+	 *
+	 * @throws TreeIsEmptyException If the file holds no entries.
+	 */
+	public KeyValuePair<K, V> getMinimumKeyValue() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		return read(0);
+	}
+
+	/**
+	 * Returns the entry with the largest key.
+	 *
+	 * @return Maximum KeyValuePair.
+	 *
+	 * @throws TreeIsEmptyException If the file holds no entries.
+	 */
+	public KeyValuePair<K, V> getMaximumKeyValue() throws TreeIsEmptyException {
+		if (isEmpty()) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		return read(count - 1);
+	}
+
+	/**
+	 * Processes every entry of the file in ascending key order.
+	 *
+	 * @param callback The processing to be done to each entry.
+	 */
+	public void processInorder(Callback<K, V> callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("callback is null.");
+		}
+		for (int i = 0; i < count; i++) {
+			ByteBuffer buffer = entry(i);
+			K key = keySerializer.read(buffer);
+			callback.process(key, valueSerializer.read(buffer));
+		}
+	}
+
+	/**
+	 * Returns an iterator over the entries in ascending key order.
+	 *
+	 * @return An iterator of KeyValuePairs in ascending key order.
+	 */
+	@Override
+	public Iterator<KeyValuePair<K, V>> iterator() {
+		return new Iterator<KeyValuePair<K, V>>() {
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				return next < count;
+			}
+
+			@Override
+			public KeyValuePair<K, V> next() {
+				if (next == count) {
+					throw new NoSuchElementException();
+				}
+				return read(next++);
+			}
+		};
+	}
+
+	/**
+	 * Loads every entry of the file into a new self-balancing
+	 * BinarySearchTree in linear time. The entries are already sorted, so the
+	 * tree is built directly in balanced form instead of by repeated adds.
+	 *
+	 * @param maxEntries The maximum number of nodes that will be allowed in
+	 * 					 the tree.
+	 *
+	 * @return A new BinarySearchTree holding the file's entries.
+	 *
+	 * @throws TreeIsFullException      If the file holds more than maxEntries
+	 * 									entries.
+	 * @throws IllegalArgumentException If maxEntries < 1.
+	 */
+	public BinarySearchTree<K, V> toTree(int maxEntries)
+			throws TreeIsFullException {
+		return BinarySearchTree.bulkLoad(comparator, maxEntries,
+				StreamSupport.stream(spliterator(), false));
+	}
+
+	/**
+	 * Overriding the toString method in the format of BinarySearchTree.
+	 */
+	@Override
+	public String toString() {
+		if (isEmpty()) {
+			return "EMPTY TREE";
+		}
+		StringBuilder answer = new StringBuilder();
+		for (KeyValuePair<K, V> pair : this) {
+			answer.append('{').append(pair.getKey()).append(':')
+					.append(pair.getValue()).append('}');
+		}
+		return answer.toString();
+	}
+
+	/**
+	 * Determines whether the file holds no entries.
+	 *
+	 * @return True if the file has no entries. False otherwise.
+	 */
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * Returns the number of entries within the file.
+	 *
+	 * @return Number of entries in the file.
+	 */
+	public int size() {
+		return count;
+	}
+}
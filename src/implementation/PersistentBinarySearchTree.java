@@ -0,0 +1,588 @@
+package implementation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+/**
+ * Immutable (persistent), self-balancing (AVL) Binary Search Tree with the 
+ * same operations as BinarySearchTree.
+ *
+ * A version of the tree never changes. add and delete return a new version
+ * that copies only the nodes on the path from the root to the changed node
+ * and shares every other node with the version it was derived from, so an
+ * update costs O(log n) time and allocation. Any version can be read by any
+ * number of threads without locking.
+ *
+ * @param <K> The data type of the key of each node of the tree.
+ * @param <V> The data type of the data stored within each node of the tree.
+ */
+public class PersistentBinarySearchTree<K, V> 
+		implements Iterable<KeyValuePair<K, V>> {
+
+	/**
+	 * An immutable node within the tree. Height and subtree size are computed
+	 * once when the node is created.
+	 */
+	private static final class Node<K, V> {
+		private final K key;
+		private final V value;
+		private final Node<K, V> left, right;
+		private final int height, size;
+
+		private Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+			this.key = key;
+			this.value = value;
+			this.left = left;
+			this.right = right;
+			this.height = 1 + Math.max(height(left), height(right));
+			this.size = 1 + size(left) + size(right);
+		}
+	}
+
+	private final Node<K, V> root;
+	private final int maxEntries;
+	private final Comparator<K> comparator;
+
+	/**
+	 * Constructor for an empty tree that assigns the comparator object and 
+	 * ensures valid instance variables.
+	 *
+	 * @param comparator The comparator that will compare key's of each node.
+	 * @param maxEntries The maximum number of nodes that will be allowed in the
+	 * 					 tree.
+	 *
+	 * @throws IllegalArgumentException If the comparator object is null or
+	 * 									maxEntries < 1.
+	 */
+	public PersistentBinarySearchTree(Comparator<K> comparator, int maxEntries)
+			throws IllegalArgumentException {
+		if (comparator == null || maxEntries < 1) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		this.comparator = comparator;
+		this.maxEntries = maxEntries;
+		this.root = null;
+	}
+
+	/**
+	 * Constructor for a version of a tree with a given root.
+	 *
+	 * @param comparator The comparator that will compare key's of each node.
+	 * @param maxEntries The maximum number of nodes allowed in the tree.
+	 * @param root       The root of the version. Can be null.
+	 */
+	private PersistentBinarySearchTree(Comparator<K> comparator, int maxEntries,
+			Node<K, V> root) {
+		this.comparator = comparator;
+		this.maxEntries = maxEntries;
+		this.root = root;
+	}
+
+	/**
+	 * Returns the height of a node, treating null as height 0.
+	 *
+	 * @param node The node whose height is requested.
+	 *
+	 * @return The number of levels in the subtree rooted at node.
+	 */
+	private static int height(Node<?, ?> node) {
+		return node == null ? 0 : node.height;
+	}
+
+	/**
+	 * Returns the number of nodes below a node, treating null as size 0.
+	 *
+	 * @param node The node whose subtree size is requested.
+	 *
+	 * @return The number of nodes in the subtree rooted at node.
+	 */
+	private static int size(Node<?, ?> node) {
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * Returns a new version of the tree with a node added in the correct 
+	 * position, or with the value of the node that already has the key 
+	 * replaced. This version is left unchanged.
+	 *
+	 * @param key   The key of the node to be stored.
+	 * @param value The value of the node to be stored.
+	 *
+	 * @return The new version of the tree.
+	 *
+	 * @throws TreeIsFullException If the tree is full and the key is not
+	 * 							   already in the tree.
+	 */
+	public PersistentBinarySearchTree<K, V> add(K key, V value)
+			throws TreeIsFullException {
+		if (size(root) >= maxEntries && findNode(root, key) == null) {
+			throw new TreeIsFullException("Tree is already full");
+		}
+		return new PersistentBinarySearchTree<K, V>(comparator, maxEntries,
+				insert(root, key, value));
+	}
+
+	/**
+	 * Returns a new version of the tree without the node that has a key. This
+	 * version is left unchanged.
+	 *
+	 * @param key The key of the node you'd like to delete.
+	 *
+	 * @return The new version of the tree, or this version if the key 
+	 * 		   parameter is not assigned to a node within the tree.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public PersistentBinarySearchTree<K, V> delete(K key)
+			throws TreeIsEmptyException {
+		if (root == null) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		Node<K, V> updated = remove(root, key);
+		if (updated == root) {
+			return this;
+		}
+		return new PersistentBinarySearchTree<K, V>(comparator, maxEntries,
+				updated);
+	}
+
+	/**
+	 * Returns a point-in-time snapshot of the tree in O(1). Because a version
+	 * never changes, the snapshot is this version itself.
+	 *
+	 * @return This version of the tree.
+	 */
+	public PersistentBinarySearchTree<K, V> snapshot() {
+		return this;
+	}
+
+	/**
+	 * Returns a copy of the path from a node down to the inserted key. The
+	 * recursion follows a balanced tree, so it is only logarithmically deep.
+	 *
+	 * @param node  The root of the subtree the key is inserted into.
+	 * @param key   The key of the node to be stored.
+	 * @param value The value of the node to be stored.
+	 *
+	 * @return The root of the new version of the subtree.
+	 */
+	private Node<K, V> insert(Node<K, V> node, K key, V value) {
+		if (node == null) {
+			return new Node<K, V>(key, value, null, null);
+		}
+		int comparison = comparator.compare(key, node.key);
+		if (comparison == 0) {
+			return new Node<K, V>(node.key, value, node.left, node.right);
+		} else if (comparison < 0) {
+			return balance(node.key, node.value,
+					insert(node.left, key, value), node.right);
+		} else {
+			return balance(node.key, node.value,
+					node.left, insert(node.right, key, value));
+		}
+	}
+
+	/**
+	 * Returns a copy of the path from a node down to the removed key.
+	 *
+	 * @param node The root of the subtree the key is removed from.
+	 * @param key  The key of the node to be removed.
+	 *
+	 * @return The root of the new version of the subtree, or node itself if
+	 * 		   the key is not in the subtree.
+	 */
+	private Node<K, V> remove(Node<K, V> node, K key) {
+		if (node == null) {
+			return null;
+		}
+		int comparison = comparator.compare(key, node.key);
+		if (comparison < 0) {
+			Node<K, V> left = remove(node.left, key);
+			return left == node.left ? node
+					: balance(node.key, node.value, left, node.right);
+		} else if (comparison > 0) {
+			Node<K, V> right = remove(node.right, key);
+			return right == node.right ? node
+					: balance(node.key, node.value, node.left, right);
+		} else if (node.left == null) {
+			return node.right;
+		} else if (node.right == null) {
+			return node.left;
+		} else {
+			Node<K, V> successor = node.right;
+			while (successor.left != null) {
+				successor = successor.left;
+			}
+			return balance(successor.key, successor.value, node.left,
+					removeMinimum(node.right));
+		}
+	}
+
+	/**
+	 * Returns a copy of a subtree without its minimum node.
+	 *
+	 * @param node The root of the subtree.
+	 *
+	 * @return The root of the new version of the subtree.
+	 */
+	private Node<K, V> removeMinimum(Node<K, V> node) {
+		if (node.left == null) {
+			return node.right;
+		}
+		return balance(node.key, node.value, removeMinimum(node.left),
+				node.right);
+	}
+
+	/**
+	 * Creates a node from a key, value and two subtrees whose heights differ
+	 * by at most two, rotating new nodes so the result is AVL balanced.
+	 *
+	 * @param key   The key of the node.
+	 * @param value The value of the node.
+	 * @param left  The left subtree.
+	 * @param right The right subtree.
+	 *
+	 * @return The root of the balanced subtree.
+	 */
+	private Node<K, V> balance(K key, V value, Node<K, V> left,
+			Node<K, V> right) {
+		if (height(left) > height(right) + 1) {
+			if (height(left.left) >= height(left.right)) {
+				return new Node<K, V>(left.key, left.value, left.left,
+						new Node<K, V>(key, value, left.right, right));
+			}
+			Node<K, V> pivot = left.right;
+			return new Node<K, V>(pivot.key, pivot.value,
+					new Node<K, V>(left.key, left.value, left.left, pivot.left),
+					new Node<K, V>(key, value, pivot.right, right));
+		} else if (height(right) > height(left) + 1) {
+			if (height(right.right) >= height(right.left)) {
+				return new Node<K, V>(right.key, right.value,
+						new Node<K, V>(key, value, left, right.left),
+						right.right);
+			}
+			Node<K, V> pivot = right.left;
+			return new Node<K, V>(pivot.key, pivot.value,
+					new Node<K, V>(key, value, left, pivot.left),
+					new Node<K, V>(right.key, right.value, pivot.right,
+							right.right));
+		}
+		return new Node<K, V>(key, value, left, right);
+	}
+
+	/**
+	 * Locates the node holding a key within one version of the tree.
+	 *
+	 * @param node The root of the version to be searched.
+	 * @param key  The key of the node you'd like to find.
+	 *
+	 * @return The node with the key or null if no node has the key.
+	 */
+	private Node<K, V> findNode(Node<K, V> node, K key) {
+		while (node != null) {
+			int comparison = comparator.compare(key, node.key);
+			if (comparison == 0) {
+				return node;
+			}
+			node = comparison < 0 ? node.left : node.right;
+		}
+		return null;
+	}
+
+	/**
+	 * Locates a node within the tree based upon the parameters key and returns
+	 * the KeyValuePair.
+	 *
+	 * @param key The key of the node you'd like to find.
+	 *
+	 * @return The node as a KeyValuePair or null if no node has the key.
+	 */
+	public KeyValuePair<K, V> find(K key) {
+		Node<K, V> node = findNode(root, key);
+		return node == null ? null : new KeyValuePair<K, V>(node.key, node.value);
+	}
+
+	/**
+	 * Returns the value assigned to a key.
+	 *
+	 * @param key The key of the node you'd like to find.
+	 *
+	 * @return The value of the node or null if no node has the key.
+	 */
+	public V get(K key) {
+		Node<K, V> node = findNode(root, key);
+		return node == null ? null : node.value;
+	}
+
+	/**
+	 * Determines whether a node within the tree has the key.
+	 *
+	 * @param key The key of the node you'd like to find.
+	 *
+	 * @return True if a node has the key. False otherwise.
+	 */
+	public boolean containsKey(K key) {
+		return findNode(root, key) != null;
+	}
+
+	/**
+	 * Locates and returns the minimum node within the tree with respect to
+	 * the nodes' keys.
+	 *
+	 * @return Minimum KeyValuePair.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public KeyValuePair<K, V> getMinimumKeyValue() throws TreeIsEmptyException {
+		Node<K, V> node = root;
+		if (node == null) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		while (node.left != null) {
+			node = node.left;
+		}
+		return new KeyValuePair<K, V>(node.key, node.value);
+	}
+
+	/**
+	 * Locates and returns the maximum node within the tree with respect to
+	 * the nodes' keys.
+	 *
+	 * @return Maximum KeyValuePair.
+	 *
+	 * @throws TreeIsEmptyException If the tree is empty.
+	 */
+	public KeyValuePair<K, V> getMaximumKeyValue() throws TreeIsEmptyException {
+		Node<K, V> node = root;
+		if (node == null) {
+			throw new TreeIsEmptyException("Tree is empty");
+		}
+		while (node.right != null) {
+			node = node.right;
+		}
+		return new KeyValuePair<K, V>(node.key, node.value);
+	}
+
+	/**
+	 * Conducts an inorder traversal of the tree and processes each node upon
+	 * arrival.
+	 *
+	 * @param callback The processing to be done to each node while traversing.
+	 */
+	public void processInorder(Callback<K, V> callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("callback is null.");
+		}
+		Deque<Node<K, V>> pending = new ArrayDeque<Node<K, V>>();
+		Node<K, V> node = root;
+		while (node != null || !pending.isEmpty()) {
+			while (node != null) {
+				pending.push(node);
+				node = node.left;
+			}
+			node = pending.pop();
+			callback.process(node.key, node.value);
+			node = node.right;
+		}
+	}
+
+	/**
+	 * Creates and returns a subtree based on this version of the tree, 
+	 * containing nodes whose keys fall within the specified lower and upper
+	 * limits.
+	 *
+	 * @param lowerLimit The lower limit of the keys for the subtree (inclusive).
+	 * @param upperLimit The upper limit of the keys for the subtree (inclusive).
+	 *
+	 * @return A new PersistentBinarySearchTree representing the subtree.
+	 *
+	 * @throws IllegalArgumentException If the lowerLimit or upperLimit is null,
+	 *  								or if the lowerLimit is greater than the
+	 *  								upperLimit.
+	 */
+	public PersistentBinarySearchTree<K, V> subTree(K lowerLimit,
+			K upperLimit) {
+		if (lowerLimit == null || upperLimit == null ||
+				comparator.compare(lowerLimit, upperLimit) > 0) {
+			throw new IllegalArgumentException("Illegal Argument");
+		}
+		ArrayList<K> keys = new ArrayList<K>();
+		ArrayList<V> values = new ArrayList<V>();
+		// An inorder walk that only descends into subtrees that can hold keys
+		// within the limits, so it costs O(log n + k) for k keys in range.
+		Deque<Node<K, V>> pending = new ArrayDeque<Node<K, V>>();
+		Node<K, V> node = root;
+		while (node != null || !pending.isEmpty()) {
+			while (node != null) {
+				if (comparator.compare(node.key, lowerLimit) < 0) {
+					node = node.right;
+				} else {
+					pending.push(node);
+					node = node.left;
+				}
+			}
+			if (pending.isEmpty()) {
+				break;
+			}
+			node = pending.pop();
+			if (comparator.compare(node.key, upperLimit) > 0) {
+				break;
+			}
+			keys.add(node.key);
+			values.add(node.value);
+			node = node.right;
+		}
+		return new PersistentBinarySearchTree<K, V>(comparator, maxEntries,
+				buildBalanced(keys, values, 0, keys.size()));
+	}
+
+	/**
+	 * Builds a perfectly balanced subtree from sorted keys and values.
+	 *
+	 * @param keys   The keys in ascending order.
+	 * @param values The values matching the keys.
+	 * @param low    The first index to be used (inclusive).
+	 * @param high   The last index to be used (exclusive).
+	 *
+	 * @return The root of the subtree or null if the index range is empty.
+	 */
+	private Node<K, V> buildBalanced(ArrayList<K> keys, ArrayList<V> values,
+			int low, int high) {
+		if (low >= high) {
+			return null;
+		}
+		int middle = (low + high) >>> 1;
+		return new Node<K, V>(keys.get(middle), values.get(middle),
+				buildBalanced(keys, values, low, middle),
+				buildBalanced(keys, values, middle + 1, high));
+	}
+
+	/**
+	 * Creates and returns a TreeSet containing all the leaves (nodes with no
+	 * children) of the tree.
+	 *
+	 * @return A TreeSet with all the leaves of the tree.
+	 */
+	public TreeSet<V> getLeavesValues() {
+		TreeSet<V> answer = new TreeSet<V>();
+		Deque<Node<K, V>> pending = new ArrayDeque<Node<K, V>>();
+		if (root != null) {
+			pending.push(root);
+		}
+		while (!pending.isEmpty()) {
+			Node<K, V> node = pending.pop();
+			if (node.left == null && node.right == null) {
+				answer.add(node.value);
+			}
+			if (node.left != null) {
+				pending.push(node.left);
+			}
+			if (node.right != null) {
+				pending.push(node.right);
+			}
+		}
+		return answer;
+	}
+
+	/**
+	 * Returns an iterator over the nodes of the tree in ascending key order.
+	 * Since the version never changes, the iterator can never be invalidated.
+	 *
+	 * @return An ascending iterator of KeyValuePairs.
+	 */
+	@Override
+	public Iterator<KeyValuePair<K, V>> iterator() {
+		final Deque<Node<K, V>> pending = new ArrayDeque<Node<K, V>>();
+		for (Node<K, V> node = root; node != null; node = node.left) {
+			pending.push(node);
+		}
+		return new Iterator<KeyValuePair<K, V>>() {
+			@Override
+			public boolean hasNext() {
+				return !pending.isEmpty();
+			}
+
+			@Override
+			public KeyValuePair<K, V> next() {
+				if (pending.isEmpty()) {
+					throw new NoSuchElementException();
+				}
+				Node<K, V> node = pending.pop();
+				for (Node<K, V> child = node.right; child != null; 
+						child = child.left) {
+					pending.push(child);
+				}
+				return new KeyValuePair<K, V>(node.key, node.value);
+			}
+		};
+	}
+
+	/**
+	 * Overriding the toString method for the tree.
+	 */
+	@Override
+	public String toString() {
+		if (root == null) {
+			return "EMPTY TREE";
+		}
+		final StringBuilder answer = new StringBuilder();
+		processInorder(new Callback<K, V>() {
+			@Override
+			public void process(K key, V value) {
+				answer.append('{').append(key).append(':')
+						.append(value).append('}');
+			}
+		});
+		return answer.toString();
+	}
+
+	/**
+	 * Determines whether the tree is empty or not.
+	 *
+	 * @return True if the tree has no nodes. False otherwise.
+	 */
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	/**
+	 * Returns the number of nodes within the tree.
+	 *
+	 * @return Number of nodes in the tree.
+	 */
+	public int size() {
+		return size(root);
+	}
+
+	/**
+	 * Returns the current number of nodes within the tree.
+	 *
+	 * @return Current number of nodes within the tree.
+	 */
+	public int getTreeSize() {
+		return size();
+	}
+
+	/**
+	 * Returns the height of the tree.
+	 *
+	 * @return Height of the tree. 0 if the tree is empty.
+	 */
+	public int getHeight() {
+		return height(root);
+	}
+
+	/**
+	 * Determines whether the tree is full or not.
+	 *
+	 * @return True if the number of nodes equals maxEntries. False otherwise.
+	 */
+	public boolean isFull() {
+		return size() == maxEntries;
+	}
+}
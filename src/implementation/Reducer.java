@@ -0,0 +1,16 @@
+package implementation;
+
+/**
+ * Interface implemented by classes that fold the nodes of a tree into a 
+ * single result, used by BinarySearchTree.parallelReduce. Each thread folds a
+ * contiguous run of nodes into a partial result with accumulate, and partial
+ * results of neighbouring runs are merged with combine. combine must be 
+ * associative and have the identity passed to parallelReduce as its neutral
+ * element; it need not be commutative, since runs are always combined in key
+ * order.
+ */
+public interface Reducer<K, V, R> {
+	public R accumulate(R partial, K key, V value);
+	
+	public R combine(R left, R right);
+}
@@ -0,0 +1,21 @@
+package implementation;
+
+/**
+ * Interface implemented by classes that observe the operations of a 
+ * BinarySearchTree, installed with BinarySearchTree.setMetricsListener. The
+ * listener is called on the thread that ran the operation, after it 
+ * completed, and must be quick since it runs inside every add, delete and 
+ * lookup. TreeStatistics is the built-in implementation.
+ */
+public interface TreeMetricsListener {
+	
+	/**
+	 * The operations reported to a listener.
+	 */
+	public enum Operation {
+		ADD, DELETE, FIND
+	}
+	
+	public void operationCompleted(Operation operation, long nanos, 
+			int comparisons, int rotations);
+}
@@ -0,0 +1,125 @@
+package implementation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Interface implemented by classes that convert the keys or values of a tree
+ * to and from bytes, used by MappedTreeFile. A serialized value must be self
+ * delimiting: read must consume exactly the sizeOf(value) bytes that write 
+ * produced. Serializers for the common key and value types are provided.
+ */
+public interface TreeSerializer<T> {
+	
+	/** Serializes an Integer as 4 bytes. */
+	public static final TreeSerializer<Integer> INTEGER = 
+			new TreeSerializer<Integer>() {
+		public int sizeOf(Integer value) {
+			return 4;
+		}
+		
+		public void write(Integer value, ByteBuffer buffer) {
+			buffer.putInt(value);
+		}
+		
+		public Integer read(ByteBuffer buffer) {
+			return buffer.getInt();
+		}
+	};
+	
+	/** Serializes a Long as 8 bytes. */
+	public static final TreeSerializer<Long> LONG = new TreeSerializer<Long>() {
+		public int sizeOf(Long value) {
+			return 8;
+		}
+		
+		public void write(Long value, ByteBuffer buffer) {
+			buffer.putLong(value);
+		}
+		
+		public Long read(ByteBuffer buffer) {
+			return buffer.getLong();
+		}
+	};
+	
+	/** Serializes a Double as 8 bytes. */
+	public static final TreeSerializer<Double> DOUBLE = 
+			new TreeSerializer<Double>() {
+		public int sizeOf(Double value) {
+			return 8;
+		}
+		
+		public void write(Double value, ByteBuffer buffer) {
+			buffer.putDouble(value);
+		}
+		
+		public Double read(ByteBuffer buffer) {
+			return buffer.getDouble();
+		}
+	};
+	
+	/** Serializes a String as its UTF-8 length in 4 bytes and its UTF-8. */
+	public static final TreeSerializer<String> STRING = 
+			new TreeSerializer<String>() {
+		public int sizeOf(String value) {
+			int bytes = 4;
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c < 0x80) {
+					bytes += 1;
+				} else if (c < 0x800) {
+					bytes += 2;
+				} else if (Character.isHighSurrogate(c) && 
+						i + 1 < value.length() && 
+						Character.isLowSurrogate(value.charAt(i + 1))) {
+					bytes += 4;
+					i++;
+				} else if (Character.isSurrogate(c)) {
+					// An unpaired surrogate is encoded as '?'.
+					bytes += 1;
+				} else {
+					bytes += 3;
+				}
+			}
+			return bytes;
+		}
+		
+		public void write(String value, ByteBuffer buffer) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			buffer.putInt(bytes.length);
+			buffer.put(bytes);
+		}
+		
+		public String read(ByteBuffer buffer) {
+			byte[] bytes = new byte[buffer.getInt()];
+			buffer.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+	
+	/**
+	 * Returns the number of bytes write will produce for a value.
+	 * 
+	 * @param value The value to be measured.
+	 * 
+	 * @return The serialized size of the value in bytes.
+	 */
+	public int sizeOf(T value);
+	
+	/**
+	 * Writes a value at the buffer's position, advancing it by sizeOf(value).
+	 * 
+	 * @param value  The value to be written.
+	 * @param buffer The buffer receiving the bytes.
+	 */
+	public void write(T value, ByteBuffer buffer);
+	
+	/**
+	 * Reads a value at the buffer's position, advancing it past the value.
+	 * 
+	 * @param buffer The buffer holding the bytes.
+	 * 
+	 * @return The value.
+	 */
+	public T read(ByteBuffer buffer);
+}
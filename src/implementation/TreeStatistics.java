@@ -0,0 +1,325 @@
+package implementation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in TreeMetricsListener that aggregates the operations of one 
+ * BinarySearchTree into counters and latency histograms. An instance is 
+ * installed with BinarySearchTree.enableMetrics and can be registered with 
+ * any MBeanServer, for example 
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, name).
+ *
+ * Counts, total latencies and comparisons are kept per operation. Latencies
+ * are also recorded in a histogram of power-of-two buckets, so percentiles are
+ * reported as the upper bound of the bucket they fall in (within a factor of 
+ * two). Along with the height and size of the tree, the ratio of its height 
+ * to the height of a perfectly balanced tree of the same size shows when the
+ * tree degenerates: it stays below 1.45 for a self-balancing tree and 
+ * approaches size / log2(size) for one built from sorted keys.
+ */
+public class TreeStatistics implements TreeMetricsListener, TreeStatisticsMBean {
+	
+	/**
+	 * The number of latency buckets of each operation. Bucket i holds the 
+	 * latencies below 2^i nanoseconds and at least 2^(i - 1).
+	 */
+	private static final int BUCKETS = 64;
+	
+	private static final int OPERATIONS = Operation.values().length;
+
+	private final BinarySearchTree<?, ?> tree;
+	private final LongAdder[] counts = new LongAdder[OPERATIONS];
+	private final LongAdder[] nanos = new LongAdder[OPERATIONS];
+	private final LongAdder[] comparisons = new LongAdder[OPERATIONS];
+	private final LongAdder rotations = new LongAdder();
+	private final AtomicLongArray latencies = 
+			new AtomicLongArray(OPERATIONS * BUCKETS);
+	
+	/**
+	 * Constructor for the statistics of a tree. The statistics only record 
+	 * operations once installed with tree.setMetricsListener.
+	 * 
+	 * @param tree The tree whose shape is reported.
+	 * 
+	 * @throws IllegalArgumentException If the tree is null.
+	 */
+	public TreeStatistics(BinarySearchTree<?, ?> tree) {
+		if (tree == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		this.tree = tree;
+		for (int i = 0; i < OPERATIONS; i++) {
+			counts[i] = new LongAdder();
+			nanos[i] = new LongAdder();
+			comparisons[i] = new LongAdder();
+		}
+	}
+	
+	/**
+	 * Records one completed operation.
+	 * 
+	 * @param operation   The kind of operation.
+	 * @param nanos       The time the operation took.
+	 * @param comparisons The number of key comparisons it made.
+	 * @param rotations   The number of rotations it made.
+	 */
+	@Override
+	public void operationCompleted(Operation operation, long nanos, 
+			int comparisons, int rotations) {
+		int index = operation.ordinal();
+		counts[index].increment();
+		this.nanos[index].add(nanos);
+		this.comparisons[index].add(comparisons);
+		if (rotations > 0) {
+			this.rotations.add(rotations);
+		}
+		int bucket = 64 - Long.numberOfLeadingZeros(Math.max(nanos, 0));
+		latencies.incrementAndGet(index * BUCKETS + Math.min(bucket, BUCKETS - 1));
+	}
+	
+	/**
+	 * Returns the number of operations of a kind recorded so far.
+	 * 
+	 * @param operation The kind of operation.
+	 * 
+	 * @return The number of operations.
+	 */
+	public long getCount(Operation operation) {
+		return counts[operation.ordinal()].sum();
+	}
+	
+	/**
+	 * Returns the mean latency of the operations of a kind.
+	 * 
+	 * @param operation The kind of operation.
+	 * 
+	 * @return The mean latency in nanoseconds. 0 if none were recorded.
+	 */
+	public double getMeanNanos(Operation operation) {
+		return mean(nanos[operation.ordinal()], operation);
+	}
+	
+	/**
+	 * Returns the mean number of key comparisons of the operations of a kind.
+	 * 
+	 * @param operation The kind of operation.
+	 * 
+	 * @return The mean number of comparisons. 0 if none were recorded.
+	 */
+	public double getMeanComparisons(Operation operation) {
+		return mean(comparisons[operation.ordinal()], operation);
+	}
+	
+	/**
+	 * Divides a total by the number of operations of a kind.
+	 * 
+	 * @param total     The total to be divided.
+	 * @param operation The kind of operation.
+	 * 
+	 * @return The mean. 0 if no operation was recorded.
+	 */
+	private double mean(LongAdder total, Operation operation) {
+		long count = getCount(operation);
+		return count == 0 ? 0 : (double) total.sum() / count;
+	}
+	
+	/**
+	 * Returns an upper bound of a latency percentile of the operations of a 
+	 * kind, the upper bound of the histogram bucket holding it.
+	 * 
+	 * @param operation  The kind of operation.
+	 * @param percentile The percentile, between 0 and 100.
+	 * 
+	 * @return The percentile in nanoseconds, exact within a factor of two. 0
+	 * 		   if no operation was recorded.
+	 * 
+	 * @throws IllegalArgumentException If the operation is null or the 
+	 * 									percentile is outside [0, 100].
+	 */
+	public long getPercentileNanos(Operation operation, double percentile) {
+		if (operation == null || !(percentile >= 0 && percentile <= 100)) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		long[] histogram = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			histogram[i] = latencies.get(operation.ordinal() * BUCKETS + i);
+			total += histogram[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		for (int i = 0; i < BUCKETS - 1; i++) {
+			rank -= histogram[i];
+			if (rank <= 0) {
+				return (1L << i) - 1;
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+	
+	/**
+	 * Returns the number of adds recorded so far.
+	 * 
+	 * @return The number of adds.
+	 */
+	@Override
+	public long getAddCount() {
+		return getCount(Operation.ADD);
+	}
+	
+	/**
+	 * Returns the number of deletes recorded so far.
+	 * 
+	 * @return The number of deletes.
+	 */
+	@Override
+	public long getDeleteCount() {
+		return getCount(Operation.DELETE);
+	}
+	
+	/**
+	 * Returns the number of lookups (find, get and containsKey) recorded so 
+	 * far.
+	 * 
+	 * @return The number of lookups.
+	 */
+	@Override
+	public long getFindCount() {
+		return getCount(Operation.FIND);
+	}
+	
+	/**
+	 * Returns the mean latency of the recorded adds.
+	 * 
+	 * @return The mean latency in nanoseconds.
+	 */
+	@Override
+	public double getMeanAddNanos() {
+		return getMeanNanos(Operation.ADD);
+	}
+	
+	/**
+	 * Returns the mean latency of the recorded deletes.
+	 * 
+	 * @return The mean latency in nanoseconds.
+	 */
+	@Override
+	public double getMeanDeleteNanos() {
+		return getMeanNanos(Operation.DELETE);
+	}
+	
+	/**
+	 * Returns the mean latency of the recorded lookups.
+	 * 
+	 * @return The mean latency in nanoseconds.
+	 */
+	@Override
+	public double getMeanFindNanos() {
+		return getMeanNanos(Operation.FIND);
+	}
+	
+	/**
+	 * Returns an upper bound of the 99th percentile latency of the recorded
+	 * lookups.
+	 * 
+	 * @return The percentile in nanoseconds, exact within a factor of two.
+	 */
+	@Override
+	public long getP99FindNanos() {
+		return getPercentileNanos(Operation.FIND, 99);
+	}
+	
+	/**
+	 * Returns the mean number of key comparisons of the recorded lookups, 
+	 * which tracks the mean depth of the keys looked up.
+	 * 
+	 * @return The mean number of comparisons.
+	 */
+	@Override
+	public double getMeanFindComparisons() {
+		return getMeanComparisons(Operation.FIND);
+	}
+	
+	/**
+	 * Returns the number of key comparisons made by all recorded operations.
+	 * 
+	 * @return The number of comparisons.
+	 */
+	@Override
+	public long getComparisonCount() {
+		long total = 0;
+		for (LongAdder adder : comparisons) {
+			total += adder.sum();
+		}
+		return total;
+	}
+	
+	/**
+	 * Returns the number of rotations made by all recorded operations. Always
+	 * 0 for a tree that is not self-balancing.
+	 * 
+	 * @return The number of rotations.
+	 */
+	@Override
+	public long getRotationCount() {
+		return rotations.sum();
+	}
+	
+	/**
+	 * Returns the current number of nodes of the tree. Read from another 
+	 * thread, the value may be slightly stale.
+	 * 
+	 * @return Number of nodes in the tree.
+	 */
+	@Override
+	public int getSize() {
+		return tree.size();
+	}
+	
+	/**
+	 * Returns the current height of the tree. Read from another thread, the 
+	 * value may be slightly stale.
+	 * 
+	 * @return Height of the tree. 0 if the tree is empty.
+	 */
+	@Override
+	public int getHeight() {
+		return tree.getHeight();
+	}
+	
+	/**
+	 * Returns the height of the tree divided by the height of a perfectly 
+	 * balanced tree of the same size, ceil(log2(size + 1)).
+	 * 
+	 * @return The ratio, 1 for a perfectly balanced tree and growing as the
+	 * 		   tree degenerates. 0 if the tree is empty.
+	 */
+	@Override
+	public double getHeightRatio() {
+		int size = tree.size();
+		if (size == 0) {
+			return 0;
+		}
+		int optimal = 32 - Integer.numberOfLeadingZeros(size);
+		return (double) tree.getHeight() / optimal;
+	}
+	
+	/**
+	 * Clears every counter and histogram.
+	 */
+	@Override
+	public void reset() {
+		for (int i = 0; i < OPERATIONS; i++) {
+			counts[i].reset();
+			nanos[i].reset();
+			comparisons[i].reset();
+		}
+		rotations.reset();
+		for (int i = 0; i < latencies.length(); i++) {
+			latencies.set(i, 0);
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package implementation;
+
+/**
+ * Management interface under which TreeStatistics is registered with JMX. 
+ * Every attribute is safe to read from any thread while the tree is in use.
+ */
+public interface TreeStatisticsMBean {
+	public long getAddCount();
+	
+	public long getDeleteCount();
+	
+	public long getFindCount();
+	
+	public double getMeanAddNanos();
+	
+	public double getMeanDeleteNanos();
+	
+	public double getMeanFindNanos();
+	
+	public long getP99FindNanos();
+	
+	public double getMeanFindComparisons();
+	
+	public long getComparisonCount();
+	
+	public long getRotationCount();
+	
+	public int getSize();
+	
+	public int getHeight();
+	
+	public double getHeightRatio();
+	
+	public void reset();
+}
@@ -0,0 +1,374 @@
+package implementation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the mutations made to a BinarySearchTree. Each add and
+ * delete is recorded before it is applied, so replaying the log onto the last
+ * saved snapshot of the tree recovers every mutation made since.
+ *
+ * A record is its length in 4 bytes, a type byte, the serialized key (and
+ * value for an add) and a CRC32 of the type, key and value. A crash while a
+ * record is being written leaves a torn record at the end of the log; replay
+ * stops at the first record that is incomplete or fails its checksum, and
+ * opening the log cuts that tail off so new records follow the last good one.
+ *
+ * How often the log is forced to disk is chosen by a SyncPolicy.
+ *
+ * @param <K> The data type of the key of each node of the tree.
+ * @param <V> The data type of the data stored within each node of the tree.
+ */
+public class WriteAheadLog<K, V> implements Closeable {
+
+	/**
+	 * When records are written to and forced onto disk.
+	 */
+	public enum SyncPolicy {
+		/**
+		 * Every record is written and forced before the mutation returns. No
+		 * acknowledged mutation is ever lost.
+		 */
+		EVERY_WRITE,
+		/**
+		 * Records are buffered and written and forced together once groupSize
+		 * of them are pending or sync is called. A crash loses at most the
+		 * last groupSize - 1 mutations, and each force is shared by a group.
+		 */
+		GROUP_COMMIT,
+		/**
+		 * Every record is written but never forced; the operating system
+		 * decides when it reaches the disk. Survives the process crashing,
+		 * not the machine.
+		 */
+		NONE
+	}
+
+	private static final byte ADD = 1;
+	private static final byte DELETE = 2;
+
+	private final FileChannel channel;
+	private final TreeSerializer<K> keySerializer;
+	private final TreeSerializer<V> valueSerializer;
+	private final SyncPolicy policy;
+	private final int groupSize;
+	private final CRC32 checksum = new CRC32();
+	private ByteBuffer pending = ByteBuffer.allocate(1 << 12);
+	private int unforcedRecords;
+
+	/**
+	 * Opens a log for appending, creating it if it does not exist and cutting
+	 * off any torn record at its end.
+	 *
+	 * @param file            The log file.
+	 * @param keySerializer   The serializer of the keys.
+	 * @param valueSerializer The serializer of the values.
+	 * @param policy          When records are forced onto disk.
+	 * @param groupSize       The number of records forced together under
+	 * 						  GROUP_COMMIT. Ignored by the other policies.
+	 *
+	 * @throws IOException              If the log cannot be opened.
+	 * @throws IllegalArgumentException If any argument is null or groupSize
+	 * 									< 1.
+	 */
+	public WriteAheadLog(Path file, TreeSerializer<K> keySerializer,
+			TreeSerializer<V> valueSerializer, SyncPolicy policy, int groupSize)
+			throws IOException {
+		if (file == null || keySerializer == null || valueSerializer == null ||
+				policy == null || groupSize < 1) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		this.policy = policy;
+		this.groupSize = groupSize;
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			long end = scan(channel, keySerializer, valueSerializer, null);
+			channel.truncate(end);
+			channel.position(end);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		} catch (TreeIsFullException e) {
+			// Only thrown while replaying onto a tree, which this scan does not.
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Replays every complete record of a log onto a tree, in the order they
+	 * were written. Only the last record of each key decides its final 
+	 * state, so a log may safely be replayed onto a snapshot that already
+	 * holds some or all of its records, as a crash between writing a 
+	 * checkpoint and emptying the log leaves it.
+	 *
+	 * Replaying such a log onto a full tree can pass through states with more
+	 * nodes than maxEntries, such as an add of a key that a later record 
+	 * deletes. The limit is therefore lifted during the replay and only the
+	 * final size is checked against it.
+	 *
+	 * @param file            The log file. A missing file replays nothing.
+	 * @param tree            The tree the records are applied to.
+	 * @param keySerializer   The serializer of the keys.
+	 * @param valueSerializer The serializer of the values.
+	 *
+	 * @return The number of records replayed.
+	 *
+	 * @throws IOException              If the log cannot be read.
+	 * @throws TreeIsFullException      If the replayed tree holds more than 
+	 * 									maxEntries nodes, in which case it 
+	 * 									must be discarded.
+	 * @throws IllegalArgumentException If any argument is null.
+	 */
+	public static <K, V> int replay(Path file, BinarySearchTree<K, V> tree,
+			TreeSerializer<K> keySerializer, TreeSerializer<V> valueSerializer)
+			throws IOException, TreeIsFullException {
+		if (file == null || tree == null || keySerializer == null ||
+				valueSerializer == null) {
+			throw new IllegalArgumentException("Illegal Arguments");
+		}
+		if (!Files.exists(file)) {
+			return 0;
+		}
+		Replay<K, V> replay = new Replay<K, V>(tree);
+		int maxEntries = tree.getMaxEntries();
+		tree.setMaxEntries(Integer.MAX_VALUE);
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.READ)) {
+			scan(channel, keySerializer, valueSerializer, replay);
+		} finally {
+			tree.setMaxEntries(maxEntries);
+		}
+		if (tree.size() > maxEntries) {
+			throw new TreeIsFullException("Tree is already full");
+		}
+		return replay.replayed;
+	}
+
+	/**
+	 * Applies replayed records to a tree and counts them.
+	 */
+	private static class Replay<K, V> {
+		private final BinarySearchTree<K, V> tree;
+		private int replayed;
+
+		private Replay(BinarySearchTree<K, V> tree) {
+			this.tree = tree;
+		}
+
+		/**
+		 * Applies one record.
+		 *
+		 * @param type  ADD or DELETE.
+		 * @param key   The key of the record.
+		 * @param value The value of an add record. Null for a delete.
+		 *
+		 * @throws TreeIsFullException If an add does not fit in the tree.
+		 */
+		private void apply(byte type, K key, V value) throws TreeIsFullException {
+			if (type == ADD) {
+				tree.add(key, value);
+			} else if (!tree.isEmpty()) {
+				try {
+					tree.delete(key);
+				} catch (TreeIsEmptyException e) {
+					throw new AssertionError(e);
+				}
+			}
+			replayed++;
+		}
+	}
+
+	/**
+	 * Reads the records of a log from its start up to the first incomplete or
+	 * corrupt one, optionally applying each to a tree.
+	 *
+	 * @param channel         The log, positioned anywhere.
+	 * @param keySerializer   The serializer of the keys.
+	 * @param valueSerializer The serializer of the values.
+	 * @param replay          The tree records are applied to. Can be null.
+	 *
+	 * @return The offset just past the last complete record.
+	 *
+	 * @throws IOException         If the log cannot be read.
+	 * @throws TreeIsFullException If a replayed add does not fit in the tree.
+	 */
+	private static <K, V> long scan(FileChannel channel,
+			TreeSerializer<K> keySerializer, TreeSerializer<V> valueSerializer,
+			Replay<K, V> replay) throws IOException, TreeIsFullException {
+		long size = channel.size(), position = 0;
+		ByteBuffer header = ByteBuffer.allocate(4);
+		ByteBuffer record = ByteBuffer.allocate(1 << 12);
+		CRC32 checksum = new CRC32();
+		while (position + 4 <= size) {
+			header.clear();
+			readFully(channel, header, position);
+			int length = header.getInt(0);
+			if (length < 1 || position + 4 + length + 4 > size) {
+				break;
+			}
+			if (record.capacity() < length + 4) {
+				record = ByteBuffer.allocate(length + 4);
+			}
+			record.clear().limit(length + 4);
+			readFully(channel, record, position + 4);
+			checksum.reset();
+			checksum.update(record.array(), 0, length);
+			if ((int) checksum.getValue() != record.getInt(length)) {
+				break;
+			}
+			if (replay != null) {
+				record.position(0).limit(length);
+				byte type = record.get();
+				K key = keySerializer.read(record);
+				V value = type == ADD ? valueSerializer.read(record) : null;
+				replay.apply(type, key, value);
+			}
+			position += 4 + length + 4;
+		}
+		return position;
+	}
+
+	/**
+	 * Fills a buffer from a channel at an absolute position.
+	 *
+	 * @param channel  The channel to be read.
+	 * @param buffer   The buffer to be filled up to its limit.
+	 * @param position The offset to read from.
+	 *
+	 * @throws IOException If the channel cannot be read or ends too soon.
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer,
+			long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("Unexpected end of log");
+			}
+			position += read;
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Records an add.
+	 *
+	 * @param key   The key being added.
+	 * @param value The value being added.
+	 *
+	 * @throws IOException If the record cannot be written.
+	 */
+	public void logAdd(K key, V value) throws IOException {
+		append(ADD, key, value);
+	}
+
+	/**
+	 * Records a delete.
+	 *
+	 * @param key The key being deleted.
+	 *
+	 * @throws IOException If the record cannot be written.
+	 */
+	public void logDelete(K key) throws IOException {
+		append(DELETE, key, null);
+	}
+
+	/**
+	 * Appends one record to the pending buffer and writes (and forces) it as
+	 * the sync policy requires.
+	 *
+	 * @param type  ADD or DELETE.
+	 * @param key   The key of the record.
+	 * @param value The value of an add record. Null for a delete.
+	 *
+	 * @throws IOException If the record cannot be written.
+	 */
+	private void append(byte type, K key, V value) throws IOException {
+		int length = 1 + keySerializer.sizeOf(key) +
+				(type == ADD ? valueSerializer.sizeOf(value) : 0);
+		if (pending.remaining() < 4 + length + 4) {
+			write();
+			if (pending.capacity() < 4 + length + 4) {
+				pending = ByteBuffer.allocate(4 + length + 4);
+			}
+		}
+		int start = pending.position();
+		pending.putInt(length).put(type);
+		keySerializer.write(key, pending);
+		if (type == ADD) {
+			valueSerializer.write(value, pending);
+		}
+		checksum.reset();
+		checksum.update(pending.array(), start + 4, length);
+		pending.putInt((int) checksum.getValue());
+		unforcedRecords++;
+		if (policy == SyncPolicy.NONE) {
+			write();
+		} else if (policy == SyncPolicy.EVERY_WRITE ||
+				unforcedRecords >= groupSize) {
+			sync();
+		}
+	}
+
+	/**
+	 * Writes the pending records to the log without forcing them. They still
+	 * count towards the next group, which a full buffer must not cut short.
+	 *
+	 * @throws IOException If the records cannot be written.
+	 */
+	private void write() throws IOException {
+		pending.flip();
+		while (pending.hasRemaining()) {
+			channel.write(pending);
+		}
+		pending.clear();
+	}
+
+	/**
+	 * Writes any pending records and forces the log onto disk, whatever the
+	 * sync policy.
+	 *
+	 * @throws IOException If the log cannot be written.
+	 */
+	public void sync() throws IOException {
+		write();
+		channel.force(false);
+		unforcedRecords = 0;
+	}
+
+	/**
+	 * Empties the log once a snapshot holding all of its mutations is safely
+	 * on disk.
+	 *
+	 * @throws IOException If the log cannot be truncated.
+	 */
+	public void reset() throws IOException {
+		pending.clear();
+		unforcedRecords = 0;
+		channel.truncate(0);
+		channel.position(0);
+		channel.force(true);
+	}
+
+	/**
+	 * Writes and forces any pending records and closes the log.
+	 *
+	 * @throws IOException If the log cannot be written or closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			sync();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -3,8 +3,40 @@ package tests;
 import implementation.*;
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.junit.FixMethodOrder;
 import org.junit.Test;
@@ -290,4 +322,2201 @@ public class Tests {
 			e.printStackTrace();
 		}
 	}
+	
+	@Test
+	public void testingSelfBalancing01() throws TreeIsFullException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		int entries = 1000000;
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, entries, true);
+		assertTrue(bst.isSelfBalancing());
+		for (int i = 0; i < entries; i++) {
+			bst.add(i, "a");
+		}
+		assertEquals(entries, bst.getTreeSize());
+		// An AVL tree never exceeds 1.44 * log2(n + 2) levels.
+		double bound = 1.44 * Math.log(entries + 2) / Math.log(2);
+		assertTrue(bst.getHeight() <= bound);
+		assertEquals(Integer.valueOf(0), bst.find(0).getKey());
+		assertEquals(Integer.valueOf(entries - 1), bst.find(entries - 1).getKey());
+	}
+	
+	@Test
+	public void testingSelfBalancing02() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> plain = 
+				new BinarySearchTree<Integer, String>(comparator, 10);
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 10, true);
+		for (int i = 1; i <= 7; i++) {
+			plain.add(i, "a");
+			bst.add(i, "a");
+		}
+		assertEquals(7, plain.getHeight());
+		assertEquals(3, bst.getHeight());
+		bst.delete(1);
+		bst.delete(2);
+		bst.delete(3);
+		assertEquals("{4:a}{5:a}{6:a}{7:a}", bst.toString());
+		assertEquals(3, bst.getHeight());
+		assertEquals("{5:a}{6:a}{7:a}", bst.subTree(5, 9).toString());
+	}
+	
+	// Ascending keys without balancing build a single chain of nodes, deep 
+	// enough to overflow the call stack of a recursive implementation.
+	@Test
+	public void testingDegenerateTree01() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		final int entries = 20000;
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, entries);
+		for (int i = 0; i < entries; i++) {
+			bst.add(i, "a");
+		}
+		assertEquals(entries, bst.getHeight());
+		assertEquals(Integer.valueOf(entries - 1), bst.find(entries - 1).getKey());
+		assertEquals(Integer.valueOf(0), bst.getMinimumKeyValue().getKey());
+		assertEquals(Integer.valueOf(entries - 1), 
+				bst.getMaximumKeyValue().getKey());
+		final int[] visited = new int[1];
+		bst.processInorder(new Callback<Integer, String>() {
+			@Override
+			public void process(Integer key, String value) {
+				assertEquals(visited[0]++, key.intValue());
+			}
+		});
+		assertEquals(entries, visited[0]);
+		assertTrue(bst.toString().endsWith("{" + (entries - 1) + ":a}"));
+		assertEquals("[a]", bst.getLeavesValues().toString());
+		assertEquals(entries / 2, bst.subTree(entries / 2, entries).size());
+		for (int i = entries - 1; i >= 0; i -= 2) {
+			bst.delete(i);
+		}
+		assertEquals(entries / 2, bst.size());
+		assertNull(bst.find(entries - 1));
+		assertEquals(Integer.valueOf(entries - 2), bst.find(entries - 2).getKey());
+	}
+	
+	@Test
+	public void testingDelete02() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 10);
+		bst.add(5, "a");
+		bst.add(3, "b");
+		bst.add(8, "c");
+		bst.add(7, "d");
+		assertNull(bst.delete(4));
+		assertEquals(4, bst.size());
+		bst.delete(5);
+		assertEquals("{3:b}{7:d}{8:c}", bst.toString());
+		assertEquals("c", bst.find(8).getValue());
+		assertEquals(3, bst.size());
+	}
+	
+	@Test
+	public void testingAllocationFreeLookup01() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 10);
+		KeyValueHolder<Integer, String> holder = 
+				new KeyValueHolder<Integer, String>();
+		try {
+			bst.minKey();
+			assertTrue(false);
+		} catch (TreeIsEmptyException e) {
+			assertTrue(true);
+		}
+		assertNull(bst.get(5));
+		assertFalse(bst.find(5, holder));
+		bst.add(5, "d");
+		bst.add(3, "b");
+		bst.add(7, "f");
+		assertEquals("b", bst.get(3));
+		assertTrue(bst.containsKey(7));
+		assertFalse(bst.containsKey(4));
+		assertEquals(Integer.valueOf(3), bst.minKey());
+		assertEquals(Integer.valueOf(7), bst.maxKey());
+		assertTrue(bst.find(7, holder));
+		assertEquals(Integer.valueOf(7), holder.getKey());
+		assertEquals("f", holder.getValue());
+		assertFalse(bst.find(4, holder));
+		assertEquals("f", holder.getValue());
+	}
+	
+	// Counts the bytes allocated by the current thread while looking up keys.
+	@Test
+	public void testingAllocationFreeLookup02() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		final int entries = 1000;
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, entries, true);
+		Integer[] keys = new Integer[entries];
+		for (int i = 0; i < entries; i++) {
+			keys[i] = i;
+			bst.add(keys[i], "a");
+		}
+		KeyValueHolder<Integer, String> holder = 
+				new KeyValueHolder<Integer, String>();
+		com.sun.management.ThreadMXBean threads = 
+				(com.sun.management.ThreadMXBean) 
+				ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		int lookups = 0;
+		long before = 0;
+		for (int round = 0; round < 2; round++) {
+			// The first round warms up the JIT, the second one is measured.
+			before = threads.getThreadAllocatedBytes(threadId);
+			for (int i = 0; i < 100000; i++) {
+				Integer key = keys[i % entries];
+				if (bst.get(key) != null && bst.containsKey(key) && 
+						bst.find(key, holder) && bst.minKey() != null && 
+						bst.maxKey() != null) {
+					lookups++;
+				}
+			}
+		}
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+		assertEquals(200000, lookups);
+		// A KeyValuePair per lookup would cost at least 2.4MB here, so anything
+		// below a byte per lookup only leaves room for JIT and profiler noise.
+		assertTrue("allocated " + allocated + " bytes", allocated < 100000);
+	}
+	
+	@Test
+	public void testingSubtree02() throws TreeIsFullException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 1000);
+		for (int i = 0; i < 1000; i++) {
+			bst.add(i, "a");
+		}
+		BinarySearchTree<Integer, String> answer = bst.subTree(100, 1099);
+		assertEquals(900, answer.size());
+		// 900 nodes fit in 10 levels when perfectly balanced.
+		assertEquals(10, answer.getHeight());
+		assertEquals(Integer.valueOf(100), answer.find(100).getKey());
+		assertEquals(Integer.valueOf(999), answer.find(999).getKey());
+		assertNull(answer.find(99));
+		answer.add(2000, "b");
+		assertFalse(bst.containsKey(2000));
+	}
+	
+	@Test
+	public void testingSubtreeView01() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 10);
+		BinarySearchTree<Integer, String>.RangeView view = bst.subTreeView(3, 6);
+		assertTrue(view.isEmpty());
+		assertEquals("EMPTY TREE", view.toString());
+		bst.add(5, "d");
+		bst.add(3, "b");
+		bst.add(7, "f");
+		bst.add(2, "a");
+		bst.add(4, "c");
+		assertEquals("{3:b}{4:c}{5:d}", view.toString());
+		bst.add(6, "e");
+		assertEquals(4, view.size());
+		assertEquals(Integer.valueOf(3), view.getMinimumKeyValue().getKey());
+		assertEquals(Integer.valueOf(6), view.getMaximumKeyValue().getKey());
+		assertNull(view.find(7));
+		assertEquals("c", view.find(4).getValue());
+		assertFalse(view.containsKey(2));
+		bst.delete(4);
+		assertEquals("{3:b}{5:d}{6:e}", view.toTree().toString());
+		try {
+			bst.subTreeView(6, 3);
+			assertTrue(false);
+		} catch (IllegalArgumentException e) {
+			assertTrue(true);
+		}
+	}
+	
+	@Test
+	public void testingIterator01() throws TreeIsFullException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 10);
+		assertFalse(bst.iterator().hasNext());
+		bst.add(5, "d");
+		bst.add(3, "b");
+		bst.add(7, "f");
+		bst.add(2, "a");
+		bst.add(4, "c");
+		bst.add(6, "e");
+		bst.add(8, "g");
+		String answer = "";
+		for (KeyValuePair<Integer, String> pair : bst) {
+			answer += pair.getKey();
+		}
+		assertEquals("2345678", answer);
+		answer = "";
+		Iterator<KeyValuePair<Integer, String>> descending = 
+				bst.descendingIterator();
+		while (descending.hasNext()) {
+			answer += descending.next().getValue();
+		}
+		assertEquals("gfedcba", answer);
+		answer = "";
+		for (KeyValuePair<Integer, String> pair : bst.subTreeView(3, 6)) {
+			answer += pair.getKey();
+		}
+		assertEquals("3456", answer);
+		assertEquals(7, StreamSupport.stream(bst.spliterator(), false).count());
+		Iterator<KeyValuePair<Integer, String>> iterator = bst.iterator();
+		iterator.next();
+		bst.add(9, "h");
+		try {
+			iterator.next();
+			assertTrue(false);
+		} catch (ConcurrentModificationException e) {
+			assertTrue(true);
+		}
+	}
+	
+	@Test
+	public void testingCursor01() throws TreeIsFullException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 1000, true);
+		for (int i = 0; i < 1000; i += 2) {
+			bst.add(i, "a");
+		}
+		BinarySearchTree<Integer, String>.Cursor cursor = bst.cursor();
+		assertFalse(cursor.isValid());
+		// The first 5 keys greater than or equal to 501.
+		String answer = "";
+		for (cursor.seek(501); cursor.isValid() && answer.length() < 15; 
+				cursor.next()) {
+			answer += cursor.getKey();
+		}
+		assertEquals("502504506508510", answer);
+		assertTrue(cursor.prev());
+		assertEquals(Integer.valueOf(510), cursor.getKey());
+		assertTrue(cursor.first());
+		assertFalse(cursor.prev());
+		assertFalse(cursor.isValid());
+		assertTrue(cursor.last());
+		assertEquals(Integer.valueOf(998), cursor.getKey());
+		assertFalse(cursor.next());
+		assertFalse(cursor.seek(999));
+	}
+	
+	@Test
+	public void testingNavigation01() throws TreeIsFullException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 10);
+		assertNull(bst.floor(5));
+		bst.add(50, "d");
+		bst.add(30, "b");
+		bst.add(70, "f");
+		bst.add(20, "a");
+		bst.add(40, "c");
+		bst.add(60, "e");
+		assertEquals(Integer.valueOf(40), bst.floor(45).getKey());
+		assertEquals(Integer.valueOf(40), bst.floor(40).getKey());
+		assertNull(bst.floor(10));
+		assertEquals(Integer.valueOf(50), bst.ceiling(45).getKey());
+		assertEquals(Integer.valueOf(40), bst.ceiling(40).getKey());
+		assertNull(bst.ceiling(71));
+		assertEquals(Integer.valueOf(30), bst.lower(40).getKey());
+		assertNull(bst.lower(20));
+		assertEquals(Integer.valueOf(50), bst.higher(40).getKey());
+		assertNull(bst.higher(70));
+	}
+	
+	@Test
+	public void testingRankSelect01() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 1000, true);
+		for (int i = 0; i < 1000; i++) {
+			bst.add(i * 2, "a");
+		}
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, bst.rank(i * 2));
+			assertEquals(i + 1, bst.rank(i * 2 + 1));
+			assertEquals(Integer.valueOf(i * 2), bst.select(i).getKey());
+		}
+		for (int i = 0; i < 1000; i += 3) {
+			bst.delete(i * 2);
+		}
+		assertEquals(666, bst.size());
+		assertEquals(Integer.valueOf(4), bst.select(1).getKey());
+		assertEquals(2, bst.rank(6));
+		assertEquals(1996, bst.select(665).getKey().intValue());
+		assertEquals(2, bst.subTreeView(1, 6).size());
+		try {
+			bst.select(666);
+			assertTrue(false);
+		} catch (IllegalArgumentException e) {
+			assertTrue(true);
+		}
+	}
+	
+	@Test
+	public void testingConcurrentTree01() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		ConcurrentBinarySearchTree<Integer, String> bst = 
+				new ConcurrentBinarySearchTree<Integer, String>(comparator, 6);
+		assertEquals("EMPTY TREE", bst.toString());
+		for (int i = 1; i <= 6; i++) {
+			bst.add(i, "a");
+		}
+		assertEquals(3, bst.getHeight());
+		bst.add(6, "b");
+		try {
+			bst.add(7, "a");
+			assertTrue(false);
+		} catch (TreeIsFullException e) {
+			assertTrue(true);
+		}
+		assertNull(bst.delete(9));
+		bst.delete(3);
+		assertEquals("{1:a}{2:a}{4:a}{5:a}{6:b}", bst.toString());
+		assertEquals("{2:a}{4:a}", bst.subTree(2, 4).toString());
+		assertEquals("[a, b]", bst.getLeavesValues().toString());
+		assertEquals(Integer.valueOf(1), bst.getMinimumKeyValue().getKey());
+		assertEquals("b", bst.getMaximumKeyValue().getValue());
+	}
+	
+	// Writers own disjoint key ranges and must always read their own writes,
+	// while readers must never see a value that was not written for a key.
+	@Test
+	public void testingConcurrentTree02() throws Exception {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		final int writers = 4, keysPerWriter = 5000;
+		final ConcurrentBinarySearchTree<Integer, String> bst = 
+				new ConcurrentBinarySearchTree<Integer, String>(comparator, 
+						writers * keysPerWriter);
+		final AtomicReference<Throwable> failure = 
+				new AtomicReference<Throwable>();
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		Thread[] threads = new Thread[writers * 2];
+		for (int t = 0; t < writers; t++) {
+			final int first = t * keysPerWriter;
+			threads[t] = new Thread() {
+				public void run() {
+					try {
+						for (int key = first; key < first + keysPerWriter; key++) {
+							bst.add(key, "v" + key);
+							assertEquals("v" + key, bst.get(key));
+						}
+						for (int key = first; key < first + keysPerWriter; key += 2) {
+							assertNotNull(bst.delete(key));
+							assertFalse(bst.containsKey(key));
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			};
+			threads[writers + t] = new Thread() {
+				public void run() {
+					try {
+						int key = first;
+						while (writing.get()) {
+							String value = bst.get(key);
+							assertTrue(value == null || value.equals("v" + key));
+							key = (key * 31 + 7) % (writers * keysPerWriter);
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			};
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (int t = 0; t < writers; t++) {
+			threads[t].join();
+		}
+		writing.set(false);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(failure.get());
+		assertEquals(writers * keysPerWriter / 2, bst.size());
+		for (int key = 0; key < writers * keysPerWriter; key++) {
+			assertEquals(key % 2 == 1, bst.containsKey(key));
+		}
+	}
+	
+	@Test
+	public void testingPersistentTree01() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		PersistentBinarySearchTree<Integer, String> empty = 
+				new PersistentBinarySearchTree<Integer, String>(comparator, 10);
+		PersistentBinarySearchTree<Integer, String> version1 = 
+				empty.add(5, "d").add(3, "b").add(7, "f");
+		PersistentBinarySearchTree<Integer, String> version2 = 
+				version1.add(3, "x").add(9, "h");
+		PersistentBinarySearchTree<Integer, String> version3 = 
+				version2.delete(5);
+		assertEquals("EMPTY TREE", empty.toString());
+		assertEquals("{3:b}{5:d}{7:f}", version1.toString());
+		assertEquals("{3:x}{5:d}{7:f}{9:h}", version2.toString());
+		assertEquals("{3:x}{7:f}{9:h}", version3.toString());
+		assertSame(version3, version3.delete(5));
+		assertSame(version3, version3.snapshot());
+		String answer = "";
+		for (KeyValuePair<Integer, String> pair : version2) {
+			answer += pair.getKey();
+		}
+		assertEquals("3579", answer);
+	}
+	
+	@Test
+	public void testingPersistentTree02() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		ConcurrentBinarySearchTree<Integer, String> bst = 
+				new ConcurrentBinarySearchTree<Integer, String>(comparator, 100);
+		for (int i = 0; i < 50; i++) {
+			bst.add(i, "a");
+		}
+		PersistentBinarySearchTree<Integer, String> snapshot = bst.snapshot();
+		for (int i = 0; i < 50; i += 2) {
+			bst.delete(i);
+		}
+		bst.add(70, "b");
+		assertEquals(50, snapshot.size());
+		assertTrue(snapshot.containsKey(0));
+		assertFalse(snapshot.containsKey(70));
+		assertEquals(26, bst.size());
+		assertEquals(6, snapshot.getHeight());
+		assertEquals("{10:a}{11:a}{12:a}", snapshot.subTree(10, 12).toString());
+		assertEquals("{49:a}", snapshot.subTree(49, 100).toString());
+		assertEquals("{1:a}{3:a}", bst.subTree(-5, 4).toString());
+		assertEquals(0, bst.subTree(50, 69).size());
+		// A narrow range only visits the nodes near the search paths to its 
+		// limits.
+		final AtomicLong comparisons = new AtomicLong();
+		Comparator<Integer> counting = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				comparisons.incrementAndGet();
+				return int1.compareTo(int2);
+			}
+		};
+		PersistentBinarySearchTree<Integer, String> large = 
+				new PersistentBinarySearchTree<Integer, String>(counting, 10000);
+		for (int i = 0; i < 10000; i++) {
+			large = large.add(i, "a");
+		}
+		comparisons.set(0);
+		assertEquals(3, large.subTree(5000, 5002).size());
+		assertTrue(comparisons.get() < 100);
+	}
+	
+	@Test
+	public void testingBulkLoad01() throws TreeIsFullException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		int entries = 1000000;
+		List<KeyValuePair<Integer, String>> pairs = 
+				new ArrayList<KeyValuePair<Integer, String>>();
+		for (int i = 0; i < entries; i++) {
+			pairs.add(new KeyValuePair<Integer, String>(i, "a"));
+		}
+		BinarySearchTree<Integer, String> bst = 
+				BinarySearchTree.bulkLoad(comparator, entries, pairs);
+		assertEquals(entries, bst.size());
+		assertTrue(bst.isSelfBalancing());
+		assertEquals(20, bst.getHeight());
+		assertEquals(Integer.valueOf(123456), bst.select(123456).getKey());
+		try {
+			BinarySearchTree.bulkLoad(comparator, entries - 1, pairs);
+			assertTrue(false);
+		} catch (TreeIsFullException e) {
+			assertTrue(true);
+		}
+		Collections.reverse(pairs);
+		try {
+			BinarySearchTree.bulkLoad(comparator, entries, pairs.stream());
+			assertTrue(false);
+		} catch (IllegalArgumentException e) {
+			assertTrue(true);
+		}
+		Collections.shuffle(pairs, new Random(1));
+		bst = BinarySearchTree.bulkLoadUnsorted(comparator, entries, pairs);
+		assertEquals(entries, bst.size());
+		assertEquals(20, bst.getHeight());
+	}
+	
+	@Test
+	public void testingBulkLoad02() throws TreeIsFullException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		KeyValuePair<Integer, String>[] pairs = new KeyValuePair[] {
+			new KeyValuePair<Integer, String>(1, "a"),
+			new KeyValuePair<Integer, String>(2, "b"),
+			new KeyValuePair<Integer, String>(2, "c"),
+			new KeyValuePair<Integer, String>(3, "d")
+		};
+		BinarySearchTree<Integer, String> bst = 
+				BinarySearchTree.bulkLoad(comparator, 3, pairs);
+		assertEquals("{1:a}{2:c}{3:d}", bst.toString());
+		assertTrue(bst.isFull());
+		List<KeyValuePair<Integer, String>> unsorted = 
+				new ArrayList<KeyValuePair<Integer, String>>();
+		unsorted.add(new KeyValuePair<Integer, String>(3, "x"));
+		unsorted.add(new KeyValuePair<Integer, String>(1, "y"));
+		unsorted.add(new KeyValuePair<Integer, String>(3, "z"));
+		bst = BinarySearchTree.bulkLoadUnsorted(comparator, 3, unsorted);
+		assertEquals("{1:y}{3:z}", bst.toString());
+	}
+	
+	@Test
+	public void testingBatchOperations01() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 5);
+		List<KeyValuePair<Integer, String>> pairs = 
+				new ArrayList<KeyValuePair<Integer, String>>();
+		pairs.add(new KeyValuePair<Integer, String>(4, "d"));
+		pairs.add(new KeyValuePair<Integer, String>(2, "b"));
+		pairs.add(new KeyValuePair<Integer, String>(4, "x"));
+		pairs.add(new KeyValuePair<Integer, String>(1, "a"));
+		bst.addAll(pairs);
+		assertEquals("{1:a}{2:b}{4:x}", bst.toString());
+		pairs.add(new KeyValuePair<Integer, String>(3, "c"));
+		pairs.add(new KeyValuePair<Integer, String>(5, "e"));
+		pairs.add(new KeyValuePair<Integer, String>(6, "f"));
+		try {
+			bst.addAll(pairs);
+			assertTrue(false);
+		} catch (TreeIsFullException e) {
+			assertTrue(true);
+		}
+		assertEquals("{1:a}{2:b}{4:x}", bst.toString());
+		List<Integer> keys = new ArrayList<Integer>();
+		keys.add(4);
+		keys.add(3);
+		keys.add(1);
+		List<KeyValuePair<Integer, String>> found = bst.findAll(keys);
+		assertEquals("x", found.get(0).getValue());
+		assertNull(found.get(1));
+		assertEquals("a", found.get(2).getValue());
+		assertEquals(2, bst.deleteAll(keys));
+		assertEquals("{2:b}", bst.toString());
+	}
+	
+	// Batches applied in one ordered walk must match the same keys applied 
+	// one at a time, whatever order the batch arrives in.
+	@Test
+	public void testingBatchOperations02() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		Random random = new Random(7);
+		for (int round = 0; round < 20; round++) {
+			boolean balanced = round % 2 == 0;
+			BinarySearchTree<Integer, String> batched = 
+					new BinarySearchTree<Integer, String>(comparator, 5000, balanced);
+			BinarySearchTree<Integer, String> single = 
+					new BinarySearchTree<Integer, String>(comparator, 5000, balanced);
+			List<KeyValuePair<Integer, String>> pairs = 
+					new ArrayList<KeyValuePair<Integer, String>>();
+			List<Integer> keys = new ArrayList<Integer>();
+			for (int i = 0; i < 1000; i++) {
+				int key = random.nextInt(3000);
+				pairs.add(new KeyValuePair<Integer, String>(key, "v" + i));
+				single.add(key, "v" + i);
+				keys.add(random.nextInt(3000));
+			}
+			batched.addAll(pairs);
+			assertEquals(single.toString(), batched.toString());
+			List<KeyValuePair<Integer, String>> found = batched.findAll(keys);
+			for (int i = 0; i < keys.size(); i++) {
+				KeyValuePair<Integer, String> expected = single.find(keys.get(i));
+				if (expected == null) {
+					assertNull(found.get(i));
+				} else {
+					assertEquals(expected.getValue(), found.get(i).getValue());
+				}
+			}
+			int deleted = 0;
+			for (Integer key : keys) {
+				if (single.delete(key) != null) {
+					deleted++;
+				}
+			}
+			assertEquals(deleted, batched.deleteAll(keys));
+			assertEquals(single.toString(), batched.toString());
+			assertEquals(single.size(), batched.size());
+		}
+	}
+	
+	// The long-keyed tree must behave exactly like the generic tree over the 
+	// same operations, including keys at the extremes of the long range.
+	@Test
+	public void testingLongTree01() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Long> comparator = new Comparator<Long>() {
+			public int compare(Long long1, Long long2) {
+				return long1.compareTo(long2);
+			}
+		};
+		Random random = new Random(12);
+		for (int round = 0; round < 4; round++) {
+			boolean balanced = round % 2 == 0;
+			LongBinarySearchTree<String> primitive = 
+					new LongBinarySearchTree<String>(3000, balanced);
+			BinarySearchTree<Long, String> generic = 
+					new BinarySearchTree<Long, String>(comparator, 3000, balanced);
+			primitive.add(Long.MIN_VALUE, "min").add(Long.MAX_VALUE, "max");
+			generic.add(Long.MIN_VALUE, "min").add(Long.MAX_VALUE, "max");
+			for (int i = 0; i < 2000; i++) {
+				long key = random.nextInt(1500) - 750L;
+				if (random.nextInt(3) == 0) {
+					assertEquals(generic.delete(key) == null, 
+							primitive.delete(key) == null);
+				} else {
+					primitive.add(key, "v" + i);
+					generic.add(key, "v" + i);
+				}
+			}
+			assertEquals(generic.toString(), primitive.toString());
+			assertEquals(generic.size(), primitive.size());
+			assertEquals(Long.MIN_VALUE, primitive.minKey());
+			assertEquals("max", primitive.getMaximumKeyValue().getValue());
+			assertEquals(generic.getLeavesValues(), primitive.getLeavesValues());
+			assertEquals(generic.subTree(-100L, 100L).toString(), 
+					primitive.subTree(-100, 100).toString());
+			if (balanced) {
+				assertTrue(primitive.getHeight() <= 16);
+			}
+		}
+	}
+	
+	@Test
+	public void testingLongTree02() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		LongBinarySearchTree<String> bst = new LongBinarySearchTree<String>(3);
+		bst.add(20, "b").add(10, "a").add(30, "c");
+		assertTrue(bst.isFull());
+		bst.add(30, "c");
+		try {
+			bst.add(40, "d");
+			fail();
+		} catch (TreeIsFullException e) {
+		}
+		final StringBuilder order = new StringBuilder();
+		bst.processInorder(new LongCallback<String>() {
+			public void process(long key, String value) {
+				order.append(key).append(value);
+			}
+		});
+		assertEquals("10a20b30c", order.toString());
+		assertEquals("b", bst.find(20).getValue());
+		assertNull(bst.find(25));
+		assertNull(bst.delete(25));
+		assertNotNull(bst.delete(20));
+		assertFalse(bst.containsKey(20));
+		assertEquals("{10:a}{30:c}", bst.toString());
+		assertEquals(0, bst.subTree(11, 29).size());
+	}
+	
+	// The array-backed tree must behave exactly like the node-backed tree 
+	// over the same operations.
+	@Test
+	public void testingArrayTree01() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		Random random = new Random(13);
+		for (int round = 0; round < 4; round++) {
+			boolean balanced = round % 2 == 0;
+			ArrayBinarySearchTree<Integer, String> array = 
+					new ArrayBinarySearchTree<Integer, String>(comparator, 3000, 
+							balanced);
+			BinarySearchTree<Integer, String> nodes = 
+					new BinarySearchTree<Integer, String>(comparator, 3000, balanced);
+			for (int i = 0; i < 4000; i++) {
+				int key = random.nextInt(1500);
+				if (random.nextInt(3) == 0 && !nodes.isEmpty()) {
+					assertEquals(nodes.delete(key) == null, array.delete(key) == null);
+				} else {
+					array.add(key, "v" + i);
+					nodes.add(key, "v" + i);
+				}
+				if (i % 500 == 0) {
+					assertEquals(nodes.toString(), array.toString());
+				}
+			}
+			assertEquals(nodes.toString(), array.toString());
+			assertEquals(nodes.size(), array.size());
+			assertEquals(nodes.getHeight(), array.getHeight());
+			assertEquals(nodes.getLeavesValues(), array.getLeavesValues());
+			assertEquals(nodes.getMinimumKeyValue().getValue(), 
+					array.getMinimumKeyValue().getValue());
+			assertEquals(nodes.subTree(100, 900).toString(), 
+					array.subTree(100, 900).toString());
+		}
+	}
+	
+	// Deleted slots are reused, so churn at a steady size never grows the 
+	// arrays, and a full tree takes less memory per entry than nodes do.
+	@Test
+	public void testingArrayTree02() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		ArrayBinarySearchTree<Integer, Integer> bst = 
+				new ArrayBinarySearchTree<Integer, Integer>(comparator, 1024, true);
+		for (int i = 0; i < 1024; i++) {
+			bst.add(i, i);
+		}
+		double full = bst.bytesPerEntry();
+		assertTrue(full < BinarySearchTree.NODE_BYTES_PER_ENTRY);
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 512; i++) {
+				bst.delete(i * 2 + round % 2);
+			}
+			for (int i = 0; i < 512; i++) {
+				bst.add(i * 2 + round % 2, round);
+			}
+		}
+		assertEquals(1024, bst.size());
+		assertEquals(full, bst.bytesPerEntry(), 0.0);
+		assertEquals(Integer.valueOf(9), bst.get(1));
+		assertEquals(Integer.valueOf(8), bst.get(0));
+		// A full tree still updates the keys it holds.
+		bst.add(5, -5);
+		assertEquals(Integer.valueOf(-5), bst.get(5));
+		try {
+			bst.add(1024, 0);
+			fail();
+		} catch (TreeIsFullException e) {
+		}
+	}
+	
+	// Splits, borrows and merges at every fan-out must keep the B+-tree in 
+	// step with the binary tree, and its linked leaves in key order.
+	@Test
+	public void testingBPlusTree01() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		Random random = new Random(14);
+		int[] orders = {3, 4, 5, 8, 64};
+		for (int order : orders) {
+			BPlusTree<Integer, String> btree = 
+					new BPlusTree<Integer, String>(comparator, 3000, order);
+			BinarySearchTree<Integer, String> bst = 
+					new BinarySearchTree<Integer, String>(comparator, 3000, true);
+			for (int i = 0; i < 6000; i++) {
+				int key = random.nextInt(2000);
+				if (random.nextInt(2) == 0 && !bst.isEmpty()) {
+					assertEquals(bst.delete(key) == null, btree.delete(key) == null);
+				} else {
+					bst.add(key, "v" + i);
+					btree.add(key, "v" + i);
+				}
+				if (i % 250 == 0) {
+					assertEquals(bst.toString(), btree.toString());
+				}
+			}
+			assertEquals(bst.toString(), btree.toString());
+			assertEquals(bst.size(), btree.size());
+			assertEquals(bst.find(7) == null, btree.find(7) == null);
+			assertEquals(bst.minKey(), btree.minKey());
+			assertEquals(bst.maxKey(), btree.maxKey());
+			assertEquals(bst.subTree(300, 1200).toString(), 
+					btree.subTree(300, 1200).toString());
+			StringBuilder iterated = new StringBuilder();
+			for (KeyValuePair<Integer, String> pair : btree) {
+				iterated.append('{').append(pair.getKey()).append(':')
+						.append(pair.getValue()).append('}');
+			}
+			assertEquals(bst.toString(), iterated.toString());
+			for (int key = 0; key < 2000; key++) {
+				if (bst.containsKey(key)) {
+					bst.delete(key);
+					assertNotNull(btree.delete(key));
+				}
+			}
+			assertTrue(btree.isEmpty());
+			assertEquals(0, btree.getHeight());
+		}
+	}
+	
+	@Test
+	public void testingBPlusTree02() 
+			throws TreeIsFullException, TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BPlusTree<Integer, Integer> btree = 
+				new BPlusTree<Integer, Integer>(comparator, 100000, 16);
+		for (int i = 0; i < 100000; i++) {
+			btree.add(i, i);
+		}
+		assertTrue(btree.isFull());
+		assertTrue(btree.getHeight() <= 1 + (int) Math.ceil(
+				Math.log(100000) / Math.log(8)));
+		try {
+			btree.add(100000, 0);
+			fail();
+		} catch (TreeIsFullException e) {
+		}
+		btree.add(5, 55);
+		assertEquals(Integer.valueOf(55), btree.get(5));
+		BPlusTree<Integer, Integer> sub = btree.subTree(1000, 1999);
+		assertEquals(1000, sub.size());
+		assertEquals(Integer.valueOf(1000), sub.minKey());
+		assertEquals(Integer.valueOf(1999), sub.maxKey());
+		sub.add(5000, 1).delete(1500);
+		assertEquals(1000, sub.size());
+		assertNull(sub.find(1500));
+		assertEquals(0, btree.subTree(200000, 300000).size());
+		Iterator<KeyValuePair<Integer, Integer>> iterator = btree.iterator();
+		iterator.next();
+		btree.delete(0);
+		try {
+			iterator.next();
+			fail();
+		} catch (ConcurrentModificationException e) {
+		}
+	}
+	
+	@Test
+	public void testingMappedTreeFile01() 
+			throws TreeIsFullException, TreeIsEmptyException, IOException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 10000, true);
+		for (int i = 0; i < 5000; i++) {
+			bst.add(i * 3, "v\u00e9\u4e2d\ud83d\ude00" + i);
+		}
+		Path file = Files.createTempFile("tree", ".bst");
+		try {
+			MappedTreeFile.save(bst, file, TreeSerializer.INTEGER, 
+					TreeSerializer.STRING);
+			MappedTreeFile<Integer, String> mapped = MappedTreeFile.open(file, 
+					comparator, TreeSerializer.INTEGER, TreeSerializer.STRING);
+			assertEquals(5000, mapped.size());
+			for (int key = 0; key < 15000; key++) {
+				assertEquals(bst.get(key), mapped.get(key));
+			}
+			assertEquals(Integer.valueOf(0), mapped.getMinimumKeyValue().getKey());
+			assertEquals(Integer.valueOf(14997), 
+					mapped.getMaximumKeyValue().getKey());
+			assertEquals(bst.toString(), mapped.toString());
+			BinarySearchTree<Integer, String> reloaded = mapped.toTree(10000);
+			assertEquals(bst.toString(), reloaded.toString());
+			assertEquals(bst.getHeight(), reloaded.getHeight());
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testingMappedTreeFile02() throws IOException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		Path file = Files.createTempFile("tree", ".bst");
+		try {
+			MappedTreeFile.save(new BinarySearchTree<Integer, Long>(comparator, 1), 
+					file, TreeSerializer.INTEGER, TreeSerializer.LONG);
+			MappedTreeFile<Integer, Long> mapped = MappedTreeFile.open(file, 
+					comparator, TreeSerializer.INTEGER, TreeSerializer.LONG);
+			assertTrue(mapped.isEmpty());
+			assertNull(mapped.find(1));
+			assertEquals("EMPTY TREE", mapped.toString());
+			Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 
+					13, 14, 15, 16, 17});
+			try {
+				MappedTreeFile.open(file, comparator, TreeSerializer.INTEGER, 
+						TreeSerializer.LONG);
+				fail();
+			} catch (IOException e) {
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	// Cutting the log at any byte, as a crash mid-write would, must recover 
+	// exactly the mutations whose records were completely written.
+	@Test
+	public void testingWriteAheadLog01() 
+			throws TreeIsFullException, TreeIsEmptyException, IOException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		Path directory = Files.createTempDirectory("durable");
+		Path crashed = Files.createTempDirectory("crashed");
+		try {
+			DurableBinarySearchTree<Integer, String> bst = 
+					DurableBinarySearchTree.open(directory, comparator, 100, 
+							TreeSerializer.INTEGER, TreeSerializer.STRING, 
+							WriteAheadLog.SyncPolicy.EVERY_WRITE, 1);
+			Random random = new Random(16);
+			List<Long> ends = new ArrayList<Long>();
+			List<String> states = new ArrayList<String>();
+			ends.add(0L);
+			states.add(bst.toString());
+			for (int i = 0; i < 150; i++) {
+				int key = random.nextInt(60);
+				if (i % 4 == 3 && !bst.isEmpty() && bst.containsKey(key)) {
+					bst.delete(key);
+				} else {
+					bst.add(key, "v" + i);
+				}
+				ends.add(Files.size(directory.resolve("wal.log")));
+				states.add(bst.toString());
+			}
+			bst.close();
+			byte[] log = Files.readAllBytes(directory.resolve("wal.log"));
+			for (int cut = 0, records = 0; cut <= log.length; cut += 3) {
+				while (records + 1 < ends.size() && ends.get(records + 1) <= cut) {
+					records++;
+				}
+				Files.write(crashed.resolve("wal.log"), Arrays.copyOf(log, cut));
+				DurableBinarySearchTree<Integer, String> recovered = 
+						DurableBinarySearchTree.open(crashed, comparator, 100, 
+								TreeSerializer.INTEGER, TreeSerializer.STRING, 
+								WriteAheadLog.SyncPolicy.EVERY_WRITE, 1);
+				assertEquals(states.get(records), recovered.toString());
+				recovered.close();
+				assertEquals((long) ends.get(records), 
+						Files.size(crashed.resolve("wal.log")));
+			}
+		} finally {
+			for (Path root : new Path[] {directory, crashed}) {
+				try (DirectoryStream<Path> files = Files.newDirectoryStream(root)) {
+					for (Path file : files) {
+						Files.delete(file);
+					}
+				}
+				Files.delete(root);
+			}
+		}
+	}
+	
+	// A checkpoint empties the log; a corrupted record stops the replay of 
+	// it and everything after it.
+	@Test
+	public void testingWriteAheadLog02() 
+			throws TreeIsFullException, TreeIsEmptyException, IOException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		Path directory = Files.createTempDirectory("durable");
+		try {
+			DurableBinarySearchTree<Integer, Long> bst = 
+					DurableBinarySearchTree.open(directory, comparator, 1000, 
+							TreeSerializer.INTEGER, TreeSerializer.LONG, 
+							WriteAheadLog.SyncPolicy.GROUP_COMMIT, 16);
+			for (int i = 0; i < 500; i++) {
+				bst.add(i, (long) i);
+			}
+			bst.checkpoint();
+			assertEquals(0, Files.size(directory.resolve("wal.log")));
+			bst.delete(0);
+			bst.add(1, 100L);
+			bst.add(600, 600L);
+			bst.close();
+			bst = DurableBinarySearchTree.open(directory, comparator, 1000, 
+					TreeSerializer.INTEGER, TreeSerializer.LONG, 
+					WriteAheadLog.SyncPolicy.NONE, 1);
+			assertEquals(500, bst.size());
+			assertNull(bst.get(0));
+			assertEquals(Long.valueOf(100), bst.get(1));
+			assertEquals(Long.valueOf(600), bst.get(600));
+			bst.close();
+			byte[] log = Files.readAllBytes(directory.resolve("wal.log"));
+			log[log.length - 6] ^= 1;
+			Files.write(directory.resolve("wal.log"), log);
+			bst = DurableBinarySearchTree.open(directory, comparator, 1000, 
+					TreeSerializer.INTEGER, TreeSerializer.LONG, 
+					WriteAheadLog.SyncPolicy.EVERY_WRITE, 1);
+			assertNull(bst.get(600));
+			assertEquals(Long.valueOf(100), bst.get(1));
+			assertTrue(bst.getHeight() <= 10);
+			bst.close();
+			// A crash after the checkpoint is moved into place but before the
+			// log is emptied leaves the new snapshot next to the old log, 
+			// whose replay passes through more nodes than a full tree holds.
+			Files.delete(directory.resolve("snapshot.bst"));
+			Files.delete(directory.resolve("wal.log"));
+			bst = DurableBinarySearchTree.open(directory, comparator, 2, 
+					TreeSerializer.INTEGER, TreeSerializer.LONG, 
+					WriteAheadLog.SyncPolicy.EVERY_WRITE, 1);
+			bst.add(1, 1L).add(2, 2L).delete(1);
+			bst.add(3, 3L);
+			log = Files.readAllBytes(directory.resolve("wal.log"));
+			bst.checkpoint();
+			bst.close();
+			Files.write(directory.resolve("wal.log"), log);
+			bst = DurableBinarySearchTree.open(directory, comparator, 2, 
+					TreeSerializer.INTEGER, TreeSerializer.LONG, 
+					WriteAheadLog.SyncPolicy.EVERY_WRITE, 1);
+			assertEquals("{2:2}{3:3}", bst.toString());
+			assertTrue(bst.isFull());
+			bst.close();
+			// A log that really ends with more nodes than maxEntries is 
+			// still refused.
+			Files.delete(directory.resolve("snapshot.bst"));
+			try {
+				DurableBinarySearchTree.open(directory, comparator, 1, 
+						TreeSerializer.INTEGER, TreeSerializer.LONG, 
+						WriteAheadLog.SyncPolicy.EVERY_WRITE, 1);
+				fail();
+			} catch (TreeIsFullException e) {
+			}
+			// A group larger than the write buffer is still written and forced
+			// as a whole once its last record is logged.
+			Path file = directory.resolve("group.log");
+			WriteAheadLog<Integer, Long> group = new WriteAheadLog<Integer, Long>(
+					file, TreeSerializer.INTEGER, TreeSerializer.LONG, 
+					WriteAheadLog.SyncPolicy.GROUP_COMMIT, 1000);
+			for (int i = 0; i < 999; i++) {
+				group.logAdd(i, (long) i);
+			}
+			long partial = Files.size(file);
+			group.logAdd(999, 999L);
+			long whole = Files.size(file);
+			group.logAdd(1000, 1000L);
+			group.close();
+			long record = Files.size(file) / 1001;
+			assertEquals(1001 * record, Files.size(file));
+			assertTrue(partial < 999 * record);
+			assertEquals(1000 * record, whole);
+		} finally {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+				for (Path file : files) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(directory);
+		}
+	}
+	
+	// Parallel folds must match a sequential pass in key order on balanced 
+	// and degenerate trees alike.
+	@Test
+	public void testingParallelTraversal01() throws TreeIsFullException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int round = 0; round < 2; round++) {
+				boolean balanced = round == 0;
+				BinarySearchTree<Integer, String> bst = 
+						new BinarySearchTree<Integer, String>(comparator, 20000, 
+								balanced);
+				for (int i = 0; i < 10000; i++) {
+					bst.add(balanced ? (i * 7919) % 10000 : i, "v" + i);
+				}
+				final AtomicLong sum = new AtomicLong();
+				bst.parallelForEach(new Callback<Integer, String>() {
+					public void process(Integer key, String value) {
+						sum.addAndGet(key);
+					}
+				}, pool);
+				assertEquals(49995000L, sum.get());
+				String concatenated = bst.parallelReduce("", 
+						new Reducer<Integer, String, String>() {
+					public String accumulate(String partial, Integer key, 
+							String value) {
+						return partial + "{" + key + ":" + value + "}";
+					}
+					
+					public String combine(String left, String right) {
+						return left + right;
+					}
+				}, pool);
+				assertEquals(bst.toString(), concatenated);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void testingParallelTraversal02() throws TreeIsFullException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, Integer> bst = 
+				new BinarySearchTree<Integer, Integer>(comparator, 50000, true);
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 50000; i++) {
+			bst.add(i, i);
+			expected.add(i);
+		}
+		ToLongFunction<KeyValuePair<Integer, Integer>> key = 
+				new ToLongFunction<KeyValuePair<Integer, Integer>>() {
+			public long applyAsLong(KeyValuePair<Integer, Integer> pair) {
+				return pair.getKey();
+			}
+		};
+		assertEquals(1249975000L, bst.parallelStream().mapToLong(key).sum());
+		assertEquals(expected, bst.parallelStream().mapToLong(key).boxed()
+				.map(new Function<Long, Integer>() {
+					public Integer apply(Long value) {
+						return value.intValue();
+					}
+				}).collect(Collectors.toList()));
+		assertEquals(50000, bst.stream().count());
+		Spliterator<KeyValuePair<Integer, Integer>> right = bst.spliterator();
+		Spliterator<KeyValuePair<Integer, Integer>> left = right.trySplit();
+		assertEquals(25000, left.estimateSize());
+		assertEquals(25000, right.estimateSize());
+		assertTrue(right.tryAdvance(
+				new Consumer<KeyValuePair<Integer, Integer>>() {
+			public void accept(KeyValuePair<Integer, Integer> pair) {
+				assertEquals(Integer.valueOf(25000), pair.getKey());
+			}
+		}));
+		assertEquals(0, new BinarySearchTree<Integer, Integer>(comparator, 1)
+				.parallelReduce(0, new Reducer<Integer, Integer, Integer>() {
+			public Integer accumulate(Integer partial, Integer k, Integer v) {
+				return partial + 1;
+			}
+			
+			public Integer combine(Integer left, Integer right) {
+				return left + right;
+			}
+		}).intValue());
+	}
+	
+	@Test
+	public void testingStreamingExport01() 
+			throws TreeIsFullException, IOException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 100);
+		assertEquals("EMPTY TREE", bst.toString(0));
+		bst.add(2, "b").add(1, "a").add(3, null);
+		assertEquals("{1:a}{2:b}{3:null}", bst.toString());
+		assertEquals("{1:a}{2:b}...", bst.toString(2));
+		assertEquals("...", bst.toString(0));
+		assertEquals(bst.toString(), bst.toString(3));
+		StringWriter writer = new StringWriter();
+		bst.writeTo(writer);
+		assertEquals(bst.toString(), writer.toString());
+		try {
+			bst.toString(-1);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	@Test
+	public void testingStreamingExport02() 
+			throws TreeIsFullException, IOException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 5000);
+		StringBuilder large = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			large.append((char) ('a' + i % 26));
+		}
+		for (int i = 0; i < 3000; i++) {
+			bst.add((i * 37) % 3000, i == 1500 ? large.toString() : "v" + i);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bst.writeTo(bytes, TreeSerializer.INTEGER, TreeSerializer.STRING);
+		BinarySearchTree<Integer, String> copy = BinarySearchTree.readFrom(
+				new ByteArrayInputStream(bytes.toByteArray()), comparator, 5000, 
+				TreeSerializer.INTEGER, TreeSerializer.STRING);
+		assertEquals(bst.toString(), copy.toString());
+		assertTrue(copy.isSelfBalancing());
+		bytes.reset();
+		new BinarySearchTree<Integer, String>(comparator, 1).writeTo(bytes, 
+				TreeSerializer.INTEGER, TreeSerializer.STRING);
+		assertTrue(BinarySearchTree.readFrom(
+				new ByteArrayInputStream(bytes.toByteArray()), comparator, 1, 
+				TreeSerializer.INTEGER, TreeSerializer.STRING).isEmpty());
+		try {
+			BinarySearchTree.readFrom(new ByteArrayInputStream(new byte[8]), 
+					comparator, 1, TreeSerializer.INTEGER, TreeSerializer.STRING);
+			fail();
+		} catch (IOException e) {
+		}
+	}
+	
+	@Test
+	public void testingLeaves01() throws TreeIsFullException, 
+			TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 100);
+		assertEquals(0, bst.getLeafCount());
+		assertTrue(bst.getLeavesValues(new ArrayList<String>()).isEmpty());
+		bst.add(4, "x").add(2, "x").add(6, "y").add(1, "x").add(3, "z");
+		assertEquals(3, bst.getLeafCount());
+		assertEquals(Arrays.asList("x", "z", "y"), 
+				bst.getLeavesValues(new ArrayList<String>()));
+		final List<Integer> keys = new ArrayList<Integer>();
+		Callback<Integer, String> collect = new Callback<Integer, String>() {
+			public void process(Integer key, String value) {
+				keys.add(key);
+			}
+		};
+		bst.processLeaves(2, 5, collect);
+		assertEquals(Arrays.asList(3), keys);
+		keys.clear();
+		bst.processLeaves(0, 9, collect);
+		assertEquals(Arrays.asList(1, 3, 6), keys);
+		bst.delete(6);
+		assertEquals(2, bst.getLeafCount());
+		keys.clear();
+		bst.processLeaves(collect);
+		assertEquals(Arrays.asList(1, 3), keys);
+		try {
+			bst.processLeaves(5, 2, collect);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	@Test
+	public void testingLeaves02() throws TreeIsFullException, 
+			TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		for (boolean balanced : new boolean[] {false, true}) {
+			BinarySearchTree<Integer, Integer> bst = 
+					new BinarySearchTree<Integer, Integer>(comparator, 2000, 
+							balanced);
+			Random random = new Random(19);
+			for (int i = 0; i < 6000; i++) {
+				int key = random.nextInt(1500);
+				if (random.nextInt(3) == 0 && !bst.isEmpty()) {
+					bst.delete(key);
+				} else if (!bst.isFull() || bst.containsKey(key)) {
+					bst.add(key, key);
+				}
+				if (i % 500 == 0) {
+					final List<Integer> all = new ArrayList<Integer>();
+					bst.processLeaves(new Callback<Integer, Integer>() {
+						public void process(Integer key, Integer value) {
+							all.add(key);
+						}
+					});
+					assertEquals(bst.getLeafCount(), all.size());
+					assertEquals(all, 
+							bst.getLeavesValues(new ArrayList<Integer>()));
+					final List<Integer> range = new ArrayList<Integer>();
+					bst.processLeaves(300, 900, new Callback<Integer, Integer>() {
+						public void process(Integer key, Integer value) {
+							range.add(key);
+						}
+					});
+					List<Integer> expected = new ArrayList<Integer>();
+					for (Integer leaf : all) {
+						if (leaf >= 300 && leaf <= 900) {
+							expected.add(leaf);
+						}
+					}
+					assertEquals(expected, range);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testingMetrics01() throws TreeIsFullException, 
+			TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 100);
+		assertEquals(0, bst.getDepthDistribution().length);
+		assertEquals(0.0, bst.getAverageDepth(), 0.0);
+		TreeStatistics statistics = bst.enableMetrics();
+		assertSame(statistics, bst.getMetricsListener());
+		for (int i = 0; i < 10; i++) {
+			bst.add(i, "v" + i);
+		}
+		assertEquals(10, statistics.getAddCount());
+		assertEquals(45, statistics.getComparisonCount());
+		assertTrue(bst.containsKey(9));
+		assertEquals(10.0, statistics.getMeanFindComparisons(), 0.0);
+		assertEquals("v0", bst.get(0));
+		assertNull(bst.find(-1));
+		assertEquals(3, statistics.getFindCount());
+		bst.delete(5);
+		assertEquals(1, statistics.getDeleteCount());
+		assertEquals(0, statistics.getRotationCount());
+		assertEquals(9, statistics.getHeight());
+		assertEquals(9 / 4.0, statistics.getHeightRatio(), 1e-9);
+		assertArrayEquals(new int[] {1, 1, 1, 1, 1, 1, 1, 1, 1}, 
+				bst.getDepthDistribution());
+		assertEquals(4.0, bst.getAverageDepth(), 1e-9);
+		assertTrue(statistics.getPercentileNanos(
+				TreeMetricsListener.Operation.FIND, 100) >= 
+				statistics.getPercentileNanos(
+						TreeMetricsListener.Operation.FIND, 1));
+		bst.setMetricsListener(null);
+		assertNull(bst.getMetricsListener());
+		bst.get(3);
+		assertEquals(3, statistics.getFindCount());
+		assertEquals(bst.toString(), bst.subTree(0, 9).toString());
+		statistics.reset();
+		assertEquals(0, statistics.getAddCount());
+		assertEquals(0, statistics.getP99FindNanos());
+	}
+	
+	@Test
+	public void testingMetrics02() throws Exception {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, Integer> bst = 
+				new BinarySearchTree<Integer, Integer>(comparator, 5000, true);
+		final AtomicLong rotations = new AtomicLong();
+		bst.setMetricsListener(new TreeMetricsListener() {
+			public void operationCompleted(Operation operation, long nanos, 
+					int comparisons, int rotated) {
+				rotations.addAndGet(rotated);
+			}
+		});
+		for (int i = 0; i < 4095; i++) {
+			bst.add(i, i);
+		}
+		assertTrue(rotations.get() > 4000);
+		int[] depths = bst.getDepthDistribution();
+		assertEquals(12, depths.length);
+		for (int depth = 0; depth < depths.length; depth++) {
+			assertEquals(1 << depth, depths[depth]);
+		}
+		TreeStatistics statistics = bst.enableMetrics();
+		for (int i = 0; i < 4095; i++) {
+			bst.get(i);
+		}
+		assertEquals(bst.getAverageDepth() + 1, 
+				statistics.getMeanFindComparisons(), 1e-9);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("tests:type=TreeStatistics");
+		server.registerMBean(statistics, name);
+		try {
+			assertEquals(4095L, server.getAttribute(name, "FindCount"));
+			assertEquals(12, server.getAttribute(name, "Height"));
+			assertEquals(1.0, (Double) server.getAttribute(name, "HeightRatio"), 
+					0.0);
+			server.invoke(name, "reset", null, null);
+			assertEquals(0L, server.getAttribute(name, "FindCount"));
+		} finally {
+			server.unregisterMBean(name);
+		}
+	}
+	
+	@Test
+	public void testingFrozenTree01() throws TreeIsFullException, 
+			TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 100);
+		FrozenBinarySearchTree<Integer, String> empty = bst.freeze();
+		assertTrue(empty.isEmpty());
+		assertEquals("EMPTY TREE", empty.toString());
+		assertNull(empty.find(1));
+		try {
+			empty.getMinimumKeyValue();
+			fail();
+		} catch (TreeIsEmptyException e) {
+		}
+		bst.add(50, "a").add(20, "b").add(80, "c").add(10, "d").add(30, "e");
+		FrozenBinarySearchTree<Integer, String> frozen = bst.freeze();
+		bst.add(40, "f").delete(50);
+		assertEquals(5, frozen.size());
+		assertEquals("{10:d}{20:b}{30:e}{50:a}{80:c}", frozen.toString());
+		assertEquals("a", frozen.get(50));
+		assertEquals(10, (int) frozen.find(10).getKey());
+		assertNull(frozen.find(40));
+		assertFalse(frozen.containsKey(5));
+		assertFalse(frozen.containsKey(90));
+		assertEquals("d", frozen.getMinimumKeyValue().getValue());
+		assertEquals("c", frozen.getMaximumKeyValue().getValue());
+		assertEquals("{20:b}{30:e}{50:a}", frozen.subTree(15, 50).toString());
+		assertTrue(frozen.subTree(51, 79).isEmpty());
+		final List<Integer> keys = new ArrayList<Integer>();
+		frozen.processRange(20, 30, new Callback<Integer, String>() {
+			public void process(Integer key, String value) {
+				keys.add(key);
+			}
+		});
+		assertEquals(Arrays.asList(20, 30), keys);
+		assertEquals(frozen.toString(), frozen.toTree(5).toString());
+		try {
+			frozen.subTree(30, 20);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			bst.freeze(new ToLongFunction<Integer>() {
+				public long applyAsLong(Integer key) {
+					return key / 20;
+				}
+			});
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	@Test
+	public void testingFrozenTree02() throws TreeIsFullException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		Random random = new Random(21);
+		for (int size = 0; size <= 130; size++) {
+			BinarySearchTree<Integer, Integer> bst = 
+					new BinarySearchTree<Integer, Integer>(comparator, 
+							Math.max(size, 1), true);
+			TreeMap<Integer, Integer> map = new TreeMap<Integer, Integer>();
+			while (map.size() < size) {
+				int key = random.nextInt(4 * size) * 2;
+				bst.add(key, -key);
+				map.put(key, -key);
+			}
+			FrozenBinarySearchTree<Integer, Integer> frozen = bst.freeze();
+			FrozenBinarySearchTree<Integer, Integer> inline = 
+					bst.freeze(new ToLongFunction<Integer>() {
+				public long applyAsLong(Integer key) {
+					return key;
+				}
+			});
+			assertEquals(bst.toString(), frozen.toString());
+			for (int key = -1; key <= 8 * size + 1; key++) {
+				assertEquals(map.get(key), frozen.get(key));
+				assertEquals(map.get(key), inline.get(key));
+			}
+			for (int i = 0; i < 20; i++) {
+				int lower = random.nextInt(8 * size + 3) - 1;
+				int upper = lower + random.nextInt(2 * size + 2);
+				final List<Integer> range = new ArrayList<Integer>();
+				frozen.processRange(lower, upper, 
+						new Callback<Integer, Integer>() {
+					public void process(Integer key, Integer value) {
+						range.add(key);
+					}
+				});
+				assertEquals(new ArrayList<Integer>(
+						map.subMap(lower, true, upper, true).keySet()), range);
+			}
+		}
+	}
+	
+	@Test
+	public void testingSetOperations01() throws TreeIsFullException, 
+			TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 10, true);
+		for (int i = 1; i <= 6; i++) {
+			bst.add(i, "a" + i);
+		}
+		BinarySearchTree<Integer, String> upper = bst.split(4);
+		assertEquals("{1:a1}{2:a2}{3:a3}", bst.toString());
+		assertEquals("{4:a4}{5:a5}{6:a6}", upper.toString());
+		assertTrue(upper.isSelfBalancing());
+		try {
+			upper.join(bst);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		bst.join(upper);
+		assertTrue(upper.isEmpty());
+		assertEquals(6, bst.size());
+		assertEquals("{1:a1}{2:a2}{3:a3}{4:a4}{5:a5}{6:a6}", bst.toString());
+		BinarySearchTree<Integer, String> other = 
+				new BinarySearchTree<Integer, String>(comparator, 10);
+		other.add(5, "b5").add(6, "b6").add(7, "b7").add(8, "b8");
+		bst.union(other);
+		assertTrue(other.isEmpty());
+		assertEquals("{1:a1}{2:a2}{3:a3}{4:a4}{5:b5}{6:b6}{7:b7}{8:b8}", 
+				bst.toString());
+		other.add(2, "c").add(8, "c").add(9, "c");
+		bst.intersection(other);
+		assertEquals("{2:a2}{8:b8}", bst.toString());
+		other.add(2, "d");
+		bst.difference(other);
+		assertEquals("{8:b8}", bst.toString());
+		assertEquals(1, bst.getHeight());
+		BinarySearchTree<Integer, String> small = 
+				new BinarySearchTree<Integer, String>(comparator, 2);
+		small.add(1, "x");
+		other.add(1, "y").add(2, "y").add(3, "y");
+		try {
+			small.union(other);
+			fail();
+		} catch (TreeIsFullException e) {
+		}
+		assertEquals(3, other.size());
+		assertEquals("{1:x}", small.toString());
+		try {
+			small.union(small);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	@Test
+	public void testingSetOperations02() throws TreeIsFullException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		Random random = new Random(22);
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			for (int round = 0; round < 40; round++) {
+				boolean balanced = round % 4 != 3;
+				int size1 = round < 8 ? random.nextInt(20) : random.nextInt(6000);
+				int size2 = random.nextInt(round % 2 == 0 ? 20 : 6000);
+				int range = 2 * (size1 + size2) + 1;
+				TreeMap<Integer, Integer> map1 = new TreeMap<Integer, Integer>();
+				TreeMap<Integer, Integer> map2 = new TreeMap<Integer, Integer>();
+				BinarySearchTree<Integer, Integer> first = 
+						new BinarySearchTree<Integer, Integer>(comparator, 
+								20000, balanced);
+				BinarySearchTree<Integer, Integer> second = 
+						new BinarySearchTree<Integer, Integer>(comparator, 
+								20000, round % 3 != 0);
+				// Every fifth round adds a sorted run, the worst case for 
+				// plain trees.
+				int start = random.nextInt(range);
+				for (int i = 0; i < size1; i++) {
+					int key = round % 5 == 0 ? start + i : random.nextInt(range);
+					first.add(key, key);
+					map1.put(key, key);
+				}
+				for (int i = 0; i < size2; i++) {
+					int key = random.nextInt(range);
+					second.add(key, -key);
+					map2.put(key, -key);
+				}
+				TreeMap<Integer, Integer> expected = 
+						new TreeMap<Integer, Integer>(map1);
+				switch (round % 3) {
+				case 0:
+					expected.putAll(map2);
+					first.union(second, pool);
+					break;
+				case 1:
+					expected.keySet().retainAll(map2.keySet());
+					first.intersection(second, pool);
+					break;
+				default:
+					expected.keySet().removeAll(map2.keySet());
+					first.difference(second, pool);
+				}
+				assertTrue(second.isEmpty());
+				assertEquals(expected.size(), first.size());
+				List<Integer> keys = new ArrayList<Integer>(expected.keySet());
+				assertEquals(new ArrayList<Integer>(expected.values()), 
+						first.stream().map(
+								new Function<KeyValuePair<Integer, Integer>, 
+								Integer>() {
+							public Integer apply(
+									KeyValuePair<Integer, Integer> pair) {
+								return pair.getValue();
+							}
+						}).collect(Collectors.toList()));
+				for (int i = 0; i < keys.size(); i += 97) {
+					assertEquals(keys.get(i), first.select(i).getKey());
+				}
+				if (balanced) {
+					assertTrue(first.getHeight() <= 1.45 * 
+							(Math.log(first.size() + 2) / Math.log(2)));
+				}
+				final int[] leaves = new int[1];
+				first.processLeaves(new Callback<Integer, Integer>() {
+					public void process(Integer key, Integer value) {
+						leaves[0]++;
+					}
+				});
+				assertEquals(leaves[0], first.getLeafCount());
+				if (!keys.isEmpty()) {
+					int pivot = keys.get(random.nextInt(keys.size()));
+					BinarySearchTree<Integer, Integer> tail = first.split(pivot);
+					assertEquals(expected.headMap(pivot).size(), first.size());
+					assertEquals(expected.tailMap(pivot).size(), tail.size());
+					assertEquals(pivot, (int) tail.minKey());
+					first.join(tail);
+					assertEquals(expected.size(), first.size());
+					assertEquals(expected.lastKey(), first.maxKey());
+				}
+			}
+		} catch (TreeIsEmptyException e) {
+			fail();
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void testingEviction01() throws TreeIsFullException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, String> bst = 
+				new BinarySearchTree<Integer, String>(comparator, 3);
+		bst.add(1, "a").add(2, "b").add(3, "c");
+		bst.add(2, "updated");
+		assertEquals("{1:a}{2:updated}{3:c}", bst.toString());
+		try {
+			bst.add(4, "d");
+			fail();
+		} catch (TreeIsFullException e) {
+		}
+		final List<Integer> evicted = new ArrayList<Integer>();
+		bst.setEvictionListener(new Callback<Integer, String>() {
+			public void process(Integer key, String value) {
+				evicted.add(key);
+			}
+		});
+		bst.setEvictionPolicy(BinarySearchTree.EvictionPolicy.MIN_KEY);
+		bst.add(4, "d").add(0, "z");
+		assertEquals("{0:z}{3:c}{4:d}", bst.toString());
+		assertEquals(Arrays.asList(1, 2), evicted);
+		bst.setEvictionPolicy(BinarySearchTree.EvictionPolicy.MAX_KEY);
+		bst.add(5, "e");
+		assertEquals("{0:z}{3:c}{5:e}", bst.toString());
+		assertEquals(3, bst.getEvictionCount());
+		assertTrue(bst.containsKey(5));
+		assertNull(bst.get(4));
+		assertEquals(1, bst.getHitCount());
+		assertEquals(1, bst.getMissCount());
+		bst.resetCacheCounters();
+		assertEquals(0, bst.getEvictionCount());
+		BinarySearchTree<Integer, String> single = 
+				new BinarySearchTree<Integer, String>(comparator, 1, true);
+		single.setEvictionPolicy(BinarySearchTree.EvictionPolicy.LRU);
+		single.add(1, "a").add(2, "b");
+		assertEquals("{2:b}", single.toString());
+		try {
+			single.setEvictionPolicy(null);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	@Test
+	public void testingEviction02() throws TreeIsFullException, 
+			TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, Integer> bst = 
+				new BinarySearchTree<Integer, Integer>(comparator, 50, true);
+		bst.setEvictionPolicy(BinarySearchTree.EvictionPolicy.LRU);
+		LinkedHashMap<Integer, Integer> model = 
+				new LinkedHashMap<Integer, Integer>(16, 0.75f, true);
+		Random random = new Random(23);
+		long hits = 0, misses = 0;
+		for (int i = 0; i < 20000; i++) {
+			int key = random.nextInt(120);
+			int action = random.nextInt(10);
+			if (action < 5) {
+				assertEquals(model.get(key), bst.get(key));
+				if (model.containsKey(key)) {
+					hits++;
+				} else {
+					misses++;
+				}
+			} else if (action < 9) {
+				if (model.size() == 50 && !model.containsKey(key)) {
+					model.remove(model.keySet().iterator().next());
+				}
+				model.put(key, i);
+				bst.add(key, i);
+			} else if (model.remove(key) != null) {
+				bst.delete(key);
+			}
+		}
+		TreeMap<Integer, Integer> sorted = new TreeMap<Integer, Integer>(model);
+		StringBuilder expected = new StringBuilder();
+		for (Integer key : sorted.keySet()) {
+			expected.append('{').append(key).append(':').append(sorted.get(key))
+					.append('}');
+		}
+		assertEquals(expected.toString(), bst.toString());
+		assertEquals(hits, bst.getHitCount());
+		assertEquals(misses, bst.getMissCount());
+		BinarySearchTree<Integer, Integer> lfu = 
+				new BinarySearchTree<Integer, Integer>(comparator, 3);
+		lfu.setEvictionPolicy(BinarySearchTree.EvictionPolicy.LFU);
+		lfu.add(1, 1).add(2, 2).add(3, 3);
+		lfu.get(1);
+		lfu.get(1);
+		lfu.get(3);
+		lfu.get(2);
+		// 2 and 3 have two uses each; 3 was used less recently.
+		lfu.add(4, 4);
+		assertEquals("{1:1}{2:2}{4:4}", lfu.toString());
+		lfu.add(5, 5);
+		assertEquals("{1:1}{2:2}{5:5}", lfu.toString());
+		lfu.add(1, 10).add(6, 6);
+		assertEquals("{1:10}{2:2}{6:6}", lfu.toString());
+		// Reads through findAll count as uses, hits and misses too.
+		BinarySearchTree<Integer, Integer> lru = 
+				new BinarySearchTree<Integer, Integer>(comparator, 3);
+		lru.setEvictionPolicy(BinarySearchTree.EvictionPolicy.LRU);
+		lru.add(1, 1).add(2, 2).add(3, 3);
+		lru.findAll(Arrays.asList(2, 9, 1));
+		assertEquals(2, lru.getHitCount());
+		assertEquals(1, lru.getMissCount());
+		lru.add(4, 4);
+		assertEquals("{1:1}{2:2}{4:4}", lru.toString());
+		lru.add(5, 5);
+		assertEquals("{1:1}{4:4}{5:5}", lru.toString());
+	}
+	
+	@Test
+	public void testingExpiry01() throws TreeIsFullException, 
+			TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		final AtomicLong now = new AtomicLong(1000);
+		BinarySearchTree<Integer, Integer> bst = 
+				new BinarySearchTree<Integer, Integer>(comparator, 4, true);
+		bst.setClock(new LongSupplier() {
+			public long getAsLong() {
+				return now.get();
+			}
+		});
+		final StringBuilder expired = new StringBuilder();
+		bst.setExpiryListener(new Callback<Integer, Integer>() {
+			public void process(Integer key, Integer value) {
+				expired.append('{').append(key).append(':').append(value)
+						.append('}');
+			}
+		});
+		bst.add(1, 1, 10, TimeUnit.NANOSECONDS).add(2, 2);
+		bst.add(3, 3, 20, TimeUnit.NANOSECONDS);
+		bst.add(4, 4, 5, TimeUnit.NANOSECONDS);
+		now.set(1010);
+		// Expired nodes stay until they are looked up or swept.
+		assertEquals(4, bst.size());
+		assertNull(bst.get(1));
+		assertEquals("{1:1}", expired.toString());
+		assertEquals("{2:2}{3:3}{4:4}", bst.toString());
+		// Adding a key again replaces its time-to-live; a plain add drops it.
+		bst.add(3, 30);
+		bst.add(2, 20, 1, TimeUnit.SECONDS);
+		now.set(5000);
+		assertEquals(1, bst.sweepExpired(1));
+		assertEquals("{1:1}{4:4}", expired.toString());
+		assertEquals(0, bst.sweepExpired(10));
+		assertTrue(bst.containsKey(3));
+		assertEquals((Integer) 20, bst.get(2));
+		// A full BST makes room by removing an expired node first.
+		bst.add(5, 5, 0, TimeUnit.NANOSECONDS).add(6, 6);
+		assertTrue(bst.isFull());
+		bst.add(7, 7);
+		assertEquals("{1:1}{4:4}{5:5}", expired.toString());
+		assertEquals("{2:20}{3:30}{6:6}{7:7}", bst.toString());
+		try {
+			bst.add(8, 8);
+			fail();
+		} catch (TreeIsFullException e) {
+		}
+		bst.delete(2);
+		now.set(Long.MAX_VALUE - 10);
+		assertEquals(0, bst.sweepExpired(10));
+		bst.add(8, 8, Long.MAX_VALUE, TimeUnit.DAYS);
+		assertTrue(bst.containsKey(8));
+		// Batches see expiry too: findAll misses expired nodes and removes 
+		// them, and addAll makes room by removing them.
+		now.set(0);
+		BinarySearchTree<Integer, Integer> batch = 
+				new BinarySearchTree<Integer, Integer>(comparator, 3);
+		batch.setClock(new LongSupplier() {
+			public long getAsLong() {
+				return now.get();
+			}
+		});
+		batch.add(1, 1, 10, TimeUnit.NANOSECONDS);
+		batch.add(2, 2, 10, TimeUnit.NANOSECONDS).add(4, 4);
+		now.set(100);
+		List<KeyValuePair<Integer, Integer>> found = 
+				batch.findAll(Arrays.asList(1, 2, 4, 1));
+		assertNull(found.get(0));
+		assertNull(found.get(1));
+		assertEquals((Integer) 4, found.get(2).getValue());
+		assertNull(found.get(3));
+		assertEquals("{4:4}", batch.toString());
+		batch.add(1, 1, 10, TimeUnit.NANOSECONDS);
+		batch.add(2, 2, 10, TimeUnit.NANOSECONDS);
+		now.set(200);
+		batch.addAll(Arrays.asList(new KeyValuePair<Integer, Integer>(3, 3), 
+				new KeyValuePair<Integer, Integer>(1, 10)));
+		assertEquals("{1:10}{3:3}{4:4}", batch.toString());
+		try {
+			batch.addAll(Arrays.asList(
+					new KeyValuePair<Integer, Integer>(5, 5)));
+			fail();
+		} catch (TreeIsFullException e) {
+		}
+		try {
+			bst.add(9, 9, -1, TimeUnit.SECONDS);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			bst.add(9, 9, 1, null);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			bst.sweepExpired(-1);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			bst.setClock(null);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	@Test
+	public void testingExpiry02() throws TreeIsFullException, 
+			TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		final AtomicLong now = new AtomicLong();
+		LongSupplier clock = new LongSupplier() {
+			public long getAsLong() {
+				return now.get();
+			}
+		};
+		BinarySearchTree<Integer, Integer> bst = 
+				new BinarySearchTree<Integer, Integer>(comparator, 1000, true);
+		bst.setClock(clock);
+		TreeMap<Integer, Integer> model = new TreeMap<Integer, Integer>();
+		TreeMap<Integer, Long> deadlines = new TreeMap<Integer, Long>();
+		Random random = new Random(24);
+		for (int i = 0; i < 20000; i++) {
+			now.incrementAndGet();
+			int key = random.nextInt(300);
+			Long deadline = deadlines.get(key);
+			if (deadline != null && deadline <= now.get()) {
+				model.remove(key);
+				deadlines.remove(key);
+			}
+			int action = random.nextInt(10);
+			if (action < 4) {
+				assertEquals(model.get(key), bst.get(key));
+			} else if (action < 6) {
+				model.put(key, i);
+				deadlines.remove(key);
+				bst.add(key, i);
+			} else if (action < 8) {
+				int timeToLive = random.nextInt(200);
+				model.put(key, i);
+				deadlines.put(key, now.get() + timeToLive);
+				bst.add(key, i, timeToLive, TimeUnit.NANOSECONDS);
+			} else if (action < 9) {
+				if (model.remove(key) != null) {
+					deadlines.remove(key);
+					bst.delete(key);
+				} else if (bst.containsKey(key)) {
+					fail();
+				}
+			} else {
+				bst.sweepExpired(random.nextInt(3));
+			}
+		}
+		bst.sweepExpired(Integer.MAX_VALUE);
+		for (Integer key : new ArrayList<Integer>(deadlines.keySet())) {
+			if (deadlines.get(key) <= now.get()) {
+				model.remove(key);
+			}
+		}
+		assertEquals(model.size(), bst.size());
+		for (Integer key : model.keySet()) {
+			assertEquals(model.get(key), bst.get(key));
+		}
+		// Deadlines move with their nodes through split and join.
+		BinarySearchTree<Integer, Integer> upper = bst.split(150);
+		now.addAndGet(1000);
+		upper.sweepExpired(Integer.MAX_VALUE);
+		bst.join(upper);
+		assertTrue(upper.isEmpty());
+		int permanent = 0;
+		for (Integer key : model.keySet()) {
+			if (deadlines.containsKey(key)) {
+				assertNull(bst.get(key));
+			} else {
+				assertEquals(model.get(key), bst.get(key));
+				permanent++;
+			}
+		}
+		assertEquals(0, bst.sweepExpired(Integer.MAX_VALUE));
+		assertEquals(permanent, bst.size());
+	}
+	
+	@Test
+	public void testingLookupCache01() throws TreeIsFullException, 
+			TreeIsEmptyException {
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return int1.compareTo(int2);
+			}
+		};
+		BinarySearchTree<Integer, Integer> bst = 
+				new BinarySearchTree<Integer, Integer>(comparator, 100, true);
+		assertEquals(0, bst.getLookupCacheSize());
+		bst.setLookupCacheSize(5);
+		assertEquals(8, bst.getLookupCacheSize());
+		for (int i = 0; i < 20; i++) {
+			bst.add(i, i);
+		}
+		assertEquals((Integer) 3, bst.get(3));
+		assertEquals((Integer) 3, bst.get(3));
+		assertTrue(bst.containsKey(3));
+		assertEquals(2, bst.getLookupCacheHitCount());
+		assertEquals(1, bst.getLookupCacheMissCount());
+		assertEquals(2.0 / 3, bst.getLookupCacheHitRate(), 1e-9);
+		// With a single slot, every key replaces the last one found.
+		bst.setLookupCacheSize(1);
+		assertEquals(1, bst.getLookupCacheSize());
+		assertEquals(0, bst.getLookupCacheHitCount());
+		assertEquals(0.0, bst.getLookupCacheHitRate(), 0);
+		assertEquals((Integer) 3, bst.get(3));
+		assertEquals((Integer) 3, bst.get(3));
+		assertEquals((Integer) 11, bst.find(11).getValue());
+		assertEquals((Integer) 3, bst.get(3));
+		assertEquals(1, bst.getLookupCacheHitCount());
+		assertEquals(3, bst.getLookupCacheMissCount());
+		bst.setLookupCacheSize(8);
+		// Updates keep the cached node; deletes drop it.
+		bst.add(3, 30);
+		assertEquals((Integer) 30, bst.get(3));
+		bst.delete(3);
+		assertNull(bst.get(3));
+		assertFalse(bst.containsKey(3));
+		bst.add(3, 300);
+		assertEquals((Integer) 300, bst.get(3));
+		// Split moves nodes out of the BST, so the cache is emptied.
+		BinarySearchTree<Integer, Integer> upper = bst.split(10);
+		assertNull(bst.get(11));
+		assertNull(bst.get(15));
+		assertEquals((Integer) 11, upper.get(11));
+		bst.join(upper);
+		assertEquals((Integer) 11, bst.get(11));
+		assertNull(upper.get(11));
+		bst.setLookupCacheSize(0);
+		assertEquals(0, bst.getLookupCacheSize());
+		assertEquals((Integer) 300, bst.get(3));
+		assertEquals(0, bst.getLookupCacheMissCount());
+		try {
+			bst.setLookupCacheSize(-1);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			bst.setLookupCacheSize((1 << 30) + 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	@Test
+	public void testingLookupCache02() throws TreeIsFullException, 
+			TreeIsEmptyException {
+		// Keys are equal when they have the same absolute value, which 
+		// hashCode does not know about.
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer int1, Integer int2) {
+				return Integer.compare(Math.abs(int1), Math.abs(int2));
+			}
+		};
+		BinarySearchTree<Integer, Integer> bst = 
+				new BinarySearchTree<Integer, Integer>(comparator, 200, true);
+		bst.setLookupCacheSize(16);
+		TreeMap<Integer, Integer> model = new TreeMap<Integer, Integer>();
+		Random random = new Random(25);
+		for (int i = 0; i < 20000; i++) {
+			int key = random.nextInt(301) - 150;
+			int action = random.nextInt(10);
+			if (action < 6) {
+				assertEquals(model.get(Math.abs(key)), bst.get(key));
+			} else if (action < 8) {
+				if (model.size() < 200 || model.containsKey(Math.abs(key))) {
+					model.put(Math.abs(key), i);
+					bst.add(key, i);
+				}
+			} else if (action < 9) {
+				if (model.remove(Math.abs(key)) != null) {
+					bst.delete(key);
+				}
+			} else {
+				BinarySearchTree<Integer, Integer> upper = bst.split(key);
+				bst.union(upper);
+			}
+		}
+		assertTrue(bst.getLookupCacheHitCount() > 0);
+		assertEquals(model.size(), bst.size());
+		for (Integer key : model.keySet()) {
+			assertEquals(model.get(key), bst.get(-key));
+		}
+	}
 }